@@ -0,0 +1,89 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import java.nio.DoubleBuffer;
+
+/**
+ * A coordinate sequence whose values are stored in a CoordinateArena.  Only
+ * the block index and offset of the values are kept on the heap.
+ *
+ * @author Alec Dhuse
+ */
+class ArenaCoordinateSequence extends JsonCoordinateSequence {
+    private CoordinateArena arena;
+    private int             block, offset;
+
+    /**
+     * Creates a sequence over values already written to an arena.
+     *
+     * @param arena
+     * @param block         The index of the block holding the values.
+     * @param offset        The index of the first value in the block.
+     * @param size          The number of positions.
+     * @param dimension     2 or 3 values per position.
+     * @param depth         The number of array levels above the positions.
+     * @param ringOffsets   The start of each ring, plus the position count.
+     * @param partOffsets   The first ring of each part, plus the ring count.
+     */
+    ArenaCoordinateSequence(CoordinateArena arena, int block,       int offset, 
+                            int size,              int dimension,   int depth, 
+                            int[] ringOffsets,     int[] partOffsets) {
+        super(size, dimension, depth, ringOffsets, partOffsets);
+
+        this.arena  = arena;
+        this.block  = block;
+        this.offset = offset;
+    }
+
+    /**
+     * Returns true, the stored values are not given out.
+     *
+     * @return
+     */
+    @Override
+    public boolean isImmutable() {
+        return true;
+    }
+
+    /**
+     * Returns one of the values from the arena.
+     *
+     * @param index
+     * @return
+     */
+    @Override
+    protected double getValue(int index) {
+        return arena.getBlock(block).get(offset + index);
+    }
+
+    /**
+     * Returns a copy of the values on the heap.
+     *
+     * @return
+     */
+    @Override
+    public double[] getValues() {
+        DoubleBuffer source = arena.getBlock(block).duplicate();
+        double[]     copy   = new double[size * dimension];
+
+        source.position(offset);
+        source.get(copy);
+
+        return copy;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import java.util.Arrays;
+
+/**
+ * A column of booleans stored in a boolean array.  Rows without a value 
+ * hold false.
+ *
+ * @author Alec Dhuse
+ */
+public class BooleanColumn extends PropertyColumn {
+    private boolean[] values;
+
+    /**
+     * Creates an empty column.
+     *
+     * @param name  The property name.
+     */
+    public BooleanColumn(String name) {
+        super(name);
+        this.values = new boolean[0];
+    }
+
+    /**
+     * Returns the number of rows holding the given value.
+     *
+     * @param value
+     * @return
+     */
+    public int count(boolean value) {
+        int matches = 0;
+
+        for (int i = 0; i < size; i++) {
+            if (values[i] == value && !isNull(i))
+                matches++;
+        }
+
+        return matches;
+    }
+
+    /**
+     * Returns the boolean in a row, or false if the row has none.
+     *
+     * @param row
+     * @return
+     */
+    public boolean getBoolean(int row) {
+        return (row < size) && values[row];
+    }
+
+    @Override
+    public JsonValueType getType() {
+        return JsonValueType.BOOLEAN;
+    }
+
+    /**
+     * Returns the array holding the booleans.  Only the first size() values
+     * are rows, and the array is replaced when the column grows.
+     *
+     * @return
+     */
+    public boolean[] getValues() {
+        return values;
+    }
+
+    /**
+     * Returns the rows holding the given value.
+     *
+     * @param value
+     * @return
+     */
+    public int[] select(boolean value) {
+        int[] rows;
+        int   matches;
+
+        rows    = new int[count(value)];
+        matches = 0;
+
+        for (int i = 0; i < size; i++) {
+            if (values[i] == value && !isNull(i))
+                rows[matches++] = i;
+        }
+
+        return rows;
+    }
+
+    @Override
+    boolean accepts(JsonValue value) {
+        return (value.getType() == JsonValueType.BOOLEAN);
+    }
+
+    @Override
+    void erase(int row) {
+        values[row] = false;
+    }
+
+    @Override
+    JsonValue read(int row) {
+        return new JsonValue(Boolean.valueOf(values[row]), JsonValueType.BOOLEAN);
+    }
+
+    @Override
+    void reserve(int row) {
+        if (row >= values.length)
+            values = Arrays.copyOf(values, grow(values.length, row));
+    }
+
+    @Override
+    void write(int row, JsonValue value) {
+        values[row] = value.getBoolean();
+    }
+}
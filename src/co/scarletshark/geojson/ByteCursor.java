@@ -0,0 +1,301 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * A JsonCursor over UTF-8 encoded bytes in a ByteBuffer, such as a memory 
+ * mapped file.  Structure and numbers are read from the bytes directly; only
+ * string values and pair names are decoded.
+ *
+ * @author Alec Dhuse
+ */
+class ByteCursor extends JsonCursor {
+    static final Charset UTF8 = Charset.forName("UTF-8");
+    
+    protected byte[]            scratch;
+    protected ByteBuffer        buffer;
+    protected int               index, limit;
+    protected StructuralIndexer indexer;
+
+    /**
+     * Creates a cursor over the bytes from the buffer's position to its 
+     * limit.
+     *
+     * @param buffer
+     */
+    public ByteCursor(ByteBuffer buffer) {
+        this(buffer, buffer.position(), buffer.limit());
+    }
+
+    /**
+     * Creates a cursor over part of a ByteBuffer.  The buffer's position and
+     * limit are not used or changed.
+     *
+     * @param buffer
+     * @param start     The index of the first byte to read.
+     * @param end       The index after the last byte to read.
+     */
+    public ByteCursor(ByteBuffer buffer, int start, int end) {
+        this.scratch = new byte[64];
+        
+        reset(buffer.duplicate(), start, end);
+    }
+
+    /**
+     * Moves the cursor to part of a buffer so it can be reused for new 
+     * input.  Unlike the constructor the buffer is not duplicated, so its
+     * position may be changed while reading.
+     *
+     * @param buffer
+     * @param start     The index of the first byte to read.
+     * @param end       The index after the last byte to read.
+     */
+    void reset(ByteBuffer buffer, int start, int end) {
+        if (buffer != this.buffer || end != this.limit)
+            this.indexer = null;
+        
+        this.buffer = buffer;
+        this.index  = start;
+        this.limit  = end;
+        
+        //Skip a byte order mark
+        if (end - start >= 3 && buffer.get(start)     == (byte) 0xEF &&
+                                buffer.get(start + 1) == (byte) 0xBB &&
+                                buffer.get(start + 2) == (byte) 0xBF) {
+            this.index += 3;
+        }
+    }
+
+    /**
+     * Copies bytes from the buffer into the scratch array, growing it as 
+     * needed.
+     * 
+     * @param start
+     * @param length 
+     */
+    private void copyToScratch(int start, int length) {
+        if (scratch.length < length)
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+
+        buffer.position(start);
+        buffer.get(scratch, 0, length);
+    }
+    
+    @Override
+    int peek() {
+        while (index < limit) {
+            byte b = buffer.get(index);
+
+            if (isWhiteSpace(b)) {
+                index++;
+            } else {
+                return b & 0xFF;
+            }
+        }
+
+        return -1;
+    }
+
+    @Override
+    long position() {
+        return index;
+    }
+
+    @Override
+    double readNumber() throws IOException {
+        int start;
+
+        peek();
+        start = index;
+
+        while (index < limit && isTokenChar(buffer.get(index)))
+            index++;
+
+        if (index == start) {
+            if (index < limit) {
+                throw error("Unexpected character '" + (char) (buffer.get(index) & 0xFF) + "'");
+            } else {
+                throw error("Unexpected end of input");
+            }
+        }
+
+        try {
+            return FastDoubleParser.parse(buffer, start, index);
+        } catch (NumberFormatException e) {
+            index = start;
+            throw error("Invalid number");
+        }
+    }
+
+    @Override
+    boolean readLiteral(String word) {
+        int end = index + word.length();
+
+        if (end > limit)
+            return false;
+
+        for (int i = 0; i < word.length(); i++) {
+            if (Character.toLowerCase((char) buffer.get(index + i)) != word.charAt(i))
+                return false;
+        }
+
+        if (end < limit && isTokenChar(buffer.get(end)))
+            return false;
+
+        index = end;
+        return true;
+    }
+
+    @Override
+    String readName() throws IOException {
+        String name;
+        int    length, start;
+
+        start  = scanString();
+        length = index - start - 1;
+        name   = (keys == null) ? null : keys.get(buffer, start, length);
+
+        if (name == null) {
+            copyToScratch(start, length);
+            name = new String(scratch, 0, length, UTF8);
+
+            if (keys != null)
+                name = keys.intern(name);
+        }
+
+        return name;
+    }
+
+    @Override
+    String readString() throws IOException {
+        int length, start;
+
+        start  = scanString();
+        length = index - start - 1;
+        copyToScratch(start, length);
+
+        return new String(scratch, 0, length, UTF8);
+    }
+
+    /**
+     * Moves the cursor past the quoted string at the current position and 
+     * returns the index of its first byte.  The string ends before the 
+     * closing quote, at index - 1.
+     *
+     * @return
+     * @throws IOException
+     */
+    private int scanString() throws IOException {
+        int start;
+
+        if (peek() != '"')
+            throw error("Expected '\"'");
+
+        start = ++index;
+
+        while (index < limit) {
+            byte b = buffer.get(index);
+
+            if (b == '"') {
+                index++;
+                return start;
+            } else if (b == '\\') {
+                index += 2;
+            } else {
+                index++;
+            }
+        }
+
+        throw error("Unterminated string");
+    }
+
+    @Override
+    void skip() {
+        index++;
+    }
+
+    @Override
+    void skipValue() throws IOException {
+        byte[] kinds;
+        int    depth, nextChar, start;
+        int[]  positions;
+
+        nextChar = peek();
+
+        if (nextChar != '{' && nextChar != '[' && nextChar != '"') {
+            //Number or literal
+            start = index;
+
+            while (index < limit && isTokenChar(buffer.get(index)))
+                index++;
+
+            if (index == start)
+                throw error("Unexpected character");
+
+            return;
+        }
+
+        //Walk the quotes and brackets found by the structural indexer
+        if (indexer == null)
+            indexer = new StructuralIndexer(buffer, limit);
+
+        depth = 0;
+        start = index;
+        indexer.reset(index);
+
+        while (indexer.next()) {
+            kinds     = indexer.getKinds();
+            positions = indexer.getPositions();
+
+            for (int i = 0; i < indexer.getCount(); i++) {
+                if (kinds[i] == StructuralIndexer.QUOTE) {
+                    //Quotes are only seen at depth 0 when skipping a string
+                    if (depth == 0 && positions[i] != start) {
+                        index = positions[i] + 1;
+                        return;
+                    }
+                } else if (kinds[i] == StructuralIndexer.OPEN) {
+                    depth++;
+                } else {
+                    depth--;
+
+                    if (depth == 0) {
+                        index = positions[i] + 1;
+                        return;
+                    }
+                }
+            }
+        }
+
+        index = limit;
+        throw error("Unexpected end of input");
+    }
+
+    @Override
+    JsonCursor slice(long start, long end) {
+        ByteCursor slice = new ByteCursor(buffer, (int) start, (int) end);
+
+        slice.keys    = keys;
+        slice.storage = storage;
+
+        return slice;
+    }
+}
@@ -0,0 +1,299 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import java.io.IOException;
+
+/**
+ * A JsonCursor over a char array.  Subclasses may supply the array in pieces
+ * by overriding fill().
+ *
+ * @author Alec Dhuse
+ */
+class CharCursor extends JsonCursor {
+    protected char[] buffer;
+    protected int    index, limit, mark, tokenStart;
+
+    /**
+     * Creates a cursor over the whole of a char array.
+     *
+     * @param buffer
+     */
+    public CharCursor(char[] buffer) {
+        this(buffer, 0, buffer.length);
+    }
+
+    /**
+     * Creates a cursor over part of a char array.
+     *
+     * @param buffer
+     * @param start     The index of the first char to read.
+     * @param end       The index after the last char to read.
+     */
+    public CharCursor(char[] buffer, int start, int end) {
+        reset(buffer, start, end);
+    }
+
+    /**
+     * Moves the cursor to part of a char array so it can be reused for new
+     * input.
+     *
+     * @param buffer
+     * @param start     The index of the first char to read.
+     * @param end       The index after the last char to read.
+     */
+    void reset(char[] buffer, int start, int end) {
+        this.buffer     = buffer;
+        this.index      = start;
+        this.limit      = end;
+        this.mark       = -1;
+        this.tokenStart = -1;
+    }
+
+    /**
+     * Makes more chars available after limit.  Chars from the mark and from
+     * tokenStart, or from index if neither is set, must be kept.  Returns false when the
+     * input is exhausted, which is always the case for a plain array.
+     *
+     * @return
+     * @throws IOException
+     */
+    protected boolean fill() throws IOException {
+        return false;
+    }
+
+    @Override
+    int peek() throws IOException {
+        while (index < limit || fill()) {
+            char c = buffer[index];
+
+            if (isWhiteSpace(c)) {
+                index++;
+            } else {
+                return c;
+            }
+        }
+
+        return -1;
+    }
+
+    @Override
+    long position() {
+        return index;
+    }
+
+    @Override
+    double readNumber() throws IOException {
+        int start;
+
+        peek();
+        tokenStart = index;
+
+        while ((index < limit || fill()) && isTokenChar(buffer[index]))
+            index++;
+
+        start      = tokenStart;
+        tokenStart = -1;
+
+        if (index == start) {
+            if (index < limit) {
+                throw error("Unexpected character '" + buffer[index] + "'");
+            } else {
+                throw error("Unexpected end of input");
+            }
+        }
+
+        try {
+            return FastDoubleParser.parse(buffer, start, index);
+        } catch (NumberFormatException e) {
+            index = start;
+            throw error("Invalid number");
+        }
+    }
+
+    @Override
+    boolean readLiteral(String word) throws IOException {
+        int end = index + word.length();
+
+        while (end >= limit && fill())
+            end = index + word.length();
+
+        if (end > limit)
+            return false;
+
+        for (int i = 0; i < word.length(); i++) {
+            if (Character.toLowerCase(buffer[index + i]) != word.charAt(i))
+                return false;
+        }
+
+        if (end < limit && isTokenChar(buffer[end]))
+            return false;
+
+        index = end;
+        return true;
+    }
+
+    @Override
+    String readName() throws IOException {
+        int start = scanString();
+
+        if (keys == null) {
+            return new String(buffer, start, index - start - 1);
+        } else {
+            return keys.get(buffer, start, index - start - 1);
+        }
+    }
+
+    @Override
+    String readString() throws IOException {
+        int start = scanString();
+
+        return new String(buffer, start, index - start - 1);
+    }
+
+    /**
+     * Moves the cursor past the quoted string at the current position and 
+     * returns the index of its first char.  The string ends before the 
+     * closing quote, at index - 1.
+     *
+     * @return
+     * @throws IOException
+     */
+    private int scanString() throws IOException {
+        int start;
+
+        if (peek() != '"')
+            throw error("Expected '\"'");
+
+        tokenStart = ++index;
+
+        while (index < limit || fill()) {
+            char c = buffer[index];
+
+            if (c == '"') {
+                start      = tokenStart;
+                tokenStart = -1;
+                index++;
+                return start;
+            } else if (c == '\\') {
+                index++;
+
+                if (index < limit || fill())
+                    index++;
+            } else {
+                index++;
+            }
+        }
+
+        tokenStart = -1;
+        throw error("Unterminated string");
+    }
+
+    /**
+     * Keeps the chars from the cursor onwards available, so the cursor can 
+     * later be moved back to any position after it with seek().
+     */
+    void mark() {
+        mark = index;
+    }
+
+    /**
+     * Releases the chars kept by mark().
+     */
+    void clearMark() {
+        mark = -1;
+    }
+
+    /**
+     * Moves the cursor back to a position at or after the mark.
+     *
+     * @param position  A position returned by position().
+     */
+    void seek(long position) {
+        index = (int) position;
+    }
+
+    @Override
+    void skip() {
+        index++;
+    }
+
+    @Override
+    void skipValue() throws IOException {
+        boolean inString;
+        char    c;
+        int     depth, nextChar;
+
+        nextChar = peek();
+
+        if (nextChar != '{' && nextChar != '[' && nextChar != '"') {
+            //Number or literal
+            tokenStart = index;
+
+            while ((index < limit || fill()) && isTokenChar(buffer[index]))
+                index++;
+
+            if (index == tokenStart) {
+                tokenStart = -1;
+                throw error("Unexpected character");
+            }
+
+            tokenStart = -1;
+            return;
+        }
+
+        depth    = 0;
+        inString = false;
+
+        while (index < limit || fill()) {
+            c = buffer[index++];
+
+            if (inString) {
+                if (c == '\\') {
+                    if (index < limit || fill())
+                        index++;
+                } else if (c == '"') {
+                    inString = false;
+
+                    if (depth == 0)
+                        return;
+                }
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else if (c == '}' || c == ']') {
+                depth--;
+
+                if (depth == 0)
+                    return;
+            }
+        }
+
+        throw error("Unexpected end of input");
+    }
+
+    @Override
+    JsonCursor slice(long start, long end) {
+        CharCursor slice = new CharCursor(buffer, (int) start, (int) end);
+
+        slice.keys    = keys;
+        slice.storage = storage;
+
+        return slice;
+    }
+}
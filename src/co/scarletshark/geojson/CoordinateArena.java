@@ -0,0 +1,181 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+
+/**
+ * Holds coordinate values outside of the Java heap, in direct buffers.
+ * Sequences stored in an arena keep only their block and offset, so the
+ * values of very large sets of geometries are not scanned by the garbage
+ * collector.
+ *
+ * Values are written into blocks of BLOCK_SIZE doubles, sequences that do
+ * not fit in a block getting one of their own.  Closing the arena releases
+ * its blocks, after which every sequence stored in it throws an
+ * IllegalStateException when read.  The memory of direct buffers is 
+ * returned when they are collected, which closing allows even while the 
+ * geometries using the arena are still referenced.
+ *
+ * An arena is used by passing it to setCoordinateStorage() of a parser.
+ * Storing is synchronized, so one arena can be used by several parsers.
+ *
+ * @author Alec Dhuse
+ */
+public class CoordinateArena extends CoordinateStorage implements Closeable {
+    /** The number of doubles in each block. */
+    protected static final int BLOCK_SIZE = 1024 * 1024;
+
+    private volatile DoubleBuffer[] blocks;
+    private int                     blockCount, blockUsed, current;
+    private long                    allocated;
+
+    /**
+     * Creates an empty arena.  Blocks are allocated as values are stored.
+     */
+    public CoordinateArena() {
+        this.blocks     = new DoubleBuffer[8];
+        this.blockCount = 0;
+        this.blockUsed  = 0;
+        this.current    = -1;
+        this.allocated  = 0;
+    }
+
+    /**
+     * Releases the blocks of this arena.  Sequences stored in it can no 
+     * longer be read.
+     */
+    @Override
+    public synchronized void close() {
+        blocks = null;
+    }
+
+    /**
+     * Returns the number of bytes of direct memory allocated by this arena.
+     *
+     * @return
+     */
+    public synchronized long getAllocatedBytes() {
+        return allocated * 8;
+    }
+
+    /**
+     * Returns if this arena has been closed.
+     *
+     * @return
+     */
+    public boolean isClosed() {
+        return (blocks == null);
+    }
+
+    /**
+     * Copies the first dimension values of each position from an array with
+     * the given stride into the arena and returns a sequence reading them.
+     *
+     * @param values
+     * @param stride        The number of values per position in the array.
+     * @param size          The number of positions.
+     * @param dimension     The number of values to keep per position.
+     * @param depth
+     * @param ringOffsets
+     * @param partOffsets
+     * @return
+     */
+    @Override
+    synchronized JsonCoordinateSequence store(double[] values, int stride,    int size,
+                                              int dimension,   int depth,
+                                              int[] ringOffsets, int[] partOffsets) {
+        DoubleBuffer block;
+        int          blockIndex, length, offset;
+
+        if (blocks == null)
+            throw new IllegalStateException("CoordinateArena is closed");
+
+        length = size * dimension;
+
+        if (length >= BLOCK_SIZE) {
+            blockIndex = addBlock(length);
+            offset     = 0;
+        } else {
+            if (current < 0 || BLOCK_SIZE - blockUsed < length) {
+                current   = addBlock(BLOCK_SIZE);
+                blockUsed = 0;
+            }
+
+            blockIndex = current;
+            offset     = blockUsed;
+            blockUsed += length;
+        }
+
+        block = blocks[blockIndex];
+
+        if (stride == dimension) {
+            block = block.duplicate();
+            block.position(offset);
+            block.put(values, 0, length);
+        } else {
+            for (int i = 0; i < size; i++) {
+                for (int d = 0; d < dimension; d++)
+                    block.put(offset + i * dimension + d, values[i * stride + d]);
+            }
+        }
+
+        return new ArenaCoordinateSequence(this, blockIndex, offset, size, dimension, 
+                                           depth, ringOffsets, partOffsets);
+    }
+
+    /**
+     * Returns a block for reading.
+     *
+     * @param index
+     * @return
+     */
+    DoubleBuffer getBlock(int index) {
+        DoubleBuffer[] current = blocks;
+
+        if (current == null)
+            throw new IllegalStateException("CoordinateArena is closed");
+
+        return current[index];
+    }
+
+    /**
+     * Allocates a new block and returns its index.
+     *
+     * @param length    The number of doubles in the block.
+     * @return
+     */
+    private int addBlock(int length) {
+        DoubleBuffer[] current;
+
+        current = blocks;
+
+        if (blockCount == current.length) {
+            current = new DoubleBuffer[blockCount * 2];
+            System.arraycopy(blocks, 0, current, 0, blockCount);
+        }
+
+        current[blockCount] = ByteBuffer.allocateDirect(length * 8).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+        allocated += length;
+        blocks     = current;
+
+        return blockCount++;
+    }
+}
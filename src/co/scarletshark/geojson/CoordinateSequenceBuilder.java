@@ -0,0 +1,312 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Reads a "coordinates" array from a cursor straight into packed growable
+ * arrays, then builds a JsonCoordinateSequence from them.  No objects are
+ * created per position or per nested array.
+ *
+ * @author Alec Dhuse
+ */
+class CoordinateSequenceBuilder {
+    private double[] values;
+    private int      dimension, partCount, ringCount, size;
+    private int[]    partEnds, ringEnds;
+
+    /**
+     * Creates an empty builder.
+     */
+    public CoordinateSequenceBuilder() {
+        this.values   = new double[96];
+        this.partEnds = new int[8];
+        this.ringEnds = new int[8];
+    }
+
+    /**
+     * Reads the coordinates array starting at the cursor and returns it as
+     * a sequence.
+     *
+     * @param cursor
+     * @return
+     * @throws IOException
+     */
+    JsonCoordinateSequence read(JsonCursor cursor) throws IOException {
+        CoordinateStorage storage;
+        int               depth;
+
+        reset();
+        depth   = readArray(cursor);
+        storage = (cursor.storage != null) ? cursor.storage : CoordinateStorage.DOUBLE;
+
+        try {
+            return build(depth, storage);
+        } catch (IllegalArgumentException e) {
+            throw cursor.error(e.getMessage());
+        }
+    }
+
+    /**
+     * Reads a coordinates array already parsed into nested Object arrays.
+     * Numbers given as Strings are converted.
+     *
+     * @param array
+     * @return
+     * @throws IllegalArgumentException if the array is not a valid 
+     *                                  coordinates array.
+     */
+    JsonCoordinateSequence read(Object[] array) {
+        reset();
+
+        return build(readArray(array), CoordinateStorage.DOUBLE);
+    }
+
+    /**
+     * Clears the positions and offsets of the last array read.
+     */
+    private void reset() {
+        dimension = 2;
+        partCount = 0;
+        ringCount = 0;
+        size      = 0;
+    }
+
+    /**
+     * Copies the packed values into a new sequence using the given storage,
+     * dropping the z slot if no position had one.
+     *
+     * @param depth
+     * @param storage
+     * @return
+     */
+    private JsonCoordinateSequence build(int depth, CoordinateStorage storage) {
+        int[] partOffsets, ringOffsets;
+
+        ringOffsets = null;
+        partOffsets = null;
+
+        if (depth >= 2) {
+            ringOffsets = new int[ringCount + 1];
+            System.arraycopy(ringEnds, 0, ringOffsets, 1, ringCount);
+        }
+
+        if (depth == 3) {
+            partOffsets = new int[partCount + 1];
+            System.arraycopy(partEnds, 0, partOffsets, 1, partCount);
+        }
+
+        return storage.store(values, 3, size, dimension, depth, ringOffsets, partOffsets);
+    }
+
+    /**
+     * Records the end of an array of the given depth.  Returns false if the
+     * depth is too deep for coordinates.
+     *
+     * @param depth
+     * @return
+     */
+    private boolean endArray(int depth) {
+        if (depth == 1) {
+            if (ringCount == ringEnds.length)
+                ringEnds = Arrays.copyOf(ringEnds, ringCount * 2);
+
+            ringEnds[ringCount++] = size;
+        } else if (depth == 2) {
+            if (partCount == partEnds.length)
+                partEnds = Arrays.copyOf(partEnds, partCount * 2);
+
+            partEnds[partCount++] = ringCount;
+        } else if (depth > 3) {
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Reads one level of a parsed array and returns its depth.
+     *
+     * @param array
+     * @return
+     */
+    private int readArray(Object[] array) {
+        int childDepth, depth;
+
+        if (array.length > 0 && !(array[0] instanceof Object[]))
+            return readPosition(array);
+
+        depth = 1;
+
+        for (int i = 0; i < array.length; i++) {
+            if (!(array[i] instanceof Object[]))
+                throw new IllegalArgumentException("Expected an array of coordinates");
+
+            childDepth = readArray((Object[]) array[i]);
+
+            if (i == 0) {
+                depth = childDepth + 1;
+            } else if (childDepth + 1 != depth) {
+                throw new IllegalArgumentException("Inconsistent coordinate nesting");
+            }
+        }
+
+        if (!endArray(depth))
+            throw new IllegalArgumentException("Coordinates nested too deeply");
+
+        return depth;
+    }
+
+    /**
+     * Reads the numbers of a parsed position.  Values after the third are 
+     * not kept.
+     *
+     * @param array
+     * @return
+     */
+    private int readPosition(Object[] array) {
+        Object element;
+
+        if (array.length < 2)
+            throw new IllegalArgumentException("Position needs at least two values");
+
+        if (values.length < (size + 1) * 3)
+            values = Arrays.copyOf(values, values.length * 2);
+
+        values[size * 3 + 2] = Double.NaN;
+
+        for (int i = 0; i < array.length && i < 3; i++) {
+            element = array[i];
+
+            if (element instanceof Number) {
+                values[size * 3 + i] = ((Number) element).doubleValue();
+            } else if (element instanceof String) {
+                //This shouldn't be a string, but if it is convert it to a double.
+                values[size * 3 + i] = Double.parseDouble((String) element);
+            } else {
+                throw new IllegalArgumentException("Expected a number in a position");
+            }
+        }
+
+        if (array.length > 2)
+            dimension = 3;
+
+        size++;
+
+        return 0;
+    }
+
+    /**
+     * Reads one array level and returns its depth.  Positions are depth 0.
+     * Empty arrays are treated as empty lists of positions.
+     *
+     * @param cursor
+     * @return
+     * @throws IOException
+     */
+    private int readArray(JsonCursor cursor) throws IOException {
+        int childDepth, depth, nextChar;
+
+        cursor.expect('[');
+        nextChar = cursor.peek();
+
+        if (nextChar != '[' && nextChar != ']')
+            return readPosition(cursor);
+
+        depth = 1;
+
+        if (nextChar == ']') {
+            cursor.skip();
+        } else {
+            for (int i = 0; ; i++) {
+                childDepth = readArray(cursor);
+
+                if (i == 0) {
+                    depth = childDepth + 1;
+                } else if (childDepth + 1 != depth) {
+                    throw cursor.error("Inconsistent coordinate nesting");
+                }
+
+                nextChar = cursor.peek();
+
+                if (nextChar == ',') {
+                    cursor.skip();
+                } else if (nextChar == ']') {
+                    cursor.skip();
+                    break;
+                } else {
+                    throw cursor.error("Expected ',' or ']'");
+                }
+            }
+        }
+
+        if (!endArray(depth))
+            throw cursor.error("Coordinates nested too deeply");
+
+        return depth;
+    }
+
+    /**
+     * Reads the numbers of a position after its opening bracket.  Values
+     * after the third are read but not kept.
+     *
+     * @param cursor
+     * @return
+     * @throws IOException
+     */
+    private int readPosition(JsonCursor cursor) throws IOException {
+        double value;
+        int    count, nextChar;
+
+        if (values.length < (size + 1) * 3)
+            values = Arrays.copyOf(values, values.length * 2);
+
+        values[size * 3 + 2] = Double.NaN;
+        count = 0;
+
+        while (true) {
+            value = cursor.readNumber();
+
+            if (count < 3)
+                values[size * 3 + count] = value;
+
+            count++;
+            nextChar = cursor.peek();
+
+            if (nextChar == ',') {
+                cursor.skip();
+            } else if (nextChar == ']') {
+                cursor.skip();
+                break;
+            } else {
+                throw cursor.error("Expected ',' or ']'");
+            }
+        }
+
+        if (count < 2)
+            throw cursor.error("Position needs at least two values");
+
+        if (count > 2)
+            dimension = 3;
+
+        size++;
+
+        return 0;
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+/**
+ * Decides how the values of parsed coordinates are stored.  The storage is
+ * chosen when parsing, and every sequence returns its values as doubles, so
+ * code reading or writing geometries does not depend on it.
+ *
+ * DOUBLE:      Full precision in a double array, the default.
+ * IMMUTABLE:   Full precision in a double array that is never given out,
+ *              making geometries immutable.
+ * FLOAT:       Single precision in a float array, half the memory.  Floats
+ *              keep about 7 significant digits, close to 1 m for longitude.
+ * quantized(): x and y as integers scaled by a factor, half the memory.  A
+ *              factor of 1e7 keeps about 1 cm.  z values are kept as floats.
+ *
+ * A CoordinateArena is also a storage, keeping full precision values off the
+ * heap.
+ *
+ * @author Alec Dhuse
+ */
+public abstract class CoordinateStorage {
+    /** Stores values in double arrays. */
+    public static final CoordinateStorage DOUBLE = new DoubleStorage();
+
+    /** 
+     * Stores values in double arrays that cannot be changed, so geometries 
+     * are immutable and have their hash computed when parsed. 
+     */
+    public static final CoordinateStorage IMMUTABLE = new ImmutableStorage();
+
+    /** Stores values in float arrays. */
+    public static final CoordinateStorage FLOAT  = new FloatStorage();
+
+    /**
+     * Returns a storage keeping x and y as integers, rounded after 
+     * multiplying by the scale.  Values whose scaled size does not fit an
+     * int cannot be stored.
+     *
+     * @param scale     The number of integer steps per unit, such as 1e7.
+     * @return
+     */
+    public static CoordinateStorage quantized(double scale) {
+        if (!(scale > 0) || Double.isInfinite(scale))
+            throw new IllegalArgumentException("Invalid scale: " + scale);
+
+        return new QuantizedStorage(scale);
+    }
+
+    /**
+     * Copies a sequence into this storage.
+     *
+     * @param sequence
+     * @return
+     */
+    public JsonCoordinateSequence store(JsonCoordinateSequence sequence) {
+        return store(sequence.getValues(), sequence.dimension, sequence.size,
+                     sequence.dimension, sequence.depth,
+                     sequence.ringOffsets, sequence.partOffsets);
+    }
+
+    /**
+     * Copies the first dimension values of each position from an array with
+     * the given stride into this storage and returns a sequence reading them.
+     * Throws an IllegalArgumentException if a value cannot be stored.
+     *
+     * @param values
+     * @param stride        The number of values per position in the array.
+     * @param size          The number of positions.
+     * @param dimension     The number of values to keep per position.
+     * @param depth
+     * @param ringOffsets
+     * @param partOffsets
+     * @return
+     */
+    abstract JsonCoordinateSequence store(double[] values, int stride,    int size,
+                                          int dimension,   int depth,
+                                          int[] ringOffsets, int[] partOffsets);
+
+    /**
+     * Stores values in double arrays.
+     */
+    private static class DoubleStorage extends CoordinateStorage {
+        @Override
+        JsonCoordinateSequence store(double[] values, int stride,    int size,
+                                     int dimension,   int depth,
+                                     int[] ringOffsets, int[] partOffsets) {
+            double[] packed = new double[size * dimension];
+
+            for (int i = 0; i < size; i++) {
+                for (int d = 0; d < dimension; d++)
+                    packed[i * dimension + d] = values[i * stride + d];
+            }
+
+            return new JsonCoordinateSequence(packed, dimension, depth, ringOffsets, partOffsets);
+        }
+    }
+
+    /**
+     * Stores values in double arrays that are not given out.
+     */
+    private static class ImmutableStorage extends CoordinateStorage {
+        @Override
+        JsonCoordinateSequence store(double[] values, int stride,    int size,
+                                     int dimension,   int depth,
+                                     int[] ringOffsets, int[] partOffsets) {
+            JsonCoordinateSequence sequence = DOUBLE.store(values, stride, size, dimension, depth, ringOffsets, partOffsets);
+
+            return new ImmutableCoordinateSequence(sequence.values, dimension, depth, ringOffsets, partOffsets);
+        }
+    }
+
+    /**
+     * Stores values in float arrays.
+     */
+    private static class FloatStorage extends CoordinateStorage {
+        @Override
+        JsonCoordinateSequence store(double[] values, int stride,    int size,
+                                     int dimension,   int depth,
+                                     int[] ringOffsets, int[] partOffsets) {
+            float[] packed = new float[size * dimension];
+
+            for (int i = 0; i < size; i++) {
+                for (int d = 0; d < dimension; d++)
+                    packed[i * dimension + d] = (float) values[i * stride + d];
+            }
+
+            return new FloatCoordinateSequence(packed, dimension, depth, ringOffsets, partOffsets);
+        }
+    }
+
+    /**
+     * Stores x and y as scaled integers.
+     */
+    private static class QuantizedStorage extends CoordinateStorage {
+        private double scale;
+
+        public QuantizedStorage(double scale) {
+            this.scale = scale;
+        }
+
+        @Override
+        JsonCoordinateSequence store(double[] values, int stride,    int size,
+                                     int dimension,   int depth,
+                                     int[] ringOffsets, int[] partOffsets) {
+            float[] altitudes;
+            int[]   packed;
+
+            packed    = new int[size * 2];
+            altitudes = (dimension == 3) ? new float[size] : null;
+
+            for (int i = 0; i < size; i++) {
+                packed[i * 2]     = quantize(values[i * stride]);
+                packed[i * 2 + 1] = quantize(values[i * stride + 1]);
+
+                if (altitudes != null)
+                    altitudes[i] = (float) values[i * stride + 2];
+            }
+
+            return new QuantizedCoordinateSequence(packed, altitudes, scale, depth, ringOffsets, partOffsets);
+        }
+
+        /**
+         * Returns a value scaled and rounded to an integer.
+         *
+         * @param value
+         * @return
+         */
+        private int quantize(double value) {
+            long scaled = Math.round(value * scale);
+
+            if (scaled > Integer.MAX_VALUE || scaled < Integer.MIN_VALUE || Double.isNaN(value))
+                throw new IllegalArgumentException("Coordinate " + value + " is out of range for a scale of " + scale);
+
+            return (int) scaled;
+        }
+    }
+}
@@ -0,0 +1,442 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+
+/**
+ * Converts number tokens to doubles directly from a parser's buffer without
+ * creating a String.
+ *
+ * Most numbers are converted exactly by the Clinger fast path or by the
+ * Eisel-Lemire algorithm.  Numbers with more than 19 significant digits, and
+ * the rare cases Eisel-Lemire cannot decide, fall back to
+ * Double.parseDouble(String).  The result is always the correctly rounded
+ * double.
+ *
+ * @author Alec Dhuse
+ */
+final class FastDoubleParser {
+    private static final int SMALLEST_POWER_OF_TEN = -342;
+    private static final int LARGEST_POWER_OF_TEN  = 308;
+
+    /** Exactly representable powers of ten, for the Clinger fast path. */
+    private static final double[] POWERS_OF_TEN = {
+        1e0,  1e1,  1e2,  1e3,  1e4,  1e5,  1e6,  1e7,  1e8,  1e9,  1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * The 128 most significant bits of 5^q for q from SMALLEST_POWER_OF_TEN
+     * to LARGEST_POWER_OF_TEN, stored as high and low words.
+     */
+    private static final long[] POWERS_OF_FIVE = createPowersOfFive();
+
+    private FastDoubleParser() {
+    }
+
+    /**
+     * Builds the table of truncated 128 bit powers of five.  Negative powers
+     * are stored as rounded up reciprocals.
+     *
+     * @return
+     */
+    private static long[] createPowersOfFive() {
+        BigInteger  mask128, power5, value;
+        int         bits;
+        long[]      table;
+
+        table   = new long[(LARGEST_POWER_OF_TEN - SMALLEST_POWER_OF_TEN + 1) * 2];
+        mask128 = BigInteger.ONE.shiftLeft(128);
+
+        for (int q = SMALLEST_POWER_OF_TEN; q <= LARGEST_POWER_OF_TEN; q++) {
+            power5 = BigInteger.valueOf(5).pow(Math.abs(q));
+            bits   = power5.subtract(BigInteger.ONE).bitLength();
+
+            if (q < 0) {
+                if (q >= -27) {
+                    value = BigInteger.ONE.shiftLeft(bits + 127).divide(power5).add(BigInteger.ONE);
+                } else {
+                    value = BigInteger.ONE.shiftLeft(2 * bits + 128).divide(power5).add(BigInteger.ONE);
+                }
+            } else {
+                value = power5;
+            }
+
+            if (value.compareTo(mask128) >= 0) {
+                value = value.shiftRight(value.bitLength() - 128);
+            } else {
+                value = value.shiftLeft(128 - value.bitLength());
+            }
+
+            table[(q - SMALLEST_POWER_OF_TEN) * 2]     = value.shiftRight(64).longValue();
+            table[(q - SMALLEST_POWER_OF_TEN) * 2 + 1] = value.longValue();
+        }
+
+        return table;
+    }
+
+    /**
+     * Returns the number in a range of a char array.
+     *
+     * @param buffer
+     * @param start     The index of the first char of the number.
+     * @param end       The index after the last char of the number.
+     * @return
+     * @throws NumberFormatException    If the chars are not a number.
+     */
+    static double parse(char[] buffer, int start, int end) {
+        boolean digitFound, negative, truncated;
+        char    c;
+        int     digitCount, exponent, i;
+        long    mantissa;
+        double  value;
+
+        digitFound = false;
+        negative   = false;
+        truncated  = false;
+        digitCount = 0;
+        exponent   = 0;
+        mantissa   = 0;
+        i          = start;
+
+        if (i < end && (buffer[i] == '-' || buffer[i] == '+')) {
+            negative = (buffer[i] == '-');
+            i++;
+        }
+
+        //Integer part
+        for (; i < end && (c = buffer[i]) >= '0' && c <= '9'; i++) {
+            digitFound = true;
+
+            if (digitCount < 19) {
+                if (mantissa != 0 || c != '0') {
+                    mantissa = mantissa * 10 + (c - '0');
+                    digitCount++;
+                }
+            } else {
+                exponent++;
+                truncated |= (c != '0');
+            }
+        }
+
+        //Fraction part
+        if (i < end && buffer[i] == '.') {
+            for (i++; i < end && (c = buffer[i]) >= '0' && c <= '9'; i++) {
+                digitFound = true;
+
+                if (digitCount < 19) {
+                    if (mantissa != 0 || c != '0')
+                        mantissa = mantissa * 10 + (c - '0');
+
+                    if (mantissa != 0)
+                        digitCount++;
+
+                    exponent--;
+                } else {
+                    truncated |= (c != '0');
+                }
+            }
+        }
+
+        if (!digitFound)
+            throw new NumberFormatException();
+
+        //Exponent part
+        if (i < end && (buffer[i] == 'e' || buffer[i] == 'E')) {
+            boolean negativeExp  = false;
+            boolean expDigit     = false;
+            int     expValue     = 0;
+
+            i++;
+
+            if (i < end && (buffer[i] == '-' || buffer[i] == '+')) {
+                negativeExp = (buffer[i] == '-');
+                i++;
+            }
+
+            for (; i < end && (c = buffer[i]) >= '0' && c <= '9'; i++) {
+                expDigit = true;
+
+                if (expValue < 100000)
+                    expValue = expValue * 10 + (c - '0');
+            }
+
+            if (!expDigit)
+                throw new NumberFormatException();
+
+            exponent += (negativeExp ? -expValue : expValue);
+        }
+
+        if (i != end)
+            throw new NumberFormatException();
+
+        value = truncated ? Double.NaN : toDouble(negative, mantissa, exponent);
+
+        if (Double.isNaN(value)) {
+            return Double.parseDouble(new String(buffer, start, end - start));
+        } else {
+            return value;
+        }
+    }
+
+    /**
+     * Returns the number in a range of a ByteBuffer holding ASCII digits.
+     *
+     * @param buffer
+     * @param start     The index of the first byte of the number.
+     * @param end       The index after the last byte of the number.
+     * @return
+     * @throws NumberFormatException    If the bytes are not a number.
+     */
+    static double parse(ByteBuffer buffer, int start, int end) {
+        boolean digitFound, negative, truncated;
+        byte    b;
+        int     digitCount, exponent, i;
+        long    mantissa;
+        double  value;
+
+        digitFound = false;
+        negative   = false;
+        truncated  = false;
+        digitCount = 0;
+        exponent   = 0;
+        mantissa   = 0;
+        i          = start;
+
+        if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = (buffer.get(i) == '-');
+            i++;
+        }
+
+        //Integer part
+        for (; i < end && (b = buffer.get(i)) >= '0' && b <= '9'; i++) {
+            digitFound = true;
+
+            if (digitCount < 19) {
+                if (mantissa != 0 || b != '0') {
+                    mantissa = mantissa * 10 + (b - '0');
+                    digitCount++;
+                }
+            } else {
+                exponent++;
+                truncated |= (b != '0');
+            }
+        }
+
+        //Fraction part
+        if (i < end && buffer.get(i) == '.') {
+            for (i++; i < end && (b = buffer.get(i)) >= '0' && b <= '9'; i++) {
+                digitFound = true;
+
+                if (digitCount < 19) {
+                    if (mantissa != 0 || b != '0')
+                        mantissa = mantissa * 10 + (b - '0');
+
+                    if (mantissa != 0)
+                        digitCount++;
+
+                    exponent--;
+                } else {
+                    truncated |= (b != '0');
+                }
+            }
+        }
+
+        if (!digitFound)
+            throw new NumberFormatException();
+
+        //Exponent part
+        if (i < end && (buffer.get(i) == 'e' || buffer.get(i) == 'E')) {
+            boolean negativeExp  = false;
+            boolean expDigit     = false;
+            int     expValue     = 0;
+
+            i++;
+
+            if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+                negativeExp = (buffer.get(i) == '-');
+                i++;
+            }
+
+            for (; i < end && (b = buffer.get(i)) >= '0' && b <= '9'; i++) {
+                expDigit = true;
+
+                if (expValue < 100000)
+                    expValue = expValue * 10 + (b - '0');
+            }
+
+            if (!expDigit)
+                throw new NumberFormatException();
+
+            exponent += (negativeExp ? -expValue : expValue);
+        }
+
+        if (i != end)
+            throw new NumberFormatException();
+
+        value = truncated ? Double.NaN : toDouble(negative, mantissa, exponent);
+
+        if (Double.isNaN(value)) {
+            char[] chars = new char[end - start];
+
+            for (i = start; i < end; i++)
+                chars[i - start] = (char) buffer.get(i);
+
+            return Double.parseDouble(new String(chars));
+        } else {
+            return value;
+        }
+    }
+
+    /**
+     * Returns the double closest to mantissa * 10^exponent, or NaN if the
+     * result could not be determined without a slower exact method.
+     *
+     * @param negative
+     * @param mantissa  An unsigned value of at most 19 decimal digits.
+     * @param exponent
+     * @return
+     */
+    static double toDouble(boolean negative, long mantissa, int exponent) {
+        double value;
+
+        if (mantissa == 0 || exponent < SMALLEST_POWER_OF_TEN) {
+            value = 0.0;
+        } else if (exponent > LARGEST_POWER_OF_TEN) {
+            value = Double.POSITIVE_INFINITY;
+        } else if (exponent >= -22 && exponent <= 22 && mantissa >= 0 && mantissa <= (1L << 53)) {
+            //Clinger fast path, both values are exact so one operation rounds correctly
+            if (exponent < 0) {
+                value = mantissa / POWERS_OF_TEN[-exponent];
+            } else {
+                value = mantissa * POWERS_OF_TEN[exponent];
+            }
+        } else {
+            value = eiselLemire(mantissa, exponent);
+        }
+
+        return negative ? -value : value;
+    }
+
+    /**
+     * The Eisel-Lemire algorithm, as described in "Number Parsing at a
+     * Gigabyte per Second" (Lemire, 2021).  Returns NaN when the truncated
+     * product is too close to a rounding boundary to decide.
+     *
+     * @param w     The non zero decimal significand.
+     * @param q     The decimal exponent.
+     * @return
+     */
+    private static double eiselLemire(long w, int q) {
+        int     index, leadingZeros, power2, shift, upperBit;
+        long    firstHigh, firstLow, secondHigh, mantissa;
+
+        index        = (q - SMALLEST_POWER_OF_TEN) * 2;
+        leadingZeros = Long.numberOfLeadingZeros(w);
+        w          <<= leadingZeros;
+
+        firstHigh = multiplyHigh(w, POWERS_OF_FIVE[index]);
+        firstLow  = w * POWERS_OF_FIVE[index];
+
+        if ((firstHigh & 0x1FFL) == 0x1FFL) {
+            secondHigh = multiplyHigh(w, POWERS_OF_FIVE[index + 1]);
+            firstLow  += secondHigh;
+
+            if (unsignedLess(firstLow, secondHigh))
+                firstHigh++;
+        }
+
+        //Too close to call outside the range where the table is exact
+        if (firstLow == -1L && (q < -27 || q > 55))
+            return Double.NaN;
+
+        upperBit = (int) (firstHigh >>> 63);
+        shift    = upperBit + 64 - 52 - 3;
+        mantissa = firstHigh >>> shift;
+        power2   = (((152170 + 65536) * q) >> 16) + 63 + upperBit - leadingZeros + 1023;
+
+        if (power2 <= 0) {
+            //Subnormal
+            if (-power2 + 1 >= 64)
+                return 0.0;
+
+            mantissa >>>= -power2 + 1;
+            mantissa  += (mantissa & 1);
+            mantissa >>>= 1;
+            power2     = (mantissa < (1L << 52)) ? 0 : 1;
+
+            return Double.longBitsToDouble((mantissa & ~(1L << 52)) | ((long) power2 << 52));
+        }
+
+        //Halfway between two doubles, round to even
+        if (unsignedLess(firstLow, 2) && q >= -4 && q <= 23 && (mantissa & 3) == 1) {
+            if ((mantissa << shift) == firstHigh)
+                mantissa &= ~1L;
+        }
+
+        mantissa  += (mantissa & 1);
+        mantissa >>>= 1;
+
+        if (mantissa >= (2L << 52)) {
+            mantissa = (1L << 52);
+            power2++;
+        }
+
+        if (power2 >= 0x7FF)
+            return Double.POSITIVE_INFINITY;
+
+        return Double.longBitsToDouble((mantissa & ~(1L << 52)) | ((long) power2 << 52));
+    }
+
+    /**
+     * Returns the high 64 bits of the unsigned 128 bit product of x and y.
+     *
+     * @param x
+     * @param y
+     * @return
+     */
+    private static long multiplyHigh(long x, long y) {
+        long x0, x1, y0, y1, p00, p01, p10, p11, middle;
+
+        x0 = x & 0xFFFFFFFFL;
+        x1 = x >>> 32;
+        y0 = y & 0xFFFFFFFFL;
+        y1 = y >>> 32;
+
+        p00 = x0 * y0;
+        p01 = x0 * y1;
+        p10 = x1 * y0;
+        p11 = x1 * y1;
+
+        middle = p10 + (p00 >>> 32) + (p01 & 0xFFFFFFFFL);
+
+        return p11 + (middle >>> 32) + (p01 >>> 32);
+    }
+
+    /**
+     * Compares two longs as unsigned values.
+     *
+     * @param a
+     * @param b
+     * @return
+     */
+    private static boolean unsignedLess(long a, long b) {
+        return (a + Long.MIN_VALUE) < (b + Long.MIN_VALUE);
+    }
+}
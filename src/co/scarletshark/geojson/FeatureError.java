@@ -0,0 +1,128 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+/**
+ * Describes a malformed feature found by a GeoJsonReader in tolerant mode.
+ *
+ * @author Alec Dhuse
+ */
+public class FeatureError {
+    private boolean pairDropped, repaired;
+    private long    featureIndex, offset;
+    private String  reason;
+    
+    /**
+     * Creates an error description.
+     * 
+     * @param reason        What was wrong.
+     * @param offset        The char offset of the error in the input.
+     * @param featureIndex  The index of the feature in the features array.
+     * @param repaired      True if the feature was kept without the bad pair,
+     *                      false if the whole feature was skipped.
+     */
+    public FeatureError(String reason, long offset, long featureIndex, boolean repaired) {
+        this(reason, offset, featureIndex, repaired, repaired);
+    }
+    
+    /**
+     * Creates an error description.
+     * 
+     * @param reason        What was wrong.
+     * @param offset        The char offset of the error in the input.
+     * @param featureIndex  The index of the feature in the features array.
+     * @param repaired      True if the feature was kept, false if the whole 
+     *                      feature was skipped.
+     * @param pairDropped   True if the feature was kept without a bad pair,
+     *                      false if the error was in the structure around it,
+     *                      such as a missing comma.
+     */
+    public FeatureError(String reason, long offset, long featureIndex, boolean repaired, boolean pairDropped) {
+        this.reason       = reason;
+        this.offset       = offset;
+        this.featureIndex = featureIndex;
+        this.repaired     = repaired;
+        this.pairDropped  = repaired && pairDropped;
+    }
+    
+    /**
+     * Returns the index of the feature in the features array, counting 
+     * skipped features.
+     * 
+     * @return 
+     */
+    public long getFeatureIndex() {
+        return featureIndex;
+    }
+    
+    /**
+     * Returns the char offset of the error from the start of the input.
+     * 
+     * @return 
+     */
+    public long getOffset() {
+        return offset;
+    }
+    
+    /**
+     * Returns a description of the error.
+     * 
+     * @return 
+     */
+    public String getReason() {
+        return reason;
+    }
+    
+    /**
+     * Returns true if the feature was returned without a malformed pair.
+     * 
+     * @return 
+     */
+    public boolean isPairDropped() {
+        return pairDropped;
+    }
+    
+    /**
+     * Returns true if the feature was returned, with or without the 
+     * malformed pair, false if the feature was skipped.
+     * 
+     * @return 
+     */
+    public boolean isRepaired() {
+        return repaired;
+    }
+    
+    /**
+     * Returns a String representation of this error.
+     * 
+     * @return 
+     */
+    @Override
+    public String toString() {
+        String result;
+        
+        if (pairDropped) {
+            result = ", pair dropped";
+        } else if (repaired) {
+            result = ", repaired";
+        } else {
+            result = ", feature skipped";
+        }
+        
+        return reason + " at offset " + offset + " in feature " + featureIndex + result;
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+/**
+ * Receives the errors found by a GeoJsonReader in tolerant mode.
+ *
+ * @author Alec Dhuse
+ */
+public interface FeatureErrorHandler {
+    
+    /**
+     * Called for each malformed feature, before reading continues with the
+     * next one.
+     * 
+     * @param error 
+     */
+    public void error(FeatureError error);
+}
@@ -0,0 +1,41 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+/**
+ * Receives the features read by a GeoJsonPushParser as each one is 
+ * completed.
+ *
+ * @author Alec Dhuse
+ */
+public interface FeatureHandler {
+    
+    /**
+     * Called with each feature as soon as its closing brace has been read.
+     * 
+     * @param feature 
+     */
+    public void feature(JsonObject feature);
+    
+    /**
+     * Called once the root object has been read, with its pairs other than
+     * "features".
+     * 
+     * @param collection 
+     */
+    public void collection(JsonObject collection);
+}
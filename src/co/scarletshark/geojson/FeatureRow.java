@@ -0,0 +1,101 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import java.util.ArrayList;
+
+/**
+ * A JsonObject view of one Feature of a JsonFeatureCollection.  The pairs
+ * are read from the collection's columns the first time the view is used,
+ * so views that are only passed along cost a single object.
+ *
+ * @author Alec Dhuse
+ */
+class FeatureRow extends JsonObject {
+    private final JsonFeatureCollection collection;
+    private final int                   row;
+    private boolean                     loaded;
+
+    /**
+     * Creates a view of a row.
+     *
+     * @param collection
+     * @param row
+     */
+    FeatureRow(JsonFeatureCollection collection, int row) {
+        this.collection = collection;
+        this.row        = row;
+    }
+
+    /**
+     * Reads the pairs of the row if they have not been read yet.
+     */
+    private void load() {
+        if (!loaded) {
+            loaded = true;
+            collection.addPairs(row, pairs);
+        }
+    }
+
+    @Override
+    public void addPair(JsonPair newPair) {
+        load();
+        super.addPair(newPair);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        load();
+        return super.equals(obj);
+    }
+
+    @Override
+    public int hashCode() {
+        load();
+        return super.hashCode();
+    }
+
+    @Override
+    public JsonPair getPair(int index) {
+        load();
+        return super.getPair(index);
+    }
+
+    @Override
+    public JsonPair getPairByName(String name) {
+        load();
+        return super.getPairByName(name);
+    }
+
+    @Override
+    public JsonPair getPairByExactName(String name) {
+        load();
+        return super.getPairByExactName(name);
+    }
+
+    @Override
+    public ArrayList<JsonPair> getPairs() {
+        load();
+        return super.getPairs();
+    }
+
+    @Override
+    public String toString(int indent) {
+        load();
+        return super.toString(indent);
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import java.util.Locale;
+
+/**
+ * A set of pair paths to keep when parsing.  Paths are pair names separated
+ * by dots, such as "properties.name", and are matched ignoring case.  Pairs 
+ * not on a selected path are skipped over in the source without being 
+ * parsed.  A path selects the whole value of its last pair, so "geometry"
+ * keeps the type and coordinates of a geometry.
+ * 
+ * Paths pass through arrays, so "features.id" selects the id of every 
+ * feature in a collection.
+ *
+ * @author Alec Dhuse
+ */
+public class FieldSelection {
+    private boolean          all;
+    private int              size;
+    private FieldSelection[] children;
+    private String[]         names;
+    
+    /**
+     * Creates a selection of the given paths.
+     * 
+     * @param paths 
+     */
+    public FieldSelection(String... paths) {
+        this.children = new FieldSelection[4];
+        this.names    = new String[4];
+        
+        for (String path: paths)
+            add(path);
+    }
+    
+    /**
+     * Adds a path to this selection.
+     * 
+     * @param path 
+     */
+    public final void add(String path) {
+        FieldSelection selection = this;
+        
+        for (String name: path.split("\\.")) {
+            FieldSelection child = selection.get(name);
+            
+            if (child == null) {
+                child = new FieldSelection();
+                selection.put(name.toLowerCase(Locale.ROOT), child);
+            }
+            
+            selection = child;
+        }
+        
+        selection.all = true;
+    }
+    
+    /**
+     * Returns the selection for the value of the named pair, or null if the
+     * pair is not selected.  The name is matched ignoring case without 
+     * creating a lower case copy of it.
+     * 
+     * @param name
+     * @return 
+     */
+    FieldSelection get(String name) {
+        return children[findSlot(name)];
+    }
+    
+    /**
+     * Returns if the whole value is selected.
+     * 
+     * @return 
+     */
+    boolean isAll() {
+        return all;
+    }
+    
+    /**
+     * Returns the slot holding the given name, or the empty slot where it 
+     * would be added.
+     * 
+     * @param name
+     * @return 
+     */
+    private int findSlot(String name) {
+        int mask, slot;
+        
+        mask = names.length - 1;
+        slot = JsonObject.foldedHash(name) & mask;
+        
+        while (names[slot] != null) {
+            if (names[slot].equalsIgnoreCase(name))
+                return slot;
+            
+            slot = (slot + 1) & mask;
+        }
+        
+        return slot;
+    }
+    
+    /**
+     * Adds a child selection, growing the table to keep it at most half 
+     * full.
+     * 
+     * @param name
+     * @param child 
+     */
+    private void put(String name, FieldSelection child) {
+        FieldSelection[] oldChildren;
+        String[]         oldNames;
+        int              slot;
+        
+        if ((size + 1) * 2 > names.length) {
+            oldChildren = children;
+            oldNames    = names;
+            children    = new FieldSelection[oldNames.length * 2];
+            names       = new String[oldNames.length * 2];
+            
+            for (int i = 0; i < oldNames.length; i++) {
+                if (oldNames[i] != null) {
+                    slot           = findSlot(oldNames[i]);
+                    names[slot]    = oldNames[i];
+                    children[slot] = oldChildren[i];
+                }
+            }
+        }
+        
+        slot           = findSlot(name);
+        names[slot]    = name;
+        children[slot] = child;
+        size++;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+/**
+ * A coordinate sequence storing its values as floats.
+ *
+ * @author Alec Dhuse
+ */
+class FloatCoordinateSequence extends JsonCoordinateSequence {
+    private float[] floats;
+
+    /**
+     * Creates a sequence from packed float values.
+     *
+     * @param floats        Interleaved position values.
+     * @param dimension     2 or 3 values per position.
+     * @param depth         The number of array levels above the positions.
+     * @param ringOffsets   The start of each ring, plus the position count.
+     * @param partOffsets   The first ring of each part, plus the ring count.
+     */
+    FloatCoordinateSequence(float[] floats,      int dimension, int depth,
+                            int[]   ringOffsets, int[] partOffsets) {
+        super(floats.length / dimension, dimension, depth, ringOffsets, partOffsets);
+
+        this.floats = floats;
+    }
+
+    /**
+     * Writes values as floats, so they are not shown with the digits added
+     * by widening to double.
+     *
+     * @param sb
+     * @param index
+     */
+    @Override
+    protected void appendValue(StringBuilder sb, int index) {
+        sb.append(floats[index]);
+    }
+
+    /**
+     * Returns true, the stored values are not given out.
+     *
+     * @return
+     */
+    @Override
+    public boolean isImmutable() {
+        return true;
+    }
+
+    @Override
+    protected double getValue(int index) {
+        return floats[index];
+    }
+
+    /**
+     * Returns the values widened to a new double array.
+     *
+     * @return
+     */
+    @Override
+    public double[] getValues() {
+        double[] copy = new double[floats.length];
+
+        for (int i = 0; i < floats.length; i++)
+            copy[i] = floats[i];
+
+        return copy;
+    }
+}
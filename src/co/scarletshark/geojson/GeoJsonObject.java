@@ -22,52 +22,143 @@ package co.scarletshark.geojson;
  * @author Alec Dhuse
  */
 public abstract class GeoJsonObject {
-    protected JsonCoordinate[] coordinates;
+    protected JsonCoordinateSequence coordinates;
+    
+    private final boolean immutable;
+    private final int     hash;
+    
+    /**
+     * Creates an object whose subclass sets the coordinates.  The object is
+     * treated as mutable.
+     */
+    protected GeoJsonObject() {
+        this.immutable = false;
+        this.hash      = 0;
+    }
+    
+    /**
+     * Creates an object with the given coordinates.  If the sequence is 
+     * immutable the object is too, and its hash is computed here once.
+     * 
+     * @param coordinates 
+     */
+    protected GeoJsonObject(JsonCoordinateSequence coordinates) {
+        this.coordinates = coordinates;
+        this.immutable   = coordinates.isImmutable();
+        this.hash        = immutable ? geometryHash() : 0;
+    }
     
     /**
-     * Tells if the coordinates in two GeoJsonObjects are equal.
+     * Creates an object with no coordinates of its own, such as a 
+     * collection of other objects.  The subclass works out if it is 
+     * immutable and, if so, its hash, which hashCode() then returns.
+     * 
+     * @param immutable
+     * @param hash 
+     */
+    protected GeoJsonObject(boolean immutable, int hash) {
+        this.immutable = immutable;
+        this.hash      = immutable ? hash : 0;
+    }
+    
+    /**
+     * Tells if two GeoJsonObjects are the same type of geometry with equal 
+     * rings, parts and coordinates.  Immutable objects with different hashes
+     * are not compared position by position.
      * 
      * @param object
      * @return 
      */
     @Override
     public boolean equals(Object object) {
-        boolean          isEqual = false;
-        JsonCoordinate[] coordinates;
+        GeoJsonObject          geoObject;
+        JsonCoordinateSequence other;
         
-        if (object instanceof GeoJsonObject) {
-            coordinates = ((GeoJsonObject) object).getCoordinates();
+        if (object == this) {
+            return true;
+        } else if (object != null && object.getClass() == getClass()) {
+            geoObject = (GeoJsonObject) object;
+            other     = geoObject.getCoordinateSequence();
             
-            if (coordinates.length == this.coordinates.length) {
-                isEqual = true;
-                
-                for (int i = 0; i < coordinates.length; i++) {
-                    if (coordinates[i].equals(this.coordinates[i])) {
-                        isEqual = true;
-                    } else {
-                        isEqual = false;
-                        break;
-                    }
-                }
-            } else {
-                isEqual = false;
-            }                            
+            if (other == coordinates)
+                return true;
+            
+            if (!coordinates.structureEquals(other))
+                return false;
+            
+            if (immutable && geoObject.immutable && hash != geoObject.hash)
+                return false;
+            
+            for (int i = 0; i < other.size(); i++) {
+                if (!coordinates.positionEquals(i, other, i))
+                    return false;
+            }
+            
+            return true;
         } else {
-            isEqual = false;
+            return false;
         }
-        
-        return isEqual;
     }
     
     /**
-     * Returns the Coordinates being used by this GeoJsonObject.
+     * Returns a hash of the geometry type and coordinates.  Immutable 
+     * objects return the hash computed when they were created.
+     * 
+     * @return 
+     */
+    @Override
+    public int hashCode() {
+        return immutable ? hash : geometryHash();
+    }
+    
+    /**
+     * Computes the hash returned by hashCode().
+     * 
+     * @return 
+     */
+    private int geometryHash() {
+        return 31 * getClass().getName().hashCode() + coordinates.positionHash();
+    }
+    
+    /**
+     * Returns the Coordinates being used by this GeoJsonObject.  The 
+     * coordinates are stored packed, so a new array of JsonCoordinates is 
+     * created on each call.  Use getCoordinateSequence() to read them 
+     * without creating objects.
      * 
      * @return 
      */
     public JsonCoordinate[] getCoordinates() {
-        return coordinates;
+        return getCoordinateSequence().toCoordinates();
     }    
     
+    /**
+     * Returns the packed coordinates of this GeoJsonObject.
+     * 
+     * @return 
+     */
+    public JsonCoordinateSequence getCoordinateSequence() {
+        return coordinates;
+    }
+    
+    /**
+     * Returns if the coordinates of this object cannot be changed.
+     * 
+     * @return 
+     */
+    public boolean isImmutable() {
+        return immutable;
+    }
+    
+    /**
+     * Returns an immutable object with the same coordinates, or this object
+     * if it is already immutable.  Immutable objects can be used as keys in
+     * hash maps.
+     * 
+     * @return 
+     */
+    public abstract GeoJsonObject toImmutable();
+    
     /**
      * Returns a String representation of this Object.  
      * The default is a list of coordinates in array format.
@@ -80,14 +171,72 @@ public abstract class GeoJsonObject {
             
         sb.append("[ ");
         
-        for (JsonCoordinate c: coordinates) 
-            sb.append(c.toString());        
+        for (int i = 0; i < coordinates.size(); i++) 
+            coordinates.appendPosition(sb, i);
         
         sb.append(" ]");
         
         return sb.toString();
     }
     
+    /**
+     * Returns a String representation of this Object with a given indent.
+     * Subclasses write their GeoJSON text, the default ignores the indent.
+     * 
+     * @param indent The indent level to add to this object.
+     * @return 
+     */
+    public String toString(int indent) {
+        return toString();
+    }
+    
+    /**
+     * Writes a range of rings or lines of the coordinates as nested arrays, 
+     * one position per line, with a comma after each array but the last.
+     * 
+     * @param sb
+     * @param startRing The first ring to write.
+     * @param endRing   The ring after the last to write.
+     * @param indent    The indent of the array brackets.
+     * @param close     If true, the first position of a ring is written 
+     *                  again at its end when the ring is not already closed.
+     */
+    void appendRings(StringBuilder sb, int startRing, int endRing, int indent, boolean close) {
+        int end, start;
+        
+        for (int r = startRing; r < endRing; r++) {
+            start = coordinates.getRingStart(r);
+            end   = coordinates.getRingEnd(r);
+            
+            sb.append(getIndent(indent));  
+            sb.append("[\n");
+            
+            for (int i = start; i < end; i++) {
+                sb.append(getIndent(indent + 1));  
+                coordinates.appendPosition(sb, i);
+                
+                if (i != (end - 1))
+                    sb.append(",\n");                       
+            }
+            
+            //Close the ring if its last coordinate is not the first
+            if (close && end - start > 1 && !coordinates.positionEquals(end - 1, coordinates, start)) {
+                sb.append(",\n");
+                sb.append(getIndent(indent + 1));  
+                coordinates.appendPosition(sb, start);
+            }
+            
+            sb.append("\n");
+            sb.append(getIndent(indent));  
+            sb.append("]");        
+            
+            if (r != (endRing - 1))
+                sb.append(",");
+            
+            sb.append("\n");
+        }
+    }
+    
     /**
      * Returns a String with a given number of tabs.
      * 
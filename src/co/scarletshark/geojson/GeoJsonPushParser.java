@@ -0,0 +1,334 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A parser for UTF-8 GeoJSON that is given its input in chunks, such as the
+ * buffers read from a non-blocking channel, rather than reading it itself.
+ * Chunks may end anywhere, including in the middle of a token or of a 
+ * multi-byte character.
+ * 
+ * The bytes of each feature of a FeatureCollection are collected as they 
+ * arrive, and the feature is parsed and passed to the handler as soon as its
+ * closing brace is fed.  Only the current feature and the pairs of the root
+ * object are held in memory.  If the document is a single Feature it is 
+ * passed to the handler once it is complete.
+ *
+ * @author Alec Dhuse
+ */
+public class GeoJsonPushParser {
+    private static final int ROOT     = 0;
+    private static final int FEATURES = 1;
+    private static final int AFTER    = 2;
+    private static final int END      = 3;
+    
+    private static final byte[] FEATURES_NAME = {'f', 'e', 'a', 't', 'u', 'r', 'e', 's'};
+    
+    private boolean        elementNext, escaped, inString, featuresNext;
+    private byte[]         feature, root;
+    private FeatureHandler handler;
+    private KeyDictionary  keys;
+    private int            depth, featureLength, nameStart, nameEnd, rootLength, state;
+    private long           offset;
+    
+    /**
+     * Creates a parser that passes features to the given handler.
+     * 
+     * @param handler 
+     */
+    public GeoJsonPushParser(FeatureHandler handler) {
+        this.handler = handler;
+        this.feature = new byte[4096];
+        this.root    = new byte[256];
+        this.keys    = new KeyDictionary();
+        this.state   = ROOT;
+    }
+    
+    /**
+     * Signals that all input has been fed.  Throws an exception if the
+     * document is incomplete.
+     * 
+     * @throws IOException 
+     */
+    public void endOfInput() throws IOException {
+        if (state != END)
+            throw new JsonParseException("Unexpected end of input", offset);
+    }
+    
+    /**
+     * Reads all remaining bytes of a chunk, passing each feature completed
+     * by it to the handler.  The chunk's position is moved to its limit.
+     * 
+     * @param chunk
+     * @throws IOException 
+     */
+    public void feed(ByteBuffer chunk) throws IOException {
+        byte b;
+        
+        while (chunk.hasRemaining()) {
+            b = chunk.get();
+            
+            if (state == FEATURES) {
+                readFeatureByte(b);
+            } else {
+                readRootByte(b);
+            }
+            
+            offset++;
+        }
+    }
+    
+    /**
+     * Sets the dictionary used to share the Strings of pair names, so it can
+     * be shared with other parsers.
+     * 
+     * @param keys 
+     */
+    public void setKeyDictionary(KeyDictionary keys) {
+        this.keys = keys;
+    }
+    
+    /**
+     * Adds a byte to a growable buffer and returns the buffer, which may
+     * have been replaced by a larger one.
+     * 
+     * @param buffer
+     * @param length
+     * @param b
+     * @return 
+     */
+    private static byte[] append(byte[] buffer, int length, byte b) {
+        if (length == buffer.length)
+            buffer = Arrays.copyOf(buffer, length * 2);
+        
+        buffer[length] = b;
+        
+        return buffer;
+    }
+    
+    /**
+     * Returns if the last name read in the root object is "features".
+     * 
+     * @return 
+     */
+    private boolean isFeaturesName() {
+        if (nameEnd - nameStart != FEATURES_NAME.length)
+            return false;
+        
+        for (int i = 0; i < FEATURES_NAME.length; i++) {
+            if ((root[nameStart + i] | 0x20) != FEATURES_NAME[i])
+                return false;
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Returns the index of the last byte of the root object collected so far
+     * that is not white space.
+     * 
+     * @return 
+     */
+    private int lastRootByteIndex() {
+        int i = rootLength - 1;
+        
+        while (i > 0 && JsonCursor.isWhiteSpace(root[i]))
+            i--;
+        
+        return i;
+    }
+    
+    /**
+     * Returns the last byte of the root object collected so far that is not
+     * white space.
+     * 
+     * @return 
+     */
+    private byte lastRootByte() {
+        return root[lastRootByteIndex()];
+    }
+    
+    /**
+     * Parses the bytes of the root object once it is complete and passes it
+     * to the handler.
+     * 
+     * @throws IOException 
+     */
+    private void parseRoot() throws IOException {
+        JsonObject collection;
+        JsonPair   type;
+        
+        collection = parse(root, rootLength);
+        type       = collection.getPairByName("type");
+        
+        if (type != null && type.getValueAsString().equalsIgnoreCase("Feature"))
+            handler.feature(collection);
+        
+        handler.collection(collection);
+    }
+    
+    /**
+     * Parses an object held in a byte array.
+     * 
+     * @param bytes
+     * @param length
+     * @return
+     * @throws IOException 
+     */
+    private JsonObject parse(byte[] bytes, int length) throws IOException {
+        ByteCursor cursor = new ByteCursor(ByteBuffer.wrap(bytes), 0, length);
+        JsonObject object;
+        
+        cursor.keys = keys;
+        
+        try {
+            object = JsonParser.readObject(cursor, false);
+        } catch (JsonParseException e) {
+            //Report the offset in the whole input rather than in the buffer
+            throw new JsonParseException(e.getReason(), offset - length + 1 + e.getOffset());
+        }
+        
+        return object;
+    }
+    
+    /**
+     * Reads a byte of the features array.  Bytes of each feature are 
+     * collected until the feature's closing brace, then it is parsed.
+     * 
+     * @param b
+     * @throws IOException 
+     */
+    private void readFeatureByte(byte b) throws IOException {
+        if (depth == 2) {
+            //Between features, expecting a feature or, after one, a ',' or ']'
+            if (JsonCursor.isWhiteSpace(b)) {
+                return;
+            } else if (b == ']') {
+                depth = 1;
+                state = AFTER;
+            } else if (!elementNext) {
+                if (b != ',')
+                    throw new JsonParseException("Expected ',' or ']'", offset);
+                
+                elementNext = true;
+            } else if (b == '{') {
+                depth         = 3;
+                featureLength = 0;
+                feature       = append(feature, featureLength++, b);
+                elementNext   = false;
+            } else {
+                throw new JsonParseException("Expected feature object", offset);
+            }
+        } else {
+            feature = append(feature, featureLength++, b);
+            
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (b == '\\') {
+                    escaped = true;
+                } else if (b == '"') {
+                    inString = false;
+                }
+            } else if (b == '"') {
+                inString = true;
+            } else if (b == '{' || b == '[') {
+                depth++;
+            } else if (b == '}' || b == ']') {
+                depth--;
+                
+                if (depth == 2)
+                    handler.feature(parse(feature, featureLength));
+            }
+        }
+    }
+    
+    /**
+     * Reads a byte of the root object outside of the features array.  The
+     * bytes are collected, leaving out the features pair, and are parsed 
+     * once the root object is closed.
+     * 
+     * @param b
+     * @throws IOException 
+     */
+    private void readRootByte(byte b) throws IOException {
+        if (inString) {
+            root = append(root, rootLength++, b);
+            
+            if (escaped) {
+                escaped = false;
+            } else if (b == '\\') {
+                escaped = true;
+            } else if (b == '"') {
+                inString = false;
+                nameEnd  = rootLength - 1;
+            }
+        } else if (JsonCursor.isWhiteSpace(b)) {
+            root = append(root, rootLength++, b);
+        } else if (state == END) {
+            throw new JsonParseException("Unexpected text after root object", offset);
+        } else if (depth == 0 && offset < 3 && (b & 0xFF) == (offset == 0 ? 0xEF : offset == 1 ? 0xBB : 0xBF)) {
+            //Skip a byte order mark
+        } else if (depth == 0 && b != '{') {
+            throw new JsonParseException("Expected '{'", offset);
+        } else if (state == AFTER) {
+            //The comma before the features pair was dropped, so the one after it is kept only if pairs came before
+            state = ROOT;
+            
+            if (b != ',') {
+                readRootByte(b);
+            } else if (lastRootByte() != '{') {
+                root = append(root, rootLength++, b);
+            }
+        } else if (featuresNext && b == '[') {
+            //Leave the features pair, and the comma before it, out of the root object
+            rootLength   = nameStart - 1;
+            rootLength   = lastRootByteIndex() + 1;
+            
+            if (root[rootLength - 1] == ',')
+                rootLength--;
+            
+            featuresNext = false;
+            elementNext  = true;
+            depth        = 2;
+            state        = FEATURES;
+        } else {
+            root         = append(root, rootLength++, b);
+            featuresNext = false;
+            
+            if (b == '"') {
+                inString  = true;
+                nameStart = rootLength;
+            } else if (b == ':' && depth == 1) {
+                featuresNext = isFeaturesName();
+            } else if (b == '{' || b == '[') {
+                depth++;
+            } else if (b == '}' || b == ']') {
+                depth--;
+                
+                if (depth == 0) {
+                    state = END;
+                    parseRoot();
+                }
+            }
+        }
+    }
+}
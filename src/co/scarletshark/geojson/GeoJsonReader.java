@@ -0,0 +1,454 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the features of a FeatureCollection one at a time.  Only the feature
+ * being returned is held in memory, so collections larger than the heap can
+ * be processed.
+ * 
+ * The pairs of the collection other than "features" are available from
+ * getCollection().  Pairs that come after the features array in the source
+ * are only read once every feature has been returned.
+ * 
+ * If the document is a single Feature rather than a collection, that feature
+ * is returned as the only element.
+ * 
+ * A FieldSelection can be given to keep only some pairs of each feature, 
+ * such as "geometry" and "properties.name".  The other pairs are skipped 
+ * without being parsed.
+ * 
+ * Setting a FeatureErrorHandler turns on tolerant mode.  The start of each 
+ * feature is then kept in the buffer while it is read, so a malformed 
+ * feature can be reported and passed over with the skip scan without losing
+ * track of where the next feature starts.  A pair with a malformed value, 
+ * including a geometry that is not valid, is dropped and the rest of its 
+ * feature kept; a feature whose structure is malformed is skipped.
+ *
+ * @author Alec Dhuse
+ */
+public class GeoJsonReader implements Closeable {
+    private static final int START    = 0;
+    private static final int MEMBERS  = 1;
+    private static final int FEATURES = 2;
+    private static final int END      = 3;
+    
+    private boolean             first;
+    private int                 state;
+    private long                featureIndex, repairedCount, skippedCount;
+    private FeatureErrorHandler errorHandler;
+    private FieldSelection      fields;
+    private ReaderCursor        cursor;
+    private JsonObject          collection, nextFeature;
+    private Reader              reader;
+    
+    /**
+     * Creates a reader for GeoJSON text from a Reader.
+     * 
+     * @param reader 
+     */
+    public GeoJsonReader(Reader reader) {
+        this.reader     = reader;
+        this.cursor     = new ReaderCursor(reader);
+        this.collection = new JsonObject();
+        this.state      = START;
+        
+        cursor.keys = new KeyDictionary();
+    }
+    
+    /**
+     * Creates a reader for GeoJSON text from a Reader that keeps only the 
+     * selected pairs of each feature.
+     * 
+     * @param reader 
+     * @param fields    The pairs to keep, relative to each feature.
+     */
+    public GeoJsonReader(Reader reader, FieldSelection fields) {
+        this(reader);
+        
+        this.fields = fields;
+    }
+    
+    /**
+     * Creates a reader for UTF-8 encoded GeoJSON from an InputStream.
+     * 
+     * @param in 
+     */
+    public GeoJsonReader(InputStream in) {
+        this(new InputStreamReader(in, Charset.forName("UTF-8")));
+    }
+    
+    /**
+     * Closes the underlying Reader.
+     * 
+     * @throws IOException 
+     */
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+    
+    /**
+     * Returns the pairs of the root object other than the features.
+     * 
+     * @return 
+     */
+    public JsonObject getCollection() {
+        return collection;
+    }
+    
+    /**
+     * Returns the number of features returned in tolerant mode after being 
+     * repaired, such as by dropping a malformed pair.  Each feature is 
+     * counted once however many errors it had.
+     * 
+     * @return 
+     */
+    public long getRepairedCount() {
+        return repairedCount;
+    }
+    
+    /**
+     * Returns the number of malformed features skipped in tolerant mode.
+     * 
+     * @return 
+     */
+    public long getSkippedCount() {
+        return skippedCount;
+    }
+    
+    /**
+     * Returns if there is another feature to read.
+     * 
+     * @return
+     * @throws IOException 
+     */
+    public boolean hasNext() throws IOException {
+        if (nextFeature == null)
+            nextFeature = readNextFeature();
+        
+        return (nextFeature != null);
+    }
+    
+    /**
+     * Returns the next feature.
+     * 
+     * @return
+     * @throws IOException 
+     */
+    public JsonObject next() throws IOException {
+        JsonObject feature;
+        
+        if (hasNext()) {
+            feature     = nextFeature;
+            nextFeature = null;
+            
+            return feature;
+        } else {
+            throw new NoSuchElementException();
+        }
+    }
+    
+    /**
+     * Moves through the source until the next feature has been read, 
+     * collecting the root pairs passed along the way.  Returns null once the
+     * end of the root object is reached.
+     * 
+     * @return
+     * @throws IOException 
+     */
+    private JsonObject readNextFeature() throws IOException {
+        boolean    repaired;
+        int        nextChar;
+        JsonObject feature;
+        String     pairName;
+        
+        if (state == START) {
+            cursor.expect('{');
+            state = MEMBERS;
+            first = true;
+        }
+        
+        while (state != END) {
+            nextChar = cursor.peek();
+            
+            if (state == MEMBERS) {
+                if (nextChar == '}') {
+                    cursor.skip();
+                    state = END;
+                    
+                    if (isSingleFeature())
+                        return collection;
+                } else {
+                    if (!first)
+                        cursor.expect(',');
+
+                    pairName = cursor.readName();
+                    first    = false;
+                    cursor.expect(':');
+                    
+                    if (pairName.equalsIgnoreCase("features") && cursor.peek() == '[') {
+                        cursor.skip();
+                        state = FEATURES;
+                        first = true;
+                    } else {
+                        collection.addPair(new JsonPair(pairName, JsonParser.readPairValue(cursor, pairName, false)));
+                    }
+                }
+            } else {
+                if (nextChar == ']') {
+                    cursor.skip();
+                    state = MEMBERS;
+                    first = false;
+                } else if (errorHandler == null) {
+                    if (!first)
+                        cursor.expect(',');
+
+                    first = false;
+                    featureIndex++;
+                    
+                    return readFeature();
+                } else {
+                    repaired = false;
+                    
+                    if (!first) {
+                        if (nextChar == ',') {
+                            cursor.skip();
+                        } else {
+                            //Carry on as if the comma were there
+                            repaired = true;
+                            errorHandler.error(new FeatureError("Expected ','", cursor.position(), featureIndex, true, false));
+                        }
+                    }
+
+                    first   = false;
+                    feature = readFeatureTolerantly(repaired);
+                    
+                    if (feature != null)
+                        return feature;
+                }
+            }
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Sets the handler for malformed features, turning on tolerant mode if
+     * it is not null.
+     * 
+     * @param errorHandler 
+     */
+    public void setErrorHandler(FeatureErrorHandler errorHandler) {
+        this.errorHandler = errorHandler;
+    }
+    
+    /**
+     * Sets how the coordinates of features are stored, such as in floats 
+     * or in a CoordinateArena.  An arena must be kept open for as long as 
+     * the features are used.  Null, the default, stores full precision 
+     * values on the heap.
+     * 
+     * @param storage 
+     */
+    public void setCoordinateStorage(CoordinateStorage storage) {
+        cursor.storage = storage;
+    }
+    
+    /**
+     * Sets the dictionary used to share the Strings of pair names, so it can
+     * be shared with other readers.
+     * 
+     * @param keys 
+     */
+    public void setKeyDictionary(KeyDictionary keys) {
+        cursor.keys = keys;
+    }
+    
+    /**
+     * Reads the feature at the cursor, keeping only the selected pairs if a
+     * FieldSelection was given.
+     * 
+     * @return
+     * @throws IOException 
+     */
+    private JsonObject readFeature() throws IOException {
+        JsonObject feature;
+        
+        if (fields == null) {
+            return JsonParser.readObject(cursor, false);
+        } else {
+            feature = new JsonObject();
+            cursor.expect('{');
+            JsonParser.readSelectedMembers(cursor, feature, '}', fields);
+            
+            return feature;
+        }
+    }
+    
+    /**
+     * Reads the next feature in tolerant mode.  The feature is parsed in 
+     * place with its start marked, so after an error in its structure the 
+     * cursor can be moved back and the feature skipped with the skip scan.
+     * Returns null if the feature was skipped.
+     * 
+     * @param repaired  True if an error before the feature was repaired.
+     * @return
+     * @throws IOException 
+     */
+    private JsonObject readFeatureTolerantly(boolean repaired) throws IOException {
+        JsonObject feature;
+        long       index, start;
+        
+        cursor.peek();
+        start = cursor.position();
+        index = featureIndex++;
+        
+        cursor.mark();
+        
+        try {
+            feature = readTolerantMembers(index, repaired);
+        } catch (JsonParseException e) {
+            skippedCount++;
+            errorHandler.error(new FeatureError(e.getReason(), e.getOffset(), index, false));
+            
+            cursor.seek(start);
+            cursor.skipValue();
+            feature = null;
+        } finally {
+            cursor.clearMark();
+        }
+        
+        return feature;
+    }
+    
+    /**
+     * Reads the pairs of a feature in tolerant mode.  A pair whose value is
+     * malformed is reported and skipped, keeping the rest of the feature.
+     * Errors in the structure of the feature itself are thrown.
+     * 
+     * @param index     The index of the feature.
+     * @param repaired  True if an error before the feature was repaired.
+     * @return
+     * @throws IOException 
+     */
+    private JsonObject readTolerantMembers(long index, boolean repaired) throws IOException {
+        FieldSelection pairFields;
+        int            nextChar;
+        JsonObject     feature;
+        JsonValue      value;
+        long           valueStart;
+        String         pairName;
+        
+        feature = new JsonObject();
+        
+        cursor.expect('{');
+        nextChar = cursor.peek();
+        
+        while (nextChar != '}') {
+            if (nextChar != '"')
+                throw cursor.error("Expected pair name");
+            
+            pairName = cursor.readName();
+            cursor.expect(':');
+            cursor.peek();
+            valueStart = cursor.position();
+            pairFields = (fields == null) ? null : fields.get(pairName);
+            
+            try {
+                if (fields == null || (pairFields != null && pairFields.isAll())) {
+                    value = JsonParser.readPairValue(cursor, pairName, false);
+                } else if (pairFields == null) {
+                    value = null;
+                    cursor.skipValue();
+                } else {
+                    value = JsonParser.readSelectedValue(cursor, pairFields);
+                }
+                
+                if (value != null) {
+                    if (pairName.equalsIgnoreCase("geometry") && value.getType() == JsonValueType.OBJECT)
+                        readGeometry(value, valueStart);
+                    
+                    feature.addPair(new JsonPair(pairName, value));
+                }
+            } catch (JsonParseException e) {
+                errorHandler.error(new FeatureError(e.getReason(), e.getOffset(), index, true));
+                repaired = true;
+                cursor.seek(valueStart);
+                cursor.skipValue();
+            }
+            
+            nextChar = cursor.peek();
+            
+            if (nextChar == ',') {
+                cursor.skip();
+                nextChar = cursor.peek();
+            } else if (nextChar != '}') {
+                throw cursor.error("Expected ',' or '}'");
+            }
+        }
+        
+        cursor.skip();
+        
+        if (repaired)
+            repairedCount++;
+        
+        return feature;
+    }
+    
+    /**
+     * Converts the object value of a geometry pair to its GeoJsonObject, so
+     * a geometry that is not valid is reported rather than kept as a plain
+     * object.
+     * 
+     * @param value
+     * @param start     The offset of the value in the input.
+     * @throws JsonParseException 
+     */
+    private void readGeometry(JsonValue value, long start) throws JsonParseException {
+        GeoJsonObject geometry;
+        
+        try {
+            geometry = JsonParser.readGeometry((JsonObject) value.getValue());
+        } catch (RuntimeException e) {
+            throw new JsonParseException("Invalid geometry: " + e.getMessage(), start);
+        }
+        
+        if (geometry != null)
+            value.setValue(geometry, JsonValueType.forGeometry(geometry));
+    }
+    
+    /**
+     * Returns if the root object turned out to be a Feature rather than a 
+     * FeatureCollection.
+     * 
+     * @return 
+     */
+    private boolean isSingleFeature() {
+        JsonPair type = collection.getPairByName("type");
+        
+        return (type != null && type.getValueAsString().equalsIgnoreCase("Feature"));
+    }
+}
@@ -0,0 +1,434 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Reads a sequence of GeoJSON texts, returning one JsonObject per record.
+ * Both GeoJSON Text Sequences (RFC 8142), where each text is preceded by an
+ * ASCII record separator, and newline delimited GeoJSON, with one text per
+ * line, are supported.
+ * 
+ * In parallel mode a reader thread splits the input into batches of records
+ * and the batches are parsed on an executor.  The number of batches in 
+ * flight is bounded, so memory use stays constant, and records are returned
+ * in their original order.
+ * 
+ * In both modes a malformed record is thrown from hasNext() or next() with
+ * its offset in the stream, and reading can carry on with the record after
+ * it.  An error reading the stream itself ends the sequence.
+ *
+ * @author Alec Dhuse
+ */
+public class GeoJsonSequenceReader implements Closeable {
+    private static final int BATCH_SIZE = 256;
+    
+    private BlockingQueue<Future<Batch>> batches;
+    private ExecutorService                     executor;
+    private boolean                             ended;
+    private int                                 batchIndex;
+    private Batch                               batch;
+    private JsonObject                          nextRecord;
+    private KeyDictionary                       keys;
+    private RecordSplitter                      splitter;
+    private Thread                              splitterThread;
+    
+    /**
+     * Creates a reader that parses records on the calling thread.
+     * 
+     * @param reader 
+     */
+    public GeoJsonSequenceReader(Reader reader) {
+        this.splitter = new RecordSplitter(reader);
+        this.keys     = new KeyDictionary();
+    }
+    
+    /**
+     * Creates a reader for UTF-8 encoded input that parses records on the 
+     * calling thread.
+     * 
+     * @param in 
+     */
+    public GeoJsonSequenceReader(InputStream in) {
+        this(new InputStreamReader(in, ByteCursor.UTF8));
+    }
+    
+    /**
+     * Creates a reader that splits records on its own thread and parses them
+     * on the given executor.
+     * 
+     * @param reader
+     * @param executor
+     * @param queueSize     The maximum number of batches being parsed or 
+     *                      waiting to be read.
+     */
+    public GeoJsonSequenceReader(Reader reader, ExecutorService executor, int queueSize) {
+        this.splitter = new RecordSplitter(reader);
+        this.keys     = new KeyDictionary();
+        this.executor = executor;
+        this.batches  = new ArrayBlockingQueue<Future<Batch>>(queueSize);
+    }
+    
+    /**
+     * Stops the reader thread, if running, and closes the underlying Reader.
+     * 
+     * @throws IOException 
+     */
+    @Override
+    public void close() throws IOException {
+        stopSplitter();
+        splitter.close();
+    }
+    
+    /**
+     * Returns if there is another record to read.
+     * 
+     * @return
+     * @throws IOException 
+     */
+    public boolean hasNext() throws IOException {
+        if (nextRecord == null) {
+            if (executor == null) {
+                nextRecord = readRecord();
+            } else {
+                nextRecord = takeRecord();
+            }
+        }
+        
+        return (nextRecord != null);
+    }
+    
+    /**
+     * Returns the next record.
+     * 
+     * @return
+     * @throws IOException 
+     */
+    public JsonObject next() throws IOException {
+        JsonObject record;
+        
+        if (hasNext()) {
+            record     = nextRecord;
+            nextRecord = null;
+            
+            return record;
+        } else {
+            throw new NoSuchElementException();
+        }
+    }
+    
+    /**
+     * Parses a record held in a char array.
+     * 
+     * @param buffer
+     * @param start
+     * @param end
+     * @param position  The offset of the record in the stream.
+     * @param keys      The dictionary for pair names.
+     * @return
+     * @throws IOException 
+     */
+    static JsonObject parseRecord(char[] buffer, int start, int end, long position, KeyDictionary keys) throws IOException {
+        CharCursor cursor = new CharCursor(buffer, start, end);
+        JsonObject record;
+        
+        cursor.keys = keys;
+        
+        try {
+            record = JsonParser.readObject(cursor, false);
+            
+            if (cursor.peek() >= 0)
+                throw cursor.error("Unexpected text after record");
+        } catch (JsonParseException e) {
+            //Report the offset in the stream rather than in the buffer
+            throw new JsonParseException(e.getReason(), position + e.getOffset() - start);
+        }
+        
+        return record;
+    }
+    
+    /**
+     * Sets the dictionary used to share the Strings of pair names, so it can
+     * be shared with other readers.  Must be called before the first record
+     * is read.
+     * 
+     * @param keys 
+     */
+    public void setKeyDictionary(KeyDictionary keys) {
+        this.keys = keys;
+    }
+    
+    /**
+     * Splits and parses the next record on the calling thread.
+     * 
+     * @return
+     * @throws IOException 
+     */
+    private JsonObject readRecord() throws IOException {
+        if (splitter.next()) {
+            return parseRecord(splitter.getRecord(), 0, splitter.getRecordLength(), splitter.getRecordStart(), keys);
+        } else {
+            return null;
+        }
+    }
+    
+    /**
+     * Returns the next record parsed in parallel, waiting for its batch if
+     * needed.  Starts the reader thread on first use.
+     * 
+     * @return
+     * @throws IOException 
+     */
+    private JsonObject takeRecord() throws IOException {
+        Exception error;
+        
+        if (splitterThread == null) {
+            splitterThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    splitRecords();
+                }
+            }, "GeoJSON Sequence Reader");
+            splitterThread.setDaemon(true);
+            splitterThread.start();
+        }
+        
+        if (ended)
+            return null;
+        
+        try {
+            while (batch == null || batchIndex == batch.records.length) {
+                batch      = batches.take().get();
+                batchIndex = 0;
+                
+                if (batch == null) {
+                    ended = true;
+                    return null;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading records");
+        } catch (ExecutionException e) {
+            //Reading the stream failed, or the batch could not be parsed at all, so the sequence ends here
+            ended = true;
+            stopSplitter();
+            rethrow(e.getCause());
+        }
+        
+        error = batch.errors[batchIndex];
+        
+        if (error != null) {
+            //Skip the malformed record, as in sequential mode
+            batchIndex++;
+            rethrow(error);
+        }
+        
+        return batch.records[batchIndex++];
+    }
+    
+    /**
+     * Throws an exception from a batch as an IOException or 
+     * RuntimeException.
+     * 
+     * @param e
+     * @throws IOException 
+     */
+    private static void rethrow(Throwable e) throws IOException {
+        if (e instanceof IOException) {
+            throw (IOException) e;
+        } else if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        } else {
+            throw new IOException(e.toString());
+        }
+    }
+    
+    /**
+     * Stops the reader thread, if running, and drops the batches it queued
+     * so it is not left waiting for space in the queue.
+     */
+    private void stopSplitter() {
+        if (splitterThread != null) {
+            splitterThread.interrupt();
+            batches.clear();
+        }
+    }
+    
+    /**
+     * Run on the reader thread.  Copies records into batches and submits 
+     * each batch to the executor, blocking while the queue is full.  A null
+     * batch marks the end of the input.  Any exception is passed on as an 
+     * error batch, so the consumer is never left waiting.
+     */
+    private void splitRecords() {
+        boolean posted;
+        char[]  chars;
+        int     count;
+        int[]   offsets;
+        long[]  positions;
+        
+        posted = false;
+        
+        try {
+            do {
+                chars     = new char[4096];
+                offsets   = new int[BATCH_SIZE + 1];
+                positions = new long[BATCH_SIZE];
+                count     = 0;
+                
+                while (count < BATCH_SIZE && splitter.next()) {
+                    int length = splitter.getRecordLength();
+                    
+                    if (offsets[count] + length > chars.length) 
+                        chars = Arrays.copyOf(chars, Math.max(chars.length * 2, offsets[count] + length));
+                    
+                    System.arraycopy(splitter.getRecord(), 0, chars, offsets[count], length);
+                    offsets[count + 1] = offsets[count] + length;
+                    positions[count]   = splitter.getRecordStart();
+                    count++;
+                }
+                
+                if (count > 0)
+                    batches.put(executor.submit(new BatchParser(chars, offsets, positions, count, keys)));
+            } while (count == BATCH_SIZE);
+            
+            batches.put(completed(new BatchParser(null, null, null, 0, null)));
+            posted = true;
+        } catch (IOException e) {
+            putError(e);
+            posted = true;
+        } catch (RuntimeException e) {
+            putError(e);
+            posted = true;
+        } catch (InterruptedException e) {
+            //Closed while waiting for space in the queue
+            posted = true;
+        } finally {
+            if (!posted)
+                putError(new IOException("Record reader thread stopped"));
+        }
+    }
+    
+    /**
+     * Passes an exception from the reader thread to the next call to next().
+     * 
+     * @param e 
+     */
+    private void putError(final Exception e) {
+        try {
+            batches.put(completed(new Callable<Batch>() {
+                @Override
+                public Batch call() throws Exception {
+                    throw e;
+                }
+            }));
+        } catch (InterruptedException ie) {
+            //Closed while waiting for space in the queue
+        }
+    }
+    
+    /**
+     * Runs a task on the calling thread and returns its completed Future.
+     * 
+     * @param task
+     * @return 
+     */
+    private static Future<Batch> completed(Callable<Batch> task) {
+        FutureTask<Batch> future = new FutureTask<Batch>(task);
+        
+        future.run();
+        
+        return future;
+    }
+    
+    /**
+     * The records of a batch.  A malformed record is null, with the error 
+     * for it at the same index in errors.
+     */
+    private static class Batch {
+        private JsonObject[] records;
+        private Exception[]  errors;
+        
+        public Batch(int count) {
+            this.records = new JsonObject[count];
+            this.errors  = new Exception[count];
+        }
+    }
+    
+    /**
+     * Parses a batch of records held one after another in a char array.
+     */
+    private static class BatchParser implements Callable<Batch> {
+        private char[]        chars;
+        private int           count;
+        private int[]         offsets;
+        private long[]        positions;
+        private KeyDictionary keys;
+        
+        public BatchParser(char[] chars, int[] offsets, long[] positions, int count, KeyDictionary keys) {
+            this.chars     = chars;
+            this.offsets   = offsets;
+            this.positions = positions;
+            this.count     = count;
+            this.keys      = keys;
+        }
+        
+        /**
+         * Returns the parsed records, or null for the end of input marker.
+         * An error in one record is kept with it, so the records around it
+         * are still returned.
+         * 
+         * @return
+         */
+        @Override
+        public Batch call() {
+            Batch batch;
+            
+            if (chars == null)
+                return null;
+            
+            batch = new Batch(count);
+            
+            for (int i = 0; i < count; i++) {
+                try {
+                    batch.records[i] = parseRecord(chars, offsets[i], offsets[i + 1], positions[i], keys);
+                } catch (IOException e) {
+                    batch.errors[i] = e;
+                } catch (RuntimeException e) {
+                    batch.errors[i] = e;
+                }
+            }
+            
+            return batch;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * Writes JsonObjects as a sequence of GeoJSON texts, one record per object.
+ * Records are written on a single line, so the output can be read as newline
+ * delimited GeoJSON, and can optionally be preceded by the ASCII record
+ * separator to form a GeoJSON Text Sequence (RFC 8142).
+ *
+ * @author Alec Dhuse
+ */
+public class GeoJsonSequenceWriter implements Closeable, Flushable {
+    private boolean       recordSeparators;
+    private StringBuilder record;
+    private Writer        writer;
+    
+    /**
+     * Creates a writer for newline delimited GeoJSON.
+     * 
+     * @param writer 
+     */
+    public GeoJsonSequenceWriter(Writer writer) {
+        this(writer, false);
+    }
+    
+    /**
+     * Creates a writer that writes UTF-8 text to the given stream.
+     * 
+     * @param out
+     * @param recordSeparators  If true each record is preceded by the 
+     *                          RFC 8142 record separator.
+     */
+    public GeoJsonSequenceWriter(OutputStream out, boolean recordSeparators) {
+        this(new OutputStreamWriter(out, ByteCursor.UTF8), recordSeparators);
+    }
+    
+    /**
+     * Creates a writer.
+     * 
+     * @param writer
+     * @param recordSeparators  If true each record is preceded by the 
+     *                          RFC 8142 record separator.
+     */
+    public GeoJsonSequenceWriter(Writer writer, boolean recordSeparators) {
+        this.writer           = writer;
+        this.recordSeparators = recordSeparators;
+        this.record           = new StringBuilder();
+    }
+    
+    /**
+     * Flushes and closes the underlying Writer.
+     * 
+     * @throws IOException 
+     */
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+    
+    /**
+     * Flushes the underlying Writer.
+     * 
+     * @throws IOException 
+     */
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+    
+    /**
+     * Writes an object as one record.
+     * 
+     * @param object
+     * @throws IOException 
+     */
+    public void write(JsonObject object) throws IOException {
+        record.setLength(0);
+        
+        if (recordSeparators)
+            record.append(RecordSplitter.RECORD_SEPARATOR);
+        
+        appendCompact(record, object.toString());
+        record.append('\n');
+        
+        writer.append(record);
+    }
+    
+    /**
+     * Appends JSON text with the whitespace between tokens removed.
+     * 
+     * @param sb
+     * @param text 
+     */
+    static void appendCompact(StringBuilder sb, String text) {
+        boolean inString = false;
+        char    c;
+        
+        for (int i = 0; i < text.length(); i++) {
+            c = text.charAt(i);
+            
+            if (inString) {
+                sb.append(c);
+                
+                if (c == '\\' && i + 1 < text.length()) {
+                    sb.append(text.charAt(++i));
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (!JsonCursor.isWhiteSpace(c)) {
+                sb.append(c);
+                inString = (c == '"');
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+/**
+ * A coordinate sequence whose values cannot be changed.  getValues() returns
+ * a copy of the values, so the hash of the sequence is computed once and 
+ * kept.
+ *
+ * @author Alec Dhuse
+ */
+final class ImmutableCoordinateSequence extends JsonCoordinateSequence {
+    private final int hash, positionHash;
+
+    /**
+     * Creates a sequence owning the given values.  The array must not be 
+     * used by the caller afterwards.
+     *
+     * @param values        Interleaved position values.
+     * @param dimension     2 or 3 values per position.
+     * @param depth         The number of array levels above the positions.
+     * @param ringOffsets   The start of each ring, plus the position count.
+     * @param partOffsets   The first ring of each part, plus the ring count.
+     */
+    ImmutableCoordinateSequence(double[] values,      int dimension, int depth,
+                                int[]    ringOffsets, int[] partOffsets) {
+        super(values, dimension, depth, 
+              (ringOffsets == null) ? null : ringOffsets.clone(), 
+              (partOffsets == null) ? null : partOffsets.clone());
+
+        this.hash         = super.hashCode();
+        this.positionHash = super.positionHash();
+    }
+
+    /**
+     * Returns a copy of the values.
+     *
+     * @return
+     */
+    @Override
+    public double[] getValues() {
+        return values.clone();
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean isImmutable() {
+        return true;
+    }
+
+    @Override
+    int positionHash() {
+        return positionHash;
+    }
+}
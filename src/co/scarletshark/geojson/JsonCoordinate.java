@@ -93,6 +93,17 @@ public class JsonCoordinate {
         setAltitude(altitude);
     }    
     
+    /**
+     * Returns a hash code for this coordinate.  The altitude is left out, as
+     * equals() ignores it when neither coordinate is 3D.
+     * 
+     * @return 
+     */
+    @Override
+    public int hashCode() {
+        return 31 * JsonCoordinateSequence.hashValue(longitude) + JsonCoordinateSequence.hashValue(latitude);
+    }
+    
     @Override
     public boolean equals(Object obj) {
         JsonCoordinate coordinate;
@@ -0,0 +1,652 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import java.util.Arrays;
+
+/**
+ * The positions of a GeoJSON "coordinates" array packed into one double
+ * array, with x, y and, for 3D sequences, z of each position stored next to
+ * each other.
+ *
+ * Nested arrays are described by offsets rather than objects.  The depth is
+ * the number of array levels above the positions:
+ *
+ * 0: a single position, as used by Point.
+ * 1: a list of positions, as used by LineString and MultiPoint.
+ * 2: a list of rings or lines, as used by Polygon and MultiLineString.
+ * 3: a list of polygons, as used by MultiPolygon.
+ *
+ * For depth 2 and 3 the ring offsets hold the index of the first position of
+ * each ring, followed by the position count.  For depth 3 the part offsets
+ * hold the index of the first ring of each polygon, followed by the ring
+ * count.
+ *
+ * Subclasses may keep the values somewhere other than a double array by
+ * overriding getValue() and getValues().
+ *
+ * @author Alec Dhuse
+ */
+public class JsonCoordinateSequence {
+    protected double[] values;
+    protected int      depth, dimension, size;
+    protected int[]    partOffsets, ringOffsets;
+
+    /**
+     * Creates a sequence from packed values.
+     *
+     * @param values        Interleaved position values.
+     * @param dimension     2 or 3 values per position.
+     * @param depth         The number of array levels above the positions.
+     * @param ringOffsets   The start of each ring, plus the position count.
+     * @param partOffsets   The first ring of each part, plus the ring count.
+     */
+    public JsonCoordinateSequence(double[] values,     int dimension, int depth,
+                                  int[]    ringOffsets, int[] partOffsets) {
+        this.values      = values;
+        this.dimension   = dimension;
+        this.depth       = depth;
+        this.size        = values.length / dimension;
+        this.ringOffsets = ringOffsets;
+        this.partOffsets = partOffsets;
+    }
+
+    /**
+     * Creates a sequence whose values are stored by a subclass.
+     *
+     * @param size          The number of positions.
+     * @param dimension     2 or 3 values per position.
+     * @param depth         The number of array levels above the positions.
+     * @param ringOffsets   The start of each ring, plus the position count.
+     * @param partOffsets   The first ring of each part, plus the ring count.
+     */
+    protected JsonCoordinateSequence(int size,         int dimension, int depth,
+                                     int[] ringOffsets, int[] partOffsets) {
+        this.values      = null;
+        this.dimension   = dimension;
+        this.depth       = depth;
+        this.size        = size;
+        this.ringOffsets = ringOffsets;
+        this.partOffsets = partOffsets;
+    }
+
+    /**
+     * Packs JsonCoordinates into a new sequence.  The sequence is 3D if any
+     * of the coordinates is, with Double.NaN stored as the z value of 2D
+     * coordinates.  Depth 2 and 3 sequences hold the coordinates as a single
+     * ring.
+     *
+     * @param coordinates
+     * @param depth         0 for a single position, 1 for a list of 
+     *                      positions, 2 for a list of rings or 3 for a 
+     *                      list of polygons.
+     * @return
+     */
+    public static JsonCoordinateSequence pack(JsonCoordinate[] coordinates, int depth) {
+        JsonCoordinate c;
+        double[]       values;
+        int            dimension;
+
+        dimension = 2;
+
+        for (JsonCoordinate coordinate: coordinates) {
+            if (coordinate.is3D())
+                dimension = 3;
+        }
+
+        values = new double[coordinates.length * dimension];
+
+        for (int i = 0; i < coordinates.length; i++) {
+            c = coordinates[i];
+            values[i * dimension]     = c.getLongitude();
+            values[i * dimension + 1] = c.getLatitude();
+
+            if (dimension == 3)
+                values[i * dimension + 2] = c.getAltitude();
+        }
+
+        if (depth == 3) {
+            return new JsonCoordinateSequence(values, dimension, depth, new int[] {0, coordinates.length}, new int[] {0, 1});
+        } else if (depth == 2) {
+            return new JsonCoordinateSequence(values, dimension, depth, new int[] {0, coordinates.length}, null);
+        } else {
+            return new JsonCoordinateSequence(values, dimension, depth, null, null);
+        }
+    }
+
+    /**
+     * Packs rings of JsonCoordinates into a new depth 2 sequence, such as the
+     * outer ring and holes of a polygon.  The sequence is 3D if any of the
+     * coordinates is.
+     *
+     * @param rings
+     * @return
+     */
+    public static JsonCoordinateSequence pack(JsonCoordinate[][] rings) {
+        return pack(new JsonCoordinate[][][] {rings}, 2);
+    }
+
+    /**
+     * Packs parts made of rings of JsonCoordinates, such as the polygons of
+     * a MultiPolygon, into a new depth 3 sequence.  The sequence is 3D if 
+     * any of the coordinates is.
+     *
+     * @param parts
+     * @return
+     */
+    public static JsonCoordinateSequence pack(JsonCoordinate[][][] parts) {
+        return pack(parts, 3);
+    }
+
+    /**
+     * Packs parts of rings into a depth 2 or 3 sequence.  Depth 2 sequences 
+     * hold the rings of the first part only.
+     *
+     * @param parts
+     * @param depth
+     * @return
+     */
+    private static JsonCoordinateSequence pack(JsonCoordinate[][][] parts, int depth) {
+        JsonCoordinate c;
+        double[]       values;
+        int[]          partOffsets, ringOffsets;
+        int            dimension, index, ringCount, size;
+
+        dimension   = 2;
+        ringCount   = 0;
+        size        = 0;
+        partOffsets = new int[parts.length + 1];
+
+        for (int p = 0; p < parts.length; p++) {
+            ringCount += parts[p].length;
+            partOffsets[p + 1] = ringCount;
+        }
+
+        ringOffsets = new int[ringCount + 1];
+        ringCount   = 0;
+
+        for (JsonCoordinate[][] rings: parts) {
+            for (JsonCoordinate[] ring: rings) {
+                for (JsonCoordinate coordinate: ring) {
+                    if (coordinate.is3D())
+                        dimension = 3;
+                }
+
+                size += ring.length;
+                ringOffsets[++ringCount] = size;
+            }
+        }
+
+        values = new double[size * dimension];
+        index  = 0;
+
+        for (JsonCoordinate[][] rings: parts) {
+            for (JsonCoordinate[] ring: rings) {
+                for (int i = 0; i < ring.length; i++) {
+                    c = ring[i];
+                    values[index]     = c.getLongitude();
+                    values[index + 1] = c.getLatitude();
+
+                    if (dimension == 3)
+                        values[index + 2] = c.getAltitude();
+
+                    index += dimension;
+                }
+            }
+        }
+
+        return new JsonCoordinateSequence(values, dimension, depth, ringOffsets, (depth == 3) ? partOffsets : null);
+    }
+
+    /**
+     * Returns if a given JsonCoordinateSequence is equal to this one.
+     *
+     * @param obj
+     * @return
+     */
+    @Override
+    public boolean equals(Object obj) {
+        JsonCoordinateSequence sequence;
+
+        if (obj instanceof JsonCoordinateSequence) {
+            sequence = (JsonCoordinateSequence) obj;
+
+            if (sequence.depth     != this.depth     ||
+                sequence.dimension != this.dimension ||
+                sequence.size      != this.size      ||
+                !Arrays.equals(sequence.ringOffsets, this.ringOffsets) ||
+                !Arrays.equals(sequence.partOffsets, this.partOffsets))
+                return false;
+
+            for (int i = 0; i < size * dimension; i++) {
+                if (Double.doubleToLongBits(sequence.getValue(i)) != Double.doubleToLongBits(getValue(i)))
+                    return false;
+            }
+
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        int  hash, valuesHash;
+        long bits;
+
+        valuesHash = 1;
+
+        for (int i = 0; i < size * dimension; i++) {
+            bits       = Double.doubleToLongBits(getValue(i));
+            valuesHash = 31 * valuesHash + (int) (bits ^ (bits >>> 32));
+        }
+
+        hash = 7;
+        hash = 31 * hash + this.depth;
+        hash = 31 * hash + valuesHash;
+        return hash;
+    }
+
+    /**
+     * Returns the position at a given index as a JsonCoordinate.
+     *
+     * @param index
+     * @return
+     */
+    public JsonCoordinate getCoordinate(int index) {
+        if (dimension == 3) {
+            return new JsonCoordinate(getX(index), getY(index), getZ(index));
+        } else {
+            return new JsonCoordinate(getX(index), getY(index));
+        }
+    }
+
+    /**
+     * Returns the number of array levels above the positions.
+     *
+     * @return
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Returns the number of values stored per position, 2 or 3.
+     *
+     * @return
+     */
+    public int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * Returns the number of parts, polygons, in a depth 3 sequence.
+     * Other depths have one part.
+     *
+     * @return
+     */
+    public int getPartCount() {
+        return (depth == 3) ? partOffsets.length - 1 : 1;
+    }
+
+    /**
+     * Returns the index of the first ring of a part.
+     *
+     * @param part
+     * @return
+     */
+    public int getPartStart(int part) {
+        return (depth == 3) ? partOffsets[part] : 0;
+    }
+
+    /**
+     * Returns the number of rings or lines.  Depth 0 and 1 sequences are
+     * treated as a single ring.
+     *
+     * @return
+     */
+    public int getRingCount() {
+        return (depth >= 2) ? ringOffsets.length - 1 : 1;
+    }
+
+    /**
+     * Returns the index after the last position of a ring.
+     *
+     * @param ring
+     * @return
+     */
+    public int getRingEnd(int ring) {
+        return (depth >= 2) ? ringOffsets[ring + 1] : size;
+    }
+
+    /**
+     * Returns the index of the first position of a ring.
+     *
+     * @param ring
+     * @return
+     */
+    public int getRingStart(int ring) {
+        return (depth >= 2) ? ringOffsets[ring] : 0;
+    }
+
+    /**
+     * Returns one of the packed values, the index being the position index
+     * times the dimension plus 0 for x, 1 for y or 2 for z.
+     *
+     * @param index
+     * @return
+     */
+    protected double getValue(int index) {
+        return values[index];
+    }
+
+    /**
+     * Returns the packed position values.  The array is not copied, except
+     * by subclasses that do not store the values in an array.
+     *
+     * @return
+     */
+    public double[] getValues() {
+        return values;
+    }
+
+    /**
+     * Returns the x value, longitude, of a position.
+     *
+     * @param index
+     * @return
+     */
+    public double getX(int index) {
+        return getValue(index * dimension);
+    }
+
+    /**
+     * Returns the y value, latitude, of a position.
+     *
+     * @param index
+     * @return
+     */
+    public double getY(int index) {
+        return getValue(index * dimension + 1);
+    }
+
+    /**
+     * Returns the z value, altitude, of a position.  Double.NaN is returned
+     * for positions without one.
+     *
+     * @param index
+     * @return
+     */
+    public double getZ(int index) {
+        return (dimension == 3) ? getValue(index * dimension + 2) : Double.NaN;
+    }
+
+    /**
+     * Returns if a position of this sequence is equal to a position of
+     * another.  Positions without a z value are equal to each other 
+     * regardless of the sequence dimension.
+     *
+     * @param index
+     * @param other
+     * @param otherIndex
+     * @return
+     */
+    boolean positionEquals(int index, JsonCoordinateSequence other, int otherIndex) {
+        double otherZ, z;
+
+        if (getX(index) != other.getX(otherIndex) || getY(index) != other.getY(otherIndex))
+            return false;
+
+        z      = getZ(index);
+        otherZ = other.getZ(otherIndex);
+
+        return (z == otherZ || (Double.isNaN(z) && Double.isNaN(otherZ)));
+    }
+
+    /**
+     * Returns if the values of this sequence cannot be changed.  Sequences
+     * that give out their value array from getValues() are not immutable.
+     *
+     * @return
+     */
+    public boolean isImmutable() {
+        return false;
+    }
+
+    /**
+     * Returns a hash of the positions and nesting of this sequence that 
+     * agrees with positionEquals() and structureEquals(), so it ignores 
+     * whether 2D positions are stored with a z slot.
+     *
+     * @return
+     */
+    int positionHash() {
+        double z;
+        int    hash = depth;
+
+        for (int r = 1; r < getRingCount(); r++)
+            hash = 31 * hash + getRingStart(r);
+
+        for (int p = 1; p < getPartCount(); p++)
+            hash = 31 * hash + getPartStart(p);
+
+        for (int i = 0; i < size; i++) {
+            hash = 31 * hash + hashValue(getX(i));
+            hash = 31 * hash + hashValue(getY(i));
+            z    = getZ(i);
+
+            if (!Double.isNaN(z))
+                hash = 31 * hash + hashValue(z);
+        }
+
+        return hash;
+    }
+
+    /**
+     * Returns if this sequence has the same depth, size, rings and parts as
+     * another, whatever their values.
+     *
+     * @param other
+     * @return
+     */
+    boolean structureEquals(JsonCoordinateSequence other) {
+        if (other.depth != depth || other.size != size || 
+            other.getRingCount() != getRingCount() || other.getPartCount() != getPartCount())
+            return false;
+
+        for (int r = 1; r < getRingCount(); r++) {
+            if (other.getRingStart(r) != getRingStart(r))
+                return false;
+        }
+
+        for (int p = 1; p < getPartCount(); p++) {
+            if (other.getPartStart(p) != getPartStart(p))
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the hash of a value, treating 0.0 and -0.0 as equal like the
+     * == comparison used by positionEquals().
+     *
+     * @param value
+     * @return
+     */
+    static int hashValue(double value) {
+        long bits = Double.doubleToLongBits(value + 0.0);
+
+        return (int) (bits ^ (bits >>> 32));
+    }
+
+    /**
+     * Returns the number of positions.
+     *
+     * @return
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns an immutable sequence with the same values.  Sequences that 
+     * are already immutable are returned as they are.
+     *
+     * @return
+     */
+    public JsonCoordinateSequence toImmutable() {
+        if (isImmutable()) {
+            return this;
+        } else {
+            return new ImmutableCoordinateSequence(getValues().clone(), dimension, depth, ringOffsets, partOffsets);
+        }
+    }
+
+    /**
+     * Returns the positions as JsonCoordinates, in the form used by the
+     * geometry classes.  For sequences deeper than one only the first ring
+     * is returned.
+     *
+     * @return
+     */
+    public JsonCoordinate[] toCoordinates() {
+        return (size > 0) ? toCoordinates(0) : new JsonCoordinate[0];
+    }
+
+    /**
+     * Returns the positions of one ring as JsonCoordinates.  Sequences of
+     * depth one or less are a single ring.
+     *
+     * @param ring
+     * @return
+     */
+    public JsonCoordinate[] toCoordinates(int ring) {
+        JsonCoordinate[] coordinates;
+        int              end, start;
+
+        start       = getRingStart(ring);
+        end         = getRingEnd(ring);
+        coordinates = new JsonCoordinate[end - start];
+
+        for (int i = start; i < end; i++)
+            coordinates[i - start] = getCoordinate(i);
+
+        return coordinates;
+    }
+
+    /**
+     * Returns the sequence as nested JSON arrays.
+     *
+     * @return
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+
+        if (depth == 0) {
+            appendPosition(sb, 0);
+        } else if (depth == 1) {
+            appendRing(sb, 0, size);
+        } else if (depth == 2) {
+            appendRings(sb, 0, getRingCount());
+        } else {
+            sb.append("[");
+
+            for (int p = 0; p < getPartCount(); p++) {
+                if (p > 0)
+                    sb.append(", ");
+
+                appendRings(sb, partOffsets[p], partOffsets[p + 1]);
+            }
+
+            sb.append("]");
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Appends a position in the same format as JsonCoordinate.toString().
+     *
+     * @param sb
+     * @param index
+     */
+    void appendPosition(StringBuilder sb, int index) {
+        sb.append("[");
+        appendValue(sb, index * dimension);
+        sb.append(" , ");
+        appendValue(sb, index * dimension + 1);
+
+        if (dimension == 3 && !Double.isNaN(getZ(index))) {
+            sb.append(" , ");
+            appendValue(sb, index * dimension + 2);
+        }
+
+        sb.append("]");
+    }
+
+    /**
+     * Appends one of the packed values.
+     *
+     * @param sb
+     * @param index
+     */
+    protected void appendValue(StringBuilder sb, int index) {
+        sb.append(getValue(index));
+    }
+
+    /**
+     * Appends an array of the positions from start to end.
+     *
+     * @param sb
+     * @param start
+     * @param end
+     */
+    private void appendRing(StringBuilder sb, int start, int end) {
+        sb.append("[");
+
+        for (int i = start; i < end; i++) {
+            if (i > start)
+                sb.append(", ");
+
+            appendPosition(sb, i);
+        }
+
+        sb.append("]");
+    }
+
+    /**
+     * Appends an array of the rings from startRing to endRing.
+     *
+     * @param sb
+     * @param startRing
+     * @param endRing
+     */
+    private void appendRings(StringBuilder sb, int startRing, int endRing) {
+        sb.append("[");
+
+        for (int r = startRing; r < endRing; r++) {
+            if (r > startRing)
+                sb.append(", ");
+
+            appendRing(sb, ringOffsets[r], ringOffsets[r + 1]);
+        }
+
+        sb.append("]");
+    }
+}
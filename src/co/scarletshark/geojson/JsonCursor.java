@@ -0,0 +1,210 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * A forward only read position over JSON source text.  The parser walks a
+ * single cursor from the start to the end of the input, so nested objects
+ * and arrays are read in place rather than copied out and re-tokenized.
+ *
+ * @author Alec Dhuse
+ */
+abstract class JsonCursor {
+    /** Shares the Strings of pair names.  Null if names are not shared. */
+    KeyDictionary keys;
+
+    /** Stores the values of coordinates arrays.  Null for CoordinateStorage.DOUBLE. */
+    CoordinateStorage storage;
+
+    /** Reused for each coordinates array read from this cursor. */
+    private CoordinateSequenceBuilder coordinates;
+
+    /** Element lists for arrays being read, one per level of nesting. */
+    private ArrayList<ArrayList<Object>> lists;
+    private int                          listDepth;
+
+    /**
+     * Returns the next non whitespace character without consuming it.
+     * Returns -1 if the end of the input has been reached.
+     *
+     * @return
+     * @throws IOException
+     */
+    abstract int peek() throws IOException;
+
+    /**
+     * Returns the offset of the cursor from the start of the input.
+     *
+     * @return
+     */
+    abstract long position();
+
+    /**
+     * Reads the number at the next non whitespace position.
+     *
+     * @return
+     * @throws IOException
+     */
+    abstract double readNumber() throws IOException;
+
+    /**
+     * Consumes the given word if it is next in the input.  The comparison
+     * ignores case.  Returns false, without moving the cursor, if the word is
+     * not next.
+     *
+     * @param word
+     * @return
+     * @throws IOException
+     */
+    abstract boolean readLiteral(String word) throws IOException;
+
+    /**
+     * Reads the quoted pair name at the current position.  If the cursor has
+     * a KeyDictionary, the shared String for the name is returned without 
+     * creating a new one.
+     *
+     * @return
+     * @throws IOException
+     */
+    abstract String readName() throws IOException;
+
+    /**
+     * Reads the quoted string at the current position and returns its
+     * content without the quotes.  Escape sequences are kept as written so
+     * values round trip through toString().
+     *
+     * @return
+     * @throws IOException
+     */
+    abstract String readString() throws IOException;
+
+    /**
+     * Moves the cursor past the character returned by the last call to
+     * peek().
+     */
+    abstract void skip();
+
+    /**
+     * Moves the cursor past the value at the current position without
+     * parsing it.  Only quotes, escapes and brackets are looked at, so the
+     * value is not checked for errors.
+     *
+     * @throws IOException
+     */
+    abstract void skipValue() throws IOException;
+
+    /**
+     * Returns a new cursor over a range of the same input.  Only supported
+     * by cursors over input that is fully in memory.
+     *
+     * @param start     The offset of the first char or byte to read.
+     * @param end       The offset after the last char or byte to read.
+     * @return
+     */
+    abstract JsonCursor slice(long start, long end);
+
+    /**
+     * Returns a cleared list to collect the elements of an array into.  Lists
+     * are kept between arrays, so each acquired list must be given back with
+     * releaseList() once its elements have been copied out.
+     *
+     * @return
+     */
+    ArrayList<Object> acquireList() {
+        ArrayList<Object> list;
+
+        if (lists == null)
+            lists = new ArrayList<ArrayList<Object>>();
+
+        if (listDepth == lists.size())
+            lists.add(new ArrayList<Object>());
+
+        list = lists.get(listDepth++);
+        list.clear();
+
+        return list;
+    }
+
+    /**
+     * Gives back the list from the last call to acquireList().  The list is
+     * cleared so it does not keep parsed values alive.
+     */
+    void releaseList() {
+        lists.get(--listDepth).clear();
+    }
+
+    /**
+     * Returns the builder used to read coordinates arrays from this cursor.
+     *
+     * @return
+     */
+    CoordinateSequenceBuilder getCoordinateBuilder() {
+        if (coordinates == null)
+            coordinates = new CoordinateSequenceBuilder();
+
+        return coordinates;
+    }
+
+    /**
+     * Creates an exception for an error at the current position.
+     *
+     * @param message
+     * @return
+     */
+    JsonParseException error(String message) {
+        return new JsonParseException(message, position());
+    }
+
+    /**
+     * Consumes the next non whitespace character, throwing an exception if it
+     * is not the expected character.
+     *
+     * @param expected
+     * @throws IOException
+     */
+    void expect(char expected) throws IOException {
+        if (peek() == expected) {
+            skip();
+        } else {
+            throw error("Expected '" + expected + "'");
+        }
+    }
+
+    /**
+     * Returns if a character is JSON whitespace.
+     *
+     * @param c
+     * @return
+     */
+    static boolean isWhiteSpace(int c) {
+        return (c == ' ' || c == '\n' || c == '\r' || c == '\t');
+    }
+
+    /**
+     * Returns if a character can be part of a number or literal token.
+     *
+     * @param c
+     * @return
+     */
+    static boolean isTokenChar(int c) {
+        return ((c >= '0' && c <= '9') || (c >= 'a' && c <= 'z') ||
+                (c >= 'A' && c <= 'Z') || c == '-' || c == '+' || c == '.');
+    }
+}
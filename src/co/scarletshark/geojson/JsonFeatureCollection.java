@@ -0,0 +1,378 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * A FeatureCollection stored by column rather than as a JsonObject per 
+ * feature.  Geometries are kept in one array and each property name has a
+ * single PropertyColumn holding that property for every feature.  Numbers
+ * and booleans are kept in primitive arrays and strings in a dictionary, so
+ * a collection of many features repeats no names and boxes no values, and
+ * sums or filters over a property scan one array.
+ * 
+ * Members of a feature other than its type, id, geometry and properties, 
+ * such as a bbox or foreign members, are kept as pairs for their row only.
+ * 
+ * getFeature(row) returns a JsonObject view of a feature for code written 
+ * against JsonObject.  The pairs of the view are only created when it is 
+ * first read, and changes to the view are not stored in the collection.
+ *
+ * @author Alec Dhuse
+ */
+public class JsonFeatureCollection {
+    private ArrayList<PropertyColumn> columns;
+    private HashMap<String, Integer>  columnIndexes;
+    private GeoJsonObject[]           geometries;
+    private JsonPair[][]              otherPairs;
+    private PropertyColumn            ids;
+    private int                       size;
+
+    /**
+     * Creates an empty collection.
+     */
+    public JsonFeatureCollection() {
+        this.columns       = new ArrayList<PropertyColumn>();
+        this.columnIndexes = new HashMap<String, Integer>();
+        this.geometries    = new GeoJsonObject[16];
+    }
+
+    /**
+     * Creates a collection from the features array of a parsed 
+     * FeatureCollection object.
+     *
+     * @param collection
+     * @return
+     */
+    public static JsonFeatureCollection fromObject(JsonObject collection) {
+        JsonFeatureCollection features = new JsonFeatureCollection();
+        JsonPair              pair     = collection.getPairByName("features");
+
+        if (pair != null) {
+            for (Object feature: pair.getValueAsArray()) {
+                if (feature instanceof JsonObject)
+                    features.addFeature((JsonObject) feature);
+            }
+        }
+
+        return features;
+    }
+
+    /**
+     * Creates a collection from all of the features left in a reader.  Only
+     * one feature is held as a JsonObject at a time.
+     *
+     * @param reader
+     * @return
+     * @throws IOException
+     */
+    public static JsonFeatureCollection read(GeoJsonReader reader) throws IOException {
+        JsonFeatureCollection features = new JsonFeatureCollection();
+
+        while (reader.hasNext())
+            features.addFeature(reader.next());
+
+        return features;
+    }
+
+    /**
+     * Adds a Feature object as a new row.  The geometry, id and each of the
+     * properties are copied into their columns, and any other members are 
+     * kept with the row.
+     *
+     * @param feature
+     */
+    public void addFeature(JsonObject feature) {
+        JsonPair pair;
+        Object   geometry;
+
+        if (size == geometries.length) {
+            geometries = Arrays.copyOf(geometries, size * 2);
+
+            if (otherPairs != null)
+                otherPairs = Arrays.copyOf(otherPairs, size * 2);
+        }
+
+        pair = feature.getPairByName("geometry");
+
+        if (pair != null) {
+            geometry = pair.getValue().getValue();
+
+            if (geometry instanceof GeoJsonObject)
+                geometries[size] = (GeoJsonObject) geometry;
+        }
+
+        pair = feature.getPairByName("id");
+
+        if (pair != null) {
+            if (ids == null || (pair.getValue().getType() != JsonValueType.NULL && !ids.accepts(pair.getValue())))
+                ids = PropertyColumn.forValue("id", pair.getValue(), ids);
+
+            ids.set(size, pair.getValue());
+        }
+
+        pair = feature.getPairByName("properties");
+
+        if (pair != null && pair.getValue().getType() == JsonValueType.OBJECT) {
+            for (JsonPair property: pair.getValueAsObject().getPairs())
+                setProperty(size, property.getName(), property.getValue());
+        }
+
+        for (JsonPair member: feature.getPairs()) {
+            if (!isColumnMember(member.getName()))
+                addOtherPair(size, member);
+        }
+
+        size++;
+    }
+
+    /**
+     * Returns the column for a property name, or null if no feature has the
+     * property.  Cast the column to NumberColumn, BooleanColumn or 
+     * StringColumn, as given by its type, to scan its values.
+     *
+     * @param name
+     * @return
+     */
+    public PropertyColumn getColumn(String name) {
+        Integer index = columnIndexes.get(name);
+
+        return (index != null) ? columns.get(index.intValue()) : null;
+    }
+
+    /**
+     * Returns the property columns in the order their names were first seen.
+     *
+     * @return
+     */
+    public List<PropertyColumn> getColumns() {
+        return Collections.unmodifiableList(columns);
+    }
+
+    /**
+     * Returns a JsonObject view of the Feature in a row.
+     *
+     * @param row
+     * @return
+     */
+    public JsonObject getFeature(int row) {
+        checkRow(row);
+
+        return new FeatureRow(this, row);
+    }
+
+    /**
+     * Returns the geometry of a row, or null if the feature has none.
+     *
+     * @param row
+     * @return
+     */
+    public GeoJsonObject getGeometry(int row) {
+        checkRow(row);
+
+        return geometries[row];
+    }
+
+    /**
+     * Returns the id of a row, or null if the feature has none.
+     *
+     * @param row
+     * @return
+     */
+    public JsonValue getId(int row) {
+        checkRow(row);
+
+        return (ids != null) ? ids.getValue(row) : null;
+    }
+
+    /**
+     * Returns the number of features.
+     *
+     * @return
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the collection as a GeoJSON FeatureCollection.
+     *
+     * @return
+     */
+    @Override
+    public String toString() {
+        return toString(0);
+    }
+
+    /**
+     * Returns the collection as a GeoJSON FeatureCollection at a given 
+     * indent level.
+     *
+     * @param indent    The number of tabs in to start this text.
+     * @return
+     */
+    public String toString(int indent) {
+        StringBuilder sb = new StringBuilder();
+
+        sb.append(GeoJsonObject.getIndent(indent));
+        sb.append("{\n");
+
+        sb.append(GeoJsonObject.getIndent(indent + 1));
+        sb.append("\"type\": \"FeatureCollection\",\n");
+
+        sb.append(GeoJsonObject.getIndent(indent + 1));
+        sb.append("\"features\": [\n");
+
+        for (int i = 0; i < size; i++) {
+            sb.append(getFeature(i).toString(indent + 2));
+
+            if (i != (size - 1))
+                sb.append(",");
+
+            sb.append("\n");
+        }
+
+        sb.append(GeoJsonObject.getIndent(indent + 1));
+        sb.append("]\n");
+
+        sb.append(GeoJsonObject.getIndent(indent));
+        sb.append("}");
+
+        return sb.toString();
+    }
+
+    /**
+     * Adds the pairs of the Feature in a row to a list.
+     *
+     * @param row
+     * @param pairs
+     */
+    void addPairs(int row, List<JsonPair> pairs) {
+        JsonObject properties;
+        JsonValue  value;
+
+        pairs.add(new JsonPair("type", "Feature"));
+
+        value = getId(row);
+
+        if (value != null)
+            pairs.add(new JsonPair("id", value));
+
+        if (geometries[row] != null) {
+            pairs.add(new JsonPair("geometry", geometries[row]));
+        } else {
+            pairs.add(new JsonPair("geometry", new JsonValue("null", JsonValueType.NULL)));
+        }
+
+        properties = new JsonObject();
+
+        for (PropertyColumn column: columns) {
+            value = column.getValue(row);
+
+            if (value != null)
+                properties.pairs.add(new JsonPair(column.getName(), value));
+        }
+
+        pairs.add(new JsonPair("properties", properties));
+
+        if (otherPairs != null && otherPairs[row] != null) {
+            for (JsonPair pair: otherPairs[row])
+                pairs.add(new JsonPair(pair.getName(), pair.getValue()));
+        }
+    }
+
+    /**
+     * Keeps a member of a feature that has no column with its row.
+     *
+     * @param row
+     * @param pair
+     */
+    private void addOtherPair(int row, JsonPair pair) {
+        JsonPair[] rowPairs;
+
+        if (otherPairs == null)
+            otherPairs = new JsonPair[geometries.length][];
+
+        rowPairs = otherPairs[row];
+
+        if (rowPairs == null) {
+            rowPairs = new JsonPair[1];
+        } else {
+            rowPairs = Arrays.copyOf(rowPairs, rowPairs.length + 1);
+        }
+
+        rowPairs[rowPairs.length - 1] = pair;
+        otherPairs[row]               = rowPairs;
+    }
+
+    /**
+     * Throws an IndexOutOfBoundsException if a row is not in the collection.
+     *
+     * @param row
+     */
+    private void checkRow(int row) {
+        if (row < 0 || row >= size)
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+    }
+
+    /**
+     * Returns if a Feature member is stored in the columns rather than kept
+     * as a pair.
+     *
+     * @param name
+     * @return
+     */
+    private static boolean isColumnMember(String name) {
+        return name.equalsIgnoreCase("type")     || name.equalsIgnoreCase("id") || 
+               name.equalsIgnoreCase("geometry") || name.equalsIgnoreCase("properties");
+    }
+
+    /**
+     * Sets a property of a row, replacing the column for the name if it 
+     * cannot hold the value.
+     *
+     * @param row
+     * @param name
+     * @param value
+     */
+    private void setProperty(int row, String name, JsonValue value) {
+        PropertyColumn column;
+        Integer        index;
+
+        index  = columnIndexes.get(name);
+        column = (index != null) ? columns.get(index.intValue()) : null;
+
+        if (column == null || (value.getType() != JsonValueType.NULL && !column.accepts(value))) {
+            column = PropertyColumn.forValue(name, value, column);
+
+            if (index != null) {
+                columns.set(index.intValue(), column);
+            } else {
+                columnIndexes.put(name, Integer.valueOf(columns.size()));
+                columns.add(column);
+            }
+        }
+
+        column.set(row, value);
+    }
+}
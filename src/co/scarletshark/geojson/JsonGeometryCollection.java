@@ -16,12 +16,214 @@
  */
 package co.scarletshark.geojson;
 
+import java.util.Arrays;
+
 /**
  * Object representing the GeoJson object GeometryCollection.
- * This object is not yet implemented.
+ * Each geometry keeps its own packed coordinates, since the geometries can
+ * be of different types.  The coordinates of the collection itself are the
+ * positions of all its geometries in order, and are packed from the 
+ * geometries when asked for rather than stored a second time.
+ * 
+ * The collection is immutable if all of its geometries are, in which case
+ * its hash is computed once when it is created.
  * 
  * @author Alec
  */
-public class JsonGeometryCollection {
+public class JsonGeometryCollection extends GeoJsonObject {
+    private final GeoJsonObject[] geometries;
+    
+    /**
+     * Constructor using the geometries of the collection.
+     * 
+     * @param geometries 
+     */
+    public JsonGeometryCollection(GeoJsonObject[] geometries) {
+        super(isImmutable(geometries), isImmutable(geometries) ? Arrays.hashCode(geometries) : 0);
+        this.geometries = geometries.clone();
+    }
+    
+    /**
+     * Returns if all of the geometries are immutable.
+     * 
+     * @param geometries
+     * @return 
+     */
+    private static boolean isImmutable(GeoJsonObject[] geometries) {
+        for (GeoJsonObject geometry: geometries) {
+            if (!geometry.isImmutable())
+                return false;
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Returns the positions of all of the geometries in order, packed into 
+     * a new sequence on each call so it reflects changes to mutable 
+     * geometries.  The sequence is immutable if the collection is.
+     * 
+     * @return 
+     */
+    @Override
+    public JsonCoordinateSequence getCoordinateSequence() {
+        JsonCoordinateSequence sequence, other;
+        double[]               values;
+        int                    dimension, index, size;
+        
+        dimension = 2;
+        size      = 0;
+        
+        for (GeoJsonObject geometry: geometries) {
+            other      = geometry.getCoordinateSequence();
+            dimension  = Math.max(dimension, other.getDimension());
+            size      += other.size();
+        }
+        
+        values = new double[size * dimension];
+        index  = 0;
+        
+        for (GeoJsonObject geometry: geometries) {
+            other = geometry.getCoordinateSequence();
+            
+            for (int i = 0; i < other.size(); i++) {
+                values[index]     = other.getX(i);
+                values[index + 1] = other.getY(i);
+
+                if (dimension == 3)
+                    values[index + 2] = other.getZ(i);
+
+                index += dimension;
+            }
+        }
+        
+        sequence = new JsonCoordinateSequence(values, dimension, 1, null, null);
+        
+        return isImmutable() ? sequence.toImmutable() : sequence;
+    }
+    
+    /**
+     * Tells if another GeometryCollection holds equal geometries in the same
+     * order.
+     * 
+     * @param object
+     * @return 
+     */
+    @Override
+    public boolean equals(Object object) {
+        JsonGeometryCollection collection;
+        
+        if (object == this) {
+            return true;
+        } else if (object instanceof JsonGeometryCollection) {
+            collection = (JsonGeometryCollection) object;
+            
+            if (isImmutable() && collection.isImmutable() && hashCode() != collection.hashCode())
+                return false;
+            
+            return Arrays.equals(geometries, collection.geometries);
+        } else {
+            return false;
+        }
+    }
+    
+    /**
+     * Returns the geometry at the given index.
+     * 
+     * @param index
+     * @return 
+     */
+    public GeoJsonObject getGeometry(int index) {
+        return geometries[index];
+    }
+    
+    /**
+     * Returns the number of geometries in this collection.
+     * 
+     * @return 
+     */
+    public int getGeometryCount() {
+        return geometries.length;
+    }
+    
+    /**
+     * Returns a hash of the geometries.  Immutable collections return the 
+     * hash computed when they were created.
+     * 
+     * @return 
+     */
+    @Override
+    public int hashCode() {
+        return isImmutable() ? super.hashCode() : Arrays.hashCode(geometries);
+    }
+    
+    /**
+     * Returns an immutable GeometryCollection of immutable copies of the
+     * geometries, or this object if it is already immutable.
+     * 
+     * @return 
+     */
+    @Override
+    public JsonGeometryCollection toImmutable() {
+        GeoJsonObject[] copies;
+        
+        if (isImmutable()) {
+            return this;
+        } else {
+            copies = new GeoJsonObject[geometries.length];
+            
+            for (int i = 0; i < geometries.length; i++)
+                copies[i] = geometries[i].toImmutable();
+            
+            return new JsonGeometryCollection(copies);
+        }
+    }
+    
+    /**
+     * Returns a String representation of this Object.  
+     * 
+     * @return 
+     */
+    @Override
+    public String toString() {
+        return toString(0);   
+    }    
     
+    /**
+     * Returns a String representation of this Object with a given indent.  
+     * 
+     * @param indent The indent level to add to this object.
+     * @return 
+     */
+    @Override
+    public String toString(int indent) {
+        StringBuilder sb = new StringBuilder();
+        
+        sb.append("{ ");
+        sb.append("\n");
+                
+        sb.append(getIndent(indent));        
+        sb.append("\"type\": \"GeometryCollection\",");
+        sb.append("\n");
+        
+        sb.append(getIndent(indent));  
+        sb.append("\"geometries\": [\n");                
+        
+        for (int i = 0; i < geometries.length; i++) {
+            sb.append(getIndent(indent + 1));  
+            sb.append(geometries[i].toString(indent + 2));
+            
+            if (i != (geometries.length - 1))
+                sb.append(",");                       
+            
+            sb.append("\n");
+        }
+        
+        sb.append(getIndent(indent));
+        sb.append("]");
+        
+        sb.append(" }");
+        
+        return sb.toString();
+    }        
 }
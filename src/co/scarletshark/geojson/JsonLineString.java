@@ -24,9 +24,29 @@ package co.scarletshark.geojson;
 public class JsonLineString extends GeoJsonObject {
     
     public JsonLineString(JsonCoordinate[] coordinate) {
-        this.coordinates = coordinate;
+        super(JsonCoordinateSequence.pack(coordinate, 1));
     }   
     
+    /**
+     * Constructor using packed coordinates.
+     * 
+     * @param coordinates 
+     */
+    public JsonLineString(JsonCoordinateSequence coordinates) {
+        super(coordinates);
+    }
+    
+    /**
+     * Returns an immutable LineString with the same coordinates, or this 
+     * object if it is already immutable.
+     * 
+     * @return 
+     */
+    @Override
+    public JsonLineString toImmutable() {
+        return isImmutable() ? this : new JsonLineString(coordinates.toImmutable());
+    }
+    
     /**
      * Returns a String representation of this Object.  
      * 
@@ -43,6 +63,7 @@ public class JsonLineString extends GeoJsonObject {
      * @param indent The indent level to add to this object.
      * @return 
      */
+    @Override
     public String toString(int indent) {
         StringBuilder sb = new StringBuilder();
         
@@ -61,15 +82,13 @@ public class JsonLineString extends GeoJsonObject {
         
         sb.append("\"coordinates\": [\n");
         
-        for (int i = 0; i < coordinates.length; i++) {
-            JsonCoordinate c = coordinates[i];
-            
+        for (int i = 0; i < coordinates.size(); i++) {
             for (int t = 0; t < (indent + 1); t++)
                 sb.append("\t");      
             
-            sb.append(c.toString());  
+            coordinates.appendPosition(sb, i);
             
-            if (i != (coordinates.length - 1)) {
+            if (i != (coordinates.size() - 1)) {
                 sb.append(",\n");                       
             } else {
                 sb.append("\n");  
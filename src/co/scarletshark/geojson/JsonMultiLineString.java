@@ -18,10 +18,98 @@ package co.scarletshark.geojson;
 
 /**
  * Class representing the GeoJsON MultiLineString object.
- * This class is not yet implemented.
+ * The positions of all lines are stored in one packed coordinate sequence, 
+ * with the start of each line stored as a ring offset.
  * 
  * @author Alec
  */
-public class JsonMultiLineString {
+public class JsonMultiLineString extends GeoJsonObject {
     
+    /**
+     * Constructor using the coordinates of each line.
+     * 
+     * @param lines 
+     */
+    public JsonMultiLineString(JsonCoordinate[][] lines) {
+        super(JsonCoordinateSequence.pack(lines));
+    }
+    
+    /**
+     * Constructor using packed coordinates.
+     * 
+     * @param coordinates 
+     */
+    public JsonMultiLineString(JsonCoordinateSequence coordinates) {
+        super(coordinates);
+    }
+    
+    /**
+     * Returns a new LineString for the given line of this MultiLineString.
+     * 
+     * @param index
+     * @return 
+     */
+    public JsonLineString getLineString(int index) {
+        return new JsonLineString(coordinates.toCoordinates(index));
+    }
+    
+    /**
+     * Returns the number of lines.
+     * 
+     * @return 
+     */
+    public int getLineStringCount() {
+        return coordinates.getRingCount();
+    }
+    
+    /**
+     * Returns an immutable MultiLineString with the same coordinates, or this 
+     * object if it is already immutable.
+     * 
+     * @return 
+     */
+    @Override
+    public JsonMultiLineString toImmutable() {
+        return isImmutable() ? this : new JsonMultiLineString(coordinates.toImmutable());
+    }
+    
+    /**
+     * Returns a String representation of this Object.  
+     * 
+     * @return 
+     */
+    @Override
+    public String toString() {
+        return toString(0);   
+    }    
+    
+    /**
+     * Returns a String representation of this Object with a given indent.  
+     * 
+     * @param indent The indent level to add to this object.
+     * @return 
+     */
+    @Override
+    public String toString(int indent) {
+        StringBuilder sb = new StringBuilder();
+        
+        sb.append("{ ");
+        sb.append("\n");
+                
+        sb.append(getIndent(indent));        
+        sb.append("\"type\": \"MultiLineString\",");
+        sb.append("\n");
+        
+        sb.append(getIndent(indent));  
+        sb.append("\"coordinates\": [\n");                
+        
+        appendRings(sb, 0, coordinates.getRingCount(), indent + 1, false);
+        
+        sb.append(getIndent(indent));
+        sb.append("]");
+        
+        sb.append(" }");
+        
+        return sb.toString();
+    }        
 }
@@ -18,10 +18,105 @@ package co.scarletshark.geojson;
 
 /**
  * Class representing the GeoJSON object MultiPoint.
- * This class is not yet implemented.
+ * The points are stored as a single packed list of positions.
  * 
  * @author Alec Dhuse
  */
-public class JsonMultiPoint {
+public class JsonMultiPoint extends GeoJsonObject {
     
+    /**
+     * Constructor using the coordinates of each point.
+     * 
+     * @param coordinates 
+     */
+    public JsonMultiPoint(JsonCoordinate[] coordinates) {
+        super(JsonCoordinateSequence.pack(coordinates, 1));
+    }
+    
+    /**
+     * Constructor using packed coordinates.
+     * 
+     * @param coordinates 
+     */
+    public JsonMultiPoint(JsonCoordinateSequence coordinates) {
+        super(coordinates);
+    }
+    
+    /**
+     * Returns a new Point for the given point of this MultiPoint.
+     * 
+     * @param index
+     * @return 
+     */
+    public JsonPoint getPoint(int index) {
+        return new JsonPoint(new JsonCoordinate[] {coordinates.getCoordinate(index)});
+    }
+    
+    /**
+     * Returns the number of points.
+     * 
+     * @return 
+     */
+    public int getPointCount() {
+        return coordinates.size();
+    }
+    
+    /**
+     * Returns an immutable MultiPoint with the same coordinates, or this 
+     * object if it is already immutable.
+     * 
+     * @return 
+     */
+    @Override
+    public JsonMultiPoint toImmutable() {
+        return isImmutable() ? this : new JsonMultiPoint(coordinates.toImmutable());
+    }
+    
+    /**
+     * Returns a String representation of this Object.  
+     * 
+     * @return 
+     */
+    @Override
+    public String toString() {
+        return toString(0);   
+    }    
+    
+    /**
+     * Returns a String representation of this Object with a given indent.  
+     * 
+     * @param indent The indent level to add to this object.
+     * @return 
+     */
+    @Override
+    public String toString(int indent) {
+        StringBuilder sb = new StringBuilder();
+        
+        sb.append("{ ");
+        sb.append("\n");
+                
+        sb.append(getIndent(indent));        
+        sb.append("\"type\": \"MultiPoint\",");
+        sb.append("\n");
+        
+        sb.append(getIndent(indent));  
+        sb.append("\"coordinates\": [\n");                
+        
+        for (int i = 0; i < coordinates.size(); i++) {
+            sb.append(getIndent(indent + 1));  
+            coordinates.appendPosition(sb, i);
+            
+            if (i != (coordinates.size() - 1))
+                sb.append(",");                       
+            
+            sb.append("\n");
+        }
+        
+        sb.append(getIndent(indent));
+        sb.append("]");
+        
+        sb.append(" }");
+        
+        return sb.toString();
+    }        
 }
@@ -17,11 +17,128 @@
 package co.scarletshark.geojson;
 
 /**
- * Object representing the GeoJSON object MultioPolygon.
- * This class is not ret implemented.
+ * Object representing the GeoJSON object MultiPolygon.
+ * The rings of all polygons are stored in one packed coordinate sequence. 
+ * Ring offsets give the start of each ring and part offsets the first ring
+ * of each polygon, so a MultiPolygon of any number of polygons is held in 
+ * three arrays.  Use getCoordinateSequence() with getPartStart(part) and 
+ * getRingStart(ring) to walk the polygons without creating objects.
  * 
  * @author Alec Dhuse
  */
-public class JsonMultiPolygon {
+public class JsonMultiPolygon extends GeoJsonObject {
     
+    /**
+     * Constructor using the rings of each polygon, the outer ring followed
+     * by any holes.
+     * 
+     * @param polygons 
+     */
+    public JsonMultiPolygon(JsonCoordinate[][][] polygons) {
+        super(JsonCoordinateSequence.pack(polygons));
+    }
+    
+    /**
+     * Constructor using packed coordinates.
+     * 
+     * @param coordinates 
+     */
+    public JsonMultiPolygon(JsonCoordinateSequence coordinates) {
+        super(coordinates);
+    }
+    
+    /**
+     * Returns a new Polygon for the given polygon of this MultiPolygon.
+     * 
+     * @param index
+     * @return 
+     */
+    public JsonPolygon getPolygon(int index) {
+        JsonCoordinate[][] rings;
+        int                start;
+        
+        start = coordinates.getPartStart(index);
+        rings = new JsonCoordinate[coordinates.getPartStart(index + 1) - start][];
+        
+        for (int r = 0; r < rings.length; r++)
+            rings[r] = coordinates.toCoordinates(start + r);
+        
+        return new JsonPolygon(rings);
+    }
+    
+    /**
+     * Returns the number of polygons.
+     * 
+     * @return 
+     */
+    public int getPolygonCount() {
+        return coordinates.getPartCount();
+    }
+    
+    /**
+     * Returns an immutable MultiPolygon with the same coordinates, or this 
+     * object if it is already immutable.
+     * 
+     * @return 
+     */
+    @Override
+    public JsonMultiPolygon toImmutable() {
+        return isImmutable() ? this : new JsonMultiPolygon(coordinates.toImmutable());
+    }
+    
+    /**
+     * Returns a String representation of this Object.  
+     * 
+     * @return 
+     */
+    @Override
+    public String toString() {
+        return toString(0);   
+    }    
+    
+    /**
+     * Returns a String representation of this Object with a given indent.  
+     * 
+     * @param indent The indent level to add to this object.
+     * @return 
+     */
+    @Override
+    public String toString(int indent) {
+        StringBuilder sb = new StringBuilder();
+        int           parts;
+        
+        sb.append("{ ");
+        sb.append("\n");
+                
+        sb.append(getIndent(indent));        
+        sb.append("\"type\": \"MultiPolygon\",");
+        sb.append("\n");
+        
+        sb.append(getIndent(indent));  
+        sb.append("\"coordinates\": [\n");                
+        
+        parts = coordinates.getPartCount();
+        
+        for (int p = 0; p < parts; p++) {
+            sb.append(getIndent(indent + 1));  
+            sb.append("[\n");
+            
+            appendRings(sb, coordinates.getPartStart(p), coordinates.getPartStart(p + 1), indent + 2, true);
+            
+            sb.append(getIndent(indent + 1));  
+            sb.append("]");
+            
+            if (p != (parts - 1))
+                sb.append(",");
+            
+            sb.append("\n");
+        }
+        
+        sb.append(getIndent(indent));
+        sb.append("]");
+        
+        sb.append(" }");
+        
+        return sb.toString();
+    }        
 }
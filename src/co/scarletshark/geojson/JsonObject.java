@@ -17,20 +17,25 @@
 package co.scarletshark.geojson;
 
 import java.util.ArrayList;
+import java.util.Collection;
 
 /**
  *
  * @author Alec
  */
 public class JsonObject {
-    ArrayList<JsonPair> pairs;
+    /** Objects with at least this many pairs index them by name. */
+    protected static final int INDEX_THRESHOLD = 8;
+    
+    PairList          pairs;
+    private PairIndex index;
     
     /**
      * Creates a new empty JsonObject.
      * 
      */
     public JsonObject() {
-        pairs = new ArrayList<JsonPair>();
+        pairs = new PairList();
     }
     
     /**
@@ -40,27 +45,8 @@ public class JsonObject {
      */
     public void addPair(JsonPair newPair) {
         try {
-            if (newPair.getName().equalsIgnoreCase("bbox")) {  
-                JsonBoundingBox bbox = JsonParser.parseBoundingBox(newPair);
-                
-                if (bbox != null)
-                    newPair.getValue().setValue(bbox, JsonValue.BBOX);
-            } else if (newPair.getName().equalsIgnoreCase("coordinates")) { 
-                if (!newPair.getValue().getValueType().equalsIgnoreCase(JsonValue.COORDINATES))
-                    newPair.getValue().setValue(JsonParser.parseCoordinates(newPair), JsonValue.COORDINATES);            
-            } else if (newPair.getName().equalsIgnoreCase("geometry")) {   
-                JsonObject    object    = newPair.getValueAsObject();
-                GeoJsonObject geoObject = JsonParser.parseGeometry(object);
-
-                if (geoObject instanceof JsonPoint) {
-                    newPair.getValue().setValue(geoObject, JsonValue.POINT);             
-                } else if (geoObject instanceof JsonLineString) {
-                    newPair.getValue().setValue(geoObject, JsonValue.LINESTRING);
-                } else if (geoObject instanceof JsonPolygon) {
-                    newPair.getValue().setValue(geoObject, JsonValue.POLYGON);
-                }
-
-            }
+            if (!(newPair.value instanceof LazyJsonValue) || ((LazyJsonValue) newPair.value).isParsed())
+                convertPairValue(newPair);
 
             this.pairs.add(newPair);
         } catch (Exception e) {
@@ -68,6 +54,40 @@ public class JsonObject {
         }
     }
     
+    /**
+     * Converts the value of pairs with GeoJSON names, bbox, coordinates and
+     * geometry, to their GeoJSON types.
+     * 
+     * @param newPair 
+     */
+    static void convertPairValue(JsonPair newPair) {
+        int length = newPair.getName().length();
+        
+        //Most names can be rejected by length without comparing them
+        if (length != 4 && length != 8 && length != 11)
+            return;
+        
+        if (newPair.getName().equalsIgnoreCase("bbox")) {  
+            JsonBoundingBox bbox = JsonParser.parseBoundingBox(newPair);
+
+            if (bbox != null)
+                newPair.getValue().setValue(bbox, JsonValueType.BBOX);
+        } else if (newPair.getName().equalsIgnoreCase("coordinates")) { 
+            if (newPair.getValue().getType() != JsonValueType.COORDINATES) {
+                JsonCoordinateSequence sequence = JsonParser.parseCoordinateSequence(newPair);
+
+                if (sequence != null)
+                    newPair.getValue().setValue(sequence, JsonValueType.COORDINATES);
+            }
+        } else if (newPair.getName().equalsIgnoreCase("geometry") && newPair.getValue().getType() == JsonValueType.OBJECT) {   
+            JsonObject    object    = newPair.getValueAsObject();
+            GeoJsonObject geoObject = JsonParser.parseGeometry(object);
+
+            if (geoObject != null)
+                newPair.getValue().setValue(geoObject, JsonValueType.forGeometry(geoObject));
+        }
+    }
+    
     /**
      * Returns if a given JsonObject is equal to this one.
      * 
@@ -119,27 +139,85 @@ public class JsonObject {
     }
     
     /**
-     * Searches this JsonObject for a JsonPair with a given name.
-     * If found that pair is returned, if not found, null is returned.
+     * Searches this JsonObject for a JsonPair with a given name, ignoring
+     * case.  If found that pair is returned, if not found, null is returned.
+     * If several pairs match the first one is returned.
      * 
      * @param name
      * @return 
      */
     public JsonPair getPairByName(String name) {
-        JsonPair returnPair = null;
+        PairIndex pairIndex;
+        int       i;
         
-        for (JsonPair pair: pairs) {
-            if (pair.getName().equalsIgnoreCase(name)) {
-                returnPair = pair;
-                break;
+        if (pairs.size() < INDEX_THRESHOLD) {
+            for (JsonPair pair: pairs) {
+                if (pair.getName().equalsIgnoreCase(name))
+                    return pair;
             }
+            
+            return null;
+        } else {
+            pairIndex = getIndex();
+            i         = pairIndex.find(pairs, name);
+            
+            return (i >= 0) ? pairs.get(i) : null;
         }
+    }
+    
+    /**
+     * Searches this JsonObject for a JsonPair with exactly the given name.
+     * Faster than getPairByName() for names read by the parser, which share
+     * the same String.
+     * 
+     * @param name
+     * @return 
+     */
+    public JsonPair getPairByExactName(String name) {
+        JsonPair pair;
+        int      i;
         
-        return returnPair;
+        if (pairs.size() >= INDEX_THRESHOLD) {
+            i = getIndex().find(pairs, name);
+            
+            if (i < 0)
+                return null;
+            
+            pair = pairs.get(i);
+            
+            //The index holds the first pair for each name ignoring case
+            if (pair.getName().equals(name))
+                return pair;
+        }
+        
+        for (JsonPair p: pairs) {
+            if (p.getName().equals(name))
+                return p;
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Returns the name index, building it if the pairs have been changed or
+     * renamed since it was last built.
+     * 
+     * @return 
+     */
+    private PairIndex getIndex() {
+        PairIndex current = index;
+        
+        if (current == null || current.modCount != pairs.getModCount()) {
+            current = new PairIndex(pairs);
+            index   = current;
+        }
+        
+        return current;
     }
     
     /**
      * Returns an ArrayList containing all the JsonPairs in this object.
+     * Changes made to the list are seen by this object.
      * 
      * @return 
      */
@@ -186,4 +264,156 @@ public class JsonObject {
         
         return sb.toString();
     }    
+    
+    /**
+     * The pair list, which also counts calls to set() and renames of its 
+     * pairs as modifications so the name index can tell when it is out of 
+     * date.  Pairs added to the list are told it holds them.
+     */
+    static class PairList extends ArrayList<JsonPair> {
+        private static final long serialVersionUID = 1L;
+        
+        int getModCount() {
+            return modCount;
+        }
+        
+        /**
+         * Called when a pair in this list is renamed.
+         */
+        void renamed() {
+            modCount++;
+        }
+        
+        @Override
+        public boolean add(JsonPair pair) {
+            pair.addOwner(this);
+            
+            return super.add(pair);
+        }
+        
+        @Override
+        public void add(int index, JsonPair pair) {
+            pair.addOwner(this);
+            super.add(index, pair);
+        }
+        
+        @Override
+        public boolean addAll(Collection<? extends JsonPair> pairs) {
+            for (JsonPair pair: pairs)
+                pair.addOwner(this);
+            
+            return super.addAll(pairs);
+        }
+        
+        @Override
+        public boolean addAll(int index, Collection<? extends JsonPair> pairs) {
+            for (JsonPair pair: pairs)
+                pair.addOwner(this);
+            
+            return super.addAll(index, pairs);
+        }
+        
+        @Override
+        public JsonPair set(int index, JsonPair pair) {
+            pair.addOwner(this);
+            modCount++;
+            
+            return super.set(index, pair);
+        }
+    }
+    
+    /**
+     * Returns a hash of a name that is the same for names that are equal
+     * ignoring case, for tables looked up with equalsIgnoreCase().
+     * 
+     * @param name
+     * @return 
+     */
+    static int foldedHash(String name) {
+        char c;
+        int  hash = 0;
+        
+        for (int i = 0; i < name.length(); i++) {
+            c = name.charAt(i);
+            
+            if (c < 128) {
+                if (c >= 'A' && c <= 'Z')
+                    c += 32;
+            } else {
+                c = Character.toLowerCase(Character.toUpperCase(c));
+            }
+            
+            hash = 31 * hash + c;
+        }
+        
+        return hash ^ (hash >>> 16);
+    }
+    
+    /**
+     * An open addressing table from case folded name hashes to pair 
+     * indexes.  Only the first pair for each name, ignoring case, is kept.
+     * The fields are final so an index built by one thread can be used by 
+     * others.
+     */
+    private static final class PairIndex {
+        final int   mask, modCount;
+        final int[] slots;
+        
+        /**
+         * Builds the index for a list of pairs.
+         * 
+         * @param pairs 
+         */
+        PairIndex(PairList pairs) {
+            int capacity, slot;
+            
+            capacity = Integer.highestOneBit(pairs.size() * 2 - 1) << 1;
+            
+            this.mask     = capacity - 1;
+            this.modCount = pairs.getModCount();
+            this.slots    = new int[capacity];
+            
+            for (int i = 0; i < pairs.size(); i++) {
+                slot = findSlot(pairs, pairs.get(i).getName());
+                
+                if (slots[slot] == 0)
+                    slots[slot] = i + 1;
+            }
+        }
+        
+        /**
+         * Returns the index of the first pair named the given name ignoring
+         * case, or -1 if there is none.
+         * 
+         * @param pairs
+         * @param name
+         * @return 
+         */
+        int find(PairList pairs, String name) {
+            return slots[findSlot(pairs, name)] - 1;
+        }
+        
+        /**
+         * Returns the slot holding the given name, or the empty slot where it
+         * would be added.
+         * 
+         * @param pairs
+         * @param name
+         * @return 
+         */
+        private int findSlot(PairList pairs, String name) {
+            int entry, slot;
+            
+            slot = foldedHash(name) & mask;
+            
+            while ((entry = slots[slot]) != 0) {
+                if (pairs.get(entry - 1).getName().equalsIgnoreCase(name))
+                    return slot;
+                
+                slot = (slot + 1) & mask;
+            }
+            
+            return slot;
+        }
+    }
 }
@@ -16,11 +16,16 @@
  */
 package co.scarletshark.geojson;
 
+import java.util.Arrays;
+
 /**
  *
  * @author Alec
  */
 public class JsonPair {
+    /** The pair lists holding this pair, one PairList or an array of them. */
+    private Object owners;
+    
     protected JsonValue value;
     protected String    name;
     
@@ -47,7 +52,7 @@ public class JsonPair {
      */
     public JsonPair(String name, boolean value) {
         this.name  = name;
-        this.value = new JsonValue(new Boolean(value), JsonValue.BOOLEAN);
+        this.value = new JsonValue(Boolean.valueOf(value), JsonValueType.BOOLEAN);
     }      
     
     /**
@@ -57,7 +62,7 @@ public class JsonPair {
      */
     public JsonPair(String name, double value) {
         this.name  = name;
-        this.value = new JsonValue(new Double(value), JsonValue.NUMBER);
+        this.value = new JsonValue(value);
     }     
     
     /**
@@ -77,7 +82,7 @@ public class JsonPair {
      */
     public JsonPair(String name, String value) {
         this.name  = name;
-        this.value = new JsonValue(value, JsonValue.STRING);
+        this.value = new JsonValue(value, JsonValueType.STRING);
     }                
     
     /**
@@ -87,16 +92,7 @@ public class JsonPair {
      */
     public JsonPair(String name, GeoJsonObject value) {
         this.name  = name;
-        
-        if (value instanceof JsonPoint) {
-            this.value = new JsonValue(value, JsonValue.POINT);
-        } else if (value instanceof JsonLineString) {
-            this.value = new JsonValue(value, JsonValue.LINESTRING);
-        } else if (value instanceof JsonPolygon) {
-            this.value = new JsonValue(value, JsonValue.POLYGON); 
-        } else {
-            this.value = new JsonValue(value, JsonValue.OBJECT);
-        }
+        this.value = new JsonValue(value, JsonValueType.forGeometry(value));
     }    
     
     /**
@@ -106,7 +102,7 @@ public class JsonPair {
      */
     public JsonPair(String name, JsonObject value) {
         this.name  = name;
-        this.value = new JsonValue(value, JsonValue.OBJECT);
+        this.value = new JsonValue(value, JsonValueType.OBJECT);
     }        
     
     /**
@@ -117,7 +113,7 @@ public class JsonPair {
      */
     public JsonPair(String name, JsonCoordinate value) {
         this.name  = name;
-        this.value = new JsonValue(value, JsonValue.COORDINATES);
+        this.value = new JsonValue(value, JsonValueType.COORDINATES);
     }     
     
     /**
@@ -128,7 +124,7 @@ public class JsonPair {
      */
     public JsonPair(String name, JsonCoordinate[] value) {
         this.name  = name;
-        this.value = new JsonValue(value, JsonValue.COORDINATES);
+        this.value = new JsonValue(value, JsonValueType.COORDINATES);
     }       
     
     /**
@@ -138,9 +134,19 @@ public class JsonPair {
      */
     public JsonPair(String name, Object[] value) {
         this.name  = name;
-        this.value = new JsonValue(value, JsonValue.ARRAY);
+        this.value = new JsonValue(value, JsonValueType.ARRAY);
     }        
     
+    /**
+     * Returns a hash code for this pair from its name and value.
+     * 
+     * @return 
+     */
+    @Override
+    public int hashCode() {
+        return 31 * name.hashCode() + value.hashCode();
+    }
+    
     @Override
     public boolean equals(Object obj) {
         JsonPair pair;
@@ -187,7 +193,7 @@ public class JsonPair {
      * @return 
      */
     public Object[] getValueAsArray() {
-        if (value.getValueType().equalsIgnoreCase(JsonValue.ARRAY)) {
+        if (value.getType() == JsonValueType.ARRAY) {
             return (Object[]) value.getValue();
         } else {
             return new Object[0]; 
@@ -201,7 +207,7 @@ public class JsonPair {
      * @return 
      */
     public JsonObject getValueAsObject() {
-        if (value.getValueType().equalsIgnoreCase(JsonValue.OBJECT)) {
+        if (value.getType() == JsonValueType.OBJECT) {
             return (JsonObject) value.getValue();
         } else {
             return new JsonObject();
@@ -217,7 +223,7 @@ public class JsonPair {
      * @return 
      */
     public String getValueAsString() {
-        if (value.getValueType().equalsIgnoreCase(JsonValue.STRING)) {
+        if (value.getType() == JsonValueType.STRING) {
             return (String) value.getValue();
         } else {
             return value.getValue().toString();
@@ -226,13 +232,48 @@ public class JsonPair {
     }      
     
     /**
-     * Sets the Name for this pair.
+     * Sets the Name for this pair.  Renaming a pair makes the name index 
+     * of each JsonObject holding it rebuild on its next lookup.
      * @param name 
      */
     public void setName(String name) {
-        this.name    = name;
+        this.name = name;
+        
+        if (owners instanceof JsonObject.PairList) {
+            ((JsonObject.PairList) owners).renamed();
+        } else if (owners != null) {
+            for (JsonObject.PairList owner: (JsonObject.PairList[]) owners)
+                owner.renamed();
+        }
     }    
     
+    /**
+     * Records that this pair has been added to a pair list.  Most pairs are
+     * only ever in one list, so the array is only made for shared pairs.
+     * 
+     * @param list 
+     */
+    void addOwner(JsonObject.PairList list) {
+        JsonObject.PairList[] lists;
+        
+        if (owners == null || owners == list) {
+            owners = list;
+        } else if (owners instanceof JsonObject.PairList) {
+            owners = new JsonObject.PairList[] {(JsonObject.PairList) owners, list};
+        } else {
+            lists = (JsonObject.PairList[]) owners;
+            
+            for (JsonObject.PairList owner: lists) {
+                if (owner == list)
+                    return;
+            }
+            
+            lists                   = Arrays.copyOf(lists, lists.length + 1);
+            lists[lists.length - 1] = list;
+            owners                  = lists;
+        }
+    }
+    
     /**
      * Sets the Value for this pair.
      * 
@@ -0,0 +1,64 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import java.io.IOException;
+
+/**
+ * Thrown when JSON text cannot be parsed.  Records the offset into the
+ * source at which the problem was found.
+ *
+ * @author Alec Dhuse
+ */
+public class JsonParseException extends IOException {
+    private static final long serialVersionUID = 1L;
+    
+    private long   offset;
+    private String reason;
+
+    /**
+     * Creates a new exception with a message and the source offset the
+     * error occurred at.
+     *
+     * @param message
+     * @param offset
+     */
+    public JsonParseException(String message, long offset) {
+        super(message + " at offset " + offset);
+
+        this.offset = offset;
+        this.reason = message;
+    }
+
+    /**
+     * Returns the offset into the source where the error was found.
+     *
+     * @return
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Returns the description of the error without its offset.
+     *
+     * @return
+     */
+    public String getReason() {
+        return reason;
+    }
+}
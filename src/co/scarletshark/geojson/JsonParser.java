@@ -16,10 +16,12 @@
  */
 package co.scarletshark.geojson;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 
 /**
@@ -30,107 +32,191 @@ public class JsonParser {
     
     /**
      * Returns the root JSON object parsed from the given file.
+     * The file is read as UTF-8, as required by RFC 7946.
      * 
      * @param file
      * @return
      * @throws IOException 
      */
     public static JsonObject parseFile(File file) throws IOException {
-        BufferedReader  br;
-        FileReader      fileReader;
-        JsonObject      jsonObject;
-        StringBuilder   text;
-        
-        fileReader = new FileReader(file);
-        br         = new BufferedReader(fileReader);
-        text       = new StringBuilder();
-                
-        while (br.ready()) {
-            text.append(br.readLine());
-            text.append("\n");
-        }        
+        ReaderCursor cursor;
         
-        jsonObject = parseObject(text.toString());
-                
-        return jsonObject;
+        cursor = new ReaderCursor(new InputStreamReader(new FileInputStream(file), ByteCursor.UTF8));
+        
+        try {
+            return parseObject(cursor, false, null, "parseFile(File)");
+        } finally {
+            cursor.close();
+        }
+    }
+    
+    /**
+     * Returns the root JSON object parsed from a gzip or deflate compressed
+     * file, such as a .geojson.gz file.  The file is decompressed on its own
+     * thread while it is parsed, so the two overlap.
+     * 
+     * @param file
+     * @return
+     * @throws IOException 
+     */
+    public static JsonObject parseCompressedFile(File file) throws IOException {
+        ReaderCursor cursor;
+        
+        cursor = new ReaderCursor(new InputStreamReader(PipelinedInputStream.openCompressed(file), ByteCursor.UTF8));
+        
+        try {
+            return parseObject(cursor, false, null, "parseCompressedFile(File)");
+        } finally {
+            cursor.close();
+        }
+    }
+    
+    /**
+     * Returns the root JSON object parsed from the given file by mapping it
+     * into memory and reading the UTF-8 bytes directly.  The text of the file
+     * is never decoded as a whole; only names and string values are.
+     * 
+     * Files too large to map in one piece are read as with parseFile(File).
+     * 
+     * @param file
+     * @return
+     * @throws IOException 
+     */
+    public static JsonObject parseMappedFile(File file) throws IOException {
+        return parseMappedFile(file, false, null, "parseMappedFile(File)");
+    }
+    
+    /**
+     * Returns the root JSON object of the given file, mapped into memory as
+     * with parseMappedFile(File), keeping only the selected pairs.  All 
+     * other pairs are skipped without being parsed.
+     * 
+     * @param file
+     * @param fields
+     * @return
+     * @throws IOException 
+     */
+    public static JsonObject parseMappedFile(File file, FieldSelection fields) throws IOException {
+        return parseMappedFile(file, false, fields, "parseMappedFile(File, FieldSelection)");
+    }
+    
+    /**
+     * Returns the root JSON object of the given file, mapped into memory as
+     * with parseMappedFile(File), without parsing the object and array 
+     * values of its pairs.  Each such value is parsed the first time it is 
+     * used, so reading a few fields of a large document only parses those 
+     * fields.  The file must not be changed while the object is in use.
+     * 
+     * Files too large to map in one piece are parsed in full.
+     * 
+     * @param file
+     * @return
+     * @throws IOException 
+     */
+    public static JsonObject parseMappedFileLazily(File file) throws IOException {
+        return parseMappedFile(file, true, null, "parseMappedFileLazily(File)");
+    }
+    
+    /**
+     * Maps a file into memory and parses its root object.
+     * 
+     * @param file
+     * @param lazy
+     * @param fields    The pairs to keep, null for all.
+     * @param caller    The name of the public method, used for error messages.
+     * @return
+     * @throws IOException 
+     */
+    private static JsonObject parseMappedFile(File file, boolean lazy, FieldSelection fields, String caller) throws IOException {
+        FileChannel      channel;
+        FileInputStream  in;
+        MappedByteBuffer buffer;
+        
+        in = new FileInputStream(file);
+        
+        try {
+            channel = in.getChannel();
+            
+            if (channel.size() > Integer.MAX_VALUE) {
+                return parseObject(new ReaderCursor(new InputStreamReader(in, ByteCursor.UTF8)), false, fields, caller);
+            } else {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                return parseObject(new ByteCursor(buffer), lazy, fields, caller);
+            }
+        } finally {
+            in.close();
+        }
     }
     
     /**
      * Parses a JSON object from the given text.
      * 
+     * The text may either be a complete object, including its braces, or the
+     * comma separated pairs of an object without them.
+     * 
      * @param text
      * @return 
      */
     public static JsonObject parseObject(String text) {
-        char            nextChar;
-        JsonObject      object;
-        JsonPair        pair;
-        SmartTokenizer  st;
-        String          pairName, stringValue;
-        String          objectContent;
-        
-        st     = new SmartTokenizer(text.toString());
-        object = new JsonObject();
-        
-        if (text.startsWith("{")) {        
-            objectContent = st.getContent('{', '}');    
-            st            = new SmartTokenizer(objectContent);
-        }                
-        
-        while (st.hasMore()) {
-            //Get the name of the next pair
-            pairName = st.getContent('"');
-            pair     = new JsonPair(pairName);
-
-            st.jumpAfterChar(':');
-            nextChar = st.getNextChar();
-
-            if (nextChar == 0) {
-                //blank char, do nothing
-            } else if (nextChar == '"') {
-                stringValue = st.getContent('"');
-                pair.setValue(new JsonValue(stringValue, JsonValue.STRING));
-                object.addPair(pair);            
-            } else if (nextChar == '{') {
-                stringValue    = st.getContent('{', '}');  
-                JsonObject obj = parseObject(stringValue);
-                pair.setValue(new JsonValue(obj, JsonValue.OBJECT));
-                object.addPair(pair); 
-            } else if (nextChar == '[') {
-                stringValue = st.getContent('[', ']');  
-                Object[] objArray = parseArray(stringValue);
-                pair.setValue(new JsonValue(objArray, JsonValue.ARRAY));
-                object.addPair(pair); 
+        return parseObject(new CharCursor(text.toCharArray()), false, null, "parseObject(String)");
+    }
+    
+    /**
+     * Parses a JSON object from the given text, keeping only the selected 
+     * pairs.  All other pairs are skipped over without being parsed.
+     * 
+     * @param text
+     * @param fields
+     * @return 
+     */
+    public static JsonObject parseObject(String text, FieldSelection fields) {
+        return parseObject(new CharCursor(text.toCharArray()), false, fields, "parseObject(String, FieldSelection)");
+    }
+    
+    /**
+     * Parses a JSON object from the given text without parsing the object 
+     * and array values of its pairs.  Each such value is kept as a range of
+     * the text and parsed the first time it is used, after which the result
+     * is cached.  Objects within a parsed value are read the same way.
+     * 
+     * @param text
+     * @return 
+     */
+    public static JsonObject parseObjectLazily(String text) {
+        return parseObject(new CharCursor(text.toCharArray()), true, null, "parseObjectLazily(String)");
+    }
+    
+    /**
+     * Parses the root object from a cursor.  If the input is malformed, the
+     * error is reported and the pairs read before it are returned.
+     * 
+     * @param cursor
+     * @param lazy      If true, object and array values are parsed when used.
+     * @param fields    The pairs to keep, null for all.
+     * @param caller    The name of the public method, used for error messages.
+     * @return 
+     */
+    private static JsonObject parseObject(JsonCursor cursor, boolean lazy, FieldSelection fields, String caller) {
+        JsonObject object = new JsonObject();
+        int        endChar;
+        
+        cursor.keys = new KeyDictionary();
+        
+        try {
+            if (cursor.peek() == '{') {
+                cursor.skip();
+                endChar = '}';
             } else {
-                //number or boolean
-                stringValue = st.getTextTo(',');
-
-                if (stringValue.isEmpty()) {
-                    //empty string, do nothing
-                } else if (stringValue.equalsIgnoreCase("true") ||
-                    stringValue.equalsIgnoreCase("false")) {
-
-                    Boolean boolVal = Boolean.parseBoolean(stringValue);
-                    pair.setValue(new JsonValue(boolVal, JsonValue.BOOLEAN));
-                    object.addPair(pair); 
-                } else if (stringValue.equalsIgnoreCase("null")) {
-                    pair.setValue(new JsonValue("null", JsonValue.NULL));
-                    object.addPair(pair); 
-                } else {
-                    //Number
-                    Double dblVal;
-                    
-                    try {
-                        dblVal = Double.parseDouble(stringValue);
-                    } catch (Exception e) {
-                        dblVal = new Double(0);
-                        System.out.println("Error in JsonParser.parseObject(String) - " + e);
-                    }
-                    
-                    pair.setValue(new JsonValue(dblVal, JsonValue.NUMBER));
-                    object.addPair(pair); 
-                }
+                endChar = -1;
+            }
+            
+            if (fields == null) {
+                readMembers(cursor, object, endChar, lazy);
+            } else {
+                readSelectedMembers(cursor, object, endChar, fields);
             }
+        } catch (IOException e) {
+            System.err.println("Error in JsonParser." + caller + " - " + e);
         }
         
         return object;
@@ -139,68 +225,370 @@ public class JsonParser {
     /**
      * Parses a JSON array from the given text.
      * 
+     * The text may either be a complete array, including its brackets, or 
+     * the comma separated values of an array without them.
+     * 
      * @param text
      * @return 
      */
     public static Object[] parseArray(String text) {
-        ArrayList<Object> values;
-        char              nextChar;
-        SmartTokenizer    st;
-        String            objectArray, stringValue;
+        ArrayList<Object> values = new ArrayList<Object>();
+        JsonCursor        cursor = new CharCursor(text.toCharArray());
+        
+        cursor.keys = new KeyDictionary();
+        
+        try {
+            if (cursor.peek() == '[') {
+                cursor.skip();
+                readElements(cursor, values, ']', false);
+            } else {
+                readElements(cursor, values, -1, false);
+            }
+        } catch (IOException e) {
+            System.err.println("Error in JsonParser.parseArray(String) - " + e);
+        }
+        
+        return values.toArray();
+    }
+    
+    /**
+     * Reads the object starting at the cursor.
+     * 
+     * @param cursor
+     * @param lazy      If true, object and array values of pairs are not 
+     *                  parsed until they are used.
+     * @return
+     * @throws IOException 
+     */
+    static JsonObject readObject(JsonCursor cursor, boolean lazy) throws IOException {
+        JsonObject object = new JsonObject();
+        
+        cursor.expect('{');
+        readMembers(cursor, object, '}', lazy);
+        
+        return object;
+    }
+    
+    /**
+     * Reads pairs into an object until the end char is reached.  The cursor
+     * must be positioned after the object's opening brace.
+     * 
+     * @param cursor
+     * @param object
+     * @param endChar   The char that closes the object, -1 for end of input.
+     * @param lazy      If true, object and array values are not parsed until
+     *                  they are used.
+     * @throws IOException 
+     */
+    static void readMembers(JsonCursor cursor, JsonObject object, int endChar, boolean lazy) throws IOException {
+        int    nextChar;
+        String pairName;
         
-        st     = new SmartTokenizer(text.toString());
-        values = new ArrayList<Object>();
+        nextChar = cursor.peek();
         
-        if (text.startsWith("[") && text.endsWith("]")) {        
-            objectArray = st.getContent('[', ']');    
-            st          = new SmartTokenizer(objectArray);
-        }                
+        while (nextChar != endChar) {
+            if (nextChar != '"')
+                throw cursor.error("Expected pair name");
+            
+            pairName = cursor.readName();
+            cursor.expect(':');
+            
+            if (lazy) {
+                object.addPair(new JsonPair(pairName, readLazyPairValue(cursor, pairName)));
+            } else {
+                object.addPair(new JsonPair(pairName, readPairValue(cursor, pairName, false)));
+            }
+            
+            
+            nextChar = cursor.peek();
+            
+            if (nextChar == ',') {
+                cursor.skip();
+                nextChar = cursor.peek();
+            } else if (nextChar != endChar) {
+                throw cursor.error("Expected ',' or '}'");
+            }
+        }
         
-        while (st.hasMore()) {
-            nextChar = st.getNextChar();
+        if (endChar >= 0)
+            cursor.skip();
+    }
+    
+    /**
+     * Reads the selected pairs of an object until the end char is reached, 
+     * skipping the others.  The cursor must be positioned after the object's
+     * opening brace.
+     * 
+     * @param cursor
+     * @param object
+     * @param endChar   The char that closes the object, -1 for end of input.
+     * @param fields    The pairs to keep.
+     * @throws IOException 
+     */
+    static void readSelectedMembers(JsonCursor cursor, JsonObject object, int endChar, FieldSelection fields) throws IOException {
+        FieldSelection pairFields;
+        int            nextChar;
+        String         pairName;
+        
+        nextChar = cursor.peek();
+        
+        while (nextChar != endChar) {
+            if (nextChar != '"')
+                throw cursor.error("Expected pair name");
+            
+            pairName   = cursor.readName();
+            pairFields = fields.get(pairName);
+            cursor.expect(':');
             
-            if (nextChar == '"') {
-                stringValue = st.getContent('"');
-                values.add(stringValue);  
-                st.jumpAfterChar(',');
-            } else if (nextChar == '{') {
-                stringValue    = st.getContent('{', '}');  
-                JsonObject obj = parseObject(stringValue);
-                values.add(obj);   
-                st.jumpAfterChar(',');
-            } else if (nextChar == '[') {
-                stringValue = st.getContent('[', ']');  
-                Object[] objArray = parseArray(stringValue);
-                values.add(objArray); 
-                st.jumpAfterChar(',');
+            if (pairFields == null) {
+                cursor.skipValue();
+            } else if (pairFields.isAll()) {
+                object.addPair(new JsonPair(pairName, readPairValue(cursor, pairName, false)));
             } else {
-                //number or boolean
-                stringValue = st.getTextTo(',');
-
-                if (stringValue.equalsIgnoreCase("true") ||
-                    stringValue.equalsIgnoreCase("false")) {
+                object.addPair(new JsonPair(pairName, readSelectedValue(cursor, pairFields)));
+            }
+            
+            nextChar = cursor.peek();
+            
+            if (nextChar == ',') {
+                cursor.skip();
+                nextChar = cursor.peek();
+            } else if (nextChar != endChar) {
+                throw cursor.error("Expected ',' or '}'");
+            }
+        }
+        
+        if (endChar >= 0)
+            cursor.skip();
+    }
+    
+    /**
+     * Reads a value keeping only the selected pairs of the objects in it.
+     * Objects in arrays have the same selection applied.
+     * 
+     * @param cursor
+     * @param fields
+     * @return
+     * @throws IOException 
+     */
+    static JsonValue readSelectedValue(JsonCursor cursor, FieldSelection fields) throws IOException {
+        int nextChar = cursor.peek();
+        
+        if (nextChar == '{') {
+            return new JsonValue(readSelectedElement(cursor, fields), JsonValueType.OBJECT);
+        } else if (nextChar == '[') {
+            return new JsonValue(readSelectedElement(cursor, fields), JsonValueType.ARRAY);
+        } else {
+            return readValue(cursor, false);
+        }
+    }
+    
+    /**
+     * Reads an array element keeping only the selected pairs of the objects
+     * in it.
+     * 
+     * @param cursor
+     * @param fields
+     * @return
+     * @throws IOException 
+     */
+    static Object readSelectedElement(JsonCursor cursor, FieldSelection fields) throws IOException {
+        ArrayList<Object> values;
+        JsonObject        object;
+        int               nextChar;
+        
+        nextChar = cursor.peek();
+        
+        if (nextChar == '{') {
+            object = new JsonObject();
+            cursor.skip();
+            readSelectedMembers(cursor, object, '}', fields);
+            
+            return object;
+        } else if (nextChar == '[') {
+            values = new ArrayList<Object>();
+            cursor.skip();
+            nextChar = cursor.peek();
+            
+            while (nextChar != ']') {
+                values.add(readSelectedElement(cursor, fields));
+                nextChar = cursor.peek();
 
-                    Boolean boolVal = Boolean.parseBoolean(stringValue);
-                    values.add(boolVal); 
-                } else if (stringValue.equalsIgnoreCase("null")) {
-                    values.add("null");     
-                } else {
-                    //Number
-                    Double dblVal;
-                    
-                    try {
-                        dblVal = Double.parseDouble(stringValue);                        
-                    } catch (Exception e) {
-                        dblVal = new Double(0);
-                        System.out.println("Error in JsonParser.parseArray(String) - " + e);
-                    }
-                    
-                    values.add(dblVal); 
+                if (nextChar == ',') {
+                    cursor.skip();
+                    nextChar = cursor.peek();
+                } else if (nextChar != ']') {
+                    throw cursor.error("Expected ',' or ']'");
                 }
-            }                             
+            }
+            
+            cursor.skip();
+            
+            return values.toArray();
+        } else {
+            return readElement(cursor, false);
+        }
+    }
+    
+    /**
+     * Reads the array starting at the cursor.
+     * 
+     * @param cursor
+     * @param lazy      If true, objects in the array are read lazily.
+     * @return
+     * @throws IOException 
+     */
+    static Object[] readArray(JsonCursor cursor, boolean lazy) throws IOException {
+        ArrayList<Object> values = cursor.acquireList();
+        
+        try {
+            cursor.expect('[');
+            readElements(cursor, values, ']', lazy);
+        
+            return values.toArray();
+        } finally {
+            cursor.releaseList();
         }
+    }
+    
+    /**
+     * Reads values into a list until the end char is reached.  The cursor
+     * must be positioned after the array's opening bracket.
+     * 
+     * @param cursor
+     * @param values
+     * @param endChar   The char that closes the array, -1 for end of input.
+     * @param lazy      If true, objects in the array are read lazily.
+     * @throws IOException 
+     */
+    static void readElements(JsonCursor cursor, ArrayList<Object> values, int endChar, boolean lazy) throws IOException {
+        int nextChar = cursor.peek();
         
-        return values.toArray();
+        while (nextChar != endChar) {
+            values.add(readElement(cursor, lazy));
+            
+            nextChar = cursor.peek();
+            
+            if (nextChar == ',') {
+                cursor.skip();
+                nextChar = cursor.peek();
+            } else if (nextChar != endChar) {
+                throw cursor.error("Expected ',' or ']'");
+            }
+        }
+        
+        if (endChar >= 0)
+            cursor.skip();
+    }
+    
+    /**
+     * Reads an array element starting at the cursor.
+     * 
+     * @param cursor
+     * @param lazy      If true, objects are read lazily.
+     * @return
+     * @throws IOException 
+     */
+    static Object readElement(JsonCursor cursor, boolean lazy) throws IOException {
+        int nextChar = cursor.peek();
+        
+        if (nextChar == '"') {
+            return cursor.readString();
+        } else if (nextChar == '{') {
+            return readObject(cursor, lazy);
+        } else if (nextChar == '[') {
+            return readArray(cursor, lazy);
+        } else if (cursor.readLiteral("true")) {
+            return Boolean.TRUE;
+        } else if (cursor.readLiteral("false")) {
+            return Boolean.FALSE;
+        } else if (cursor.readLiteral("null")) {
+            return "null";
+        } else {
+            return new Double(cursor.readNumber());
+        }
+    }
+    
+    /**
+     * Reads a coordinates array starting at the cursor directly into a 
+     * packed JsonCoordinateSequence.
+     * 
+     * @param cursor
+     * @return
+     * @throws IOException 
+     */
+    static JsonValue readCoordinates(JsonCursor cursor) throws IOException {
+        return new JsonValue(cursor.getCoordinateBuilder().read(cursor), JsonValueType.COORDINATES);
+    }
+    
+    /**
+     * Returns the value of the named pair starting at the cursor without 
+     * parsing it if it is an object or array.  Such values are skipped and
+     * returned as a LazyJsonValue holding their range of the input.
+     * 
+     * @param cursor
+     * @param pairName
+     * @return
+     * @throws IOException 
+     */
+    static JsonValue readLazyPairValue(JsonCursor cursor, String pairName) throws IOException {
+        int  nextChar = cursor.peek();
+        long start;
+        
+        if (nextChar == '{' || nextChar == '[') {
+            start = cursor.position();
+            cursor.skipValue();
+            
+            return new LazyJsonValue(cursor, start, cursor.position(), pairName);
+        } else {
+            return readValue(cursor, true);
+        }
+    }
+    
+    /**
+     * Reads the value of the named pair starting at the cursor.  
+     * Coordinates arrays are read into a JsonCoordinateSequence.
+     * 
+     * @param cursor
+     * @param pairName
+     * @param lazy      If true, objects within the value are read lazily.
+     * @return
+     * @throws IOException 
+     */
+    static JsonValue readPairValue(JsonCursor cursor, String pairName, boolean lazy) throws IOException {
+        if (pairName.equalsIgnoreCase("coordinates") && cursor.peek() == '[') {
+            return readCoordinates(cursor);
+        } else {
+            return readValue(cursor, lazy);
+        }
+    }
+    
+    /**
+     * Reads the value of a pair starting at the cursor.
+     * 
+     * @param cursor
+     * @param lazy      If true, objects within the value are read lazily.
+     * @return
+     * @throws IOException 
+     */
+    static JsonValue readValue(JsonCursor cursor, boolean lazy) throws IOException {
+        int nextChar = cursor.peek();
+        
+        if (nextChar == '"') {
+            return new JsonValue(cursor.readString(), JsonValueType.STRING);
+        } else if (nextChar == '{') {
+            return new JsonValue(readObject(cursor, lazy), JsonValueType.OBJECT);
+        } else if (nextChar == '[') {
+            return new JsonValue(readArray(cursor, lazy), JsonValueType.ARRAY);
+        } else if (cursor.readLiteral("true")) {
+            return new JsonValue(Boolean.TRUE, JsonValueType.BOOLEAN);
+        } else if (cursor.readLiteral("false")) {
+            return new JsonValue(Boolean.FALSE, JsonValueType.BOOLEAN);
+        } else if (cursor.readLiteral("null")) {
+            return new JsonValue("null", JsonValueType.NULL);
+        } else {
+            return new JsonValue(cursor.readNumber());
+        }
     }
     
     /**
@@ -216,7 +604,7 @@ public class JsonParser {
         if (newPair.getName().equalsIgnoreCase("bbox")) {  
             JsonValue bboxVal = newPair.getValue();
 
-            if (bboxVal.getValueType().equalsIgnoreCase(JsonValue.ARRAY)) {
+            if (bboxVal.getType() == JsonValueType.ARRAY) {
                 
                 Object[] array = (Object[]) bboxVal.getValue();
 
@@ -247,7 +635,33 @@ public class JsonParser {
     
     /**
      * Reads a JsonPair with a name equaling "coordinates" and an array value
-     * to a JsonCoordinate object array.
+     * to a JsonCoordinateSequence.  Every ring and part of the array is kept.
+     * Returns null if the pair does not hold a coordinates array.
+     * 
+     * @param newPair
+     * @return 
+     */
+    public static JsonCoordinateSequence parseCoordinateSequence(JsonPair newPair) {
+        JsonValue value;
+        
+        try {
+            if (newPair.getName().equalsIgnoreCase("coordinates")) {           
+                value = newPair.getValue();
+
+                if (value.getType() == JsonValueType.ARRAY)
+                    return new CoordinateSequenceBuilder().read((Object[]) value.getValue());
+            }
+        } catch (Exception e) {
+            System.err.println("Error in JsonParser.parseCoordinateSequence(JsonPair) - " + e);
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Reads a JsonPair with a name equaling "coordinates" and an array value
+     * to a JsonCoordinate object array.  Only the first ring of nested arrays
+     * is returned, use parseCoordinateSequence(JsonPair) to keep them all.
      * 
      * @param newPair
      * @return 
@@ -261,7 +675,7 @@ public class JsonParser {
             if (newPair.getName().equalsIgnoreCase("coordinates")) {           
                 value = newPair.getValue();
 
-                if (value.getValueType().equals(JsonValue.ARRAY)) {
+                if (value.getType() == JsonValueType.ARRAY) {
                     array = ((Object[]) value.getValue());
 
                     for (Object obj: array) {
@@ -321,44 +735,124 @@ public class JsonParser {
     /**
      * Reads a JsonObject containing geometry and returns a GeoJsonObject 
      * biased on what type of geometry is contained in the object.
+     * Returns null, and reports the error, if the geometry is not valid.
      * @param object
      * @return 
      */
     public static GeoJsonObject parseGeometry(JsonObject object) {
-        GeoJsonObject geoObject  = null;                        
-            
         try {
-            if (object.getPairs().size() > 0) {
-                JsonPair pair = object.getPair(0);
-
-                if (pair.getValueAsString().equalsIgnoreCase("Point")) {
-                    pair = object.getPair(1);
-
-                    if (pair.getValue().getValueType().equalsIgnoreCase(JsonValue.COORDINATES)) {
-                        if (pair.getValue().getValue() instanceof JsonCoordinate) {
-                            JsonCoordinate[] cArr = new JsonCoordinate[1];        
-                            cArr[0] = (JsonCoordinate) pair.getValue().getValue();   
-                            geoObject = new JsonPoint(cArr);
-                        } else {
-                            geoObject = new JsonPoint((JsonCoordinate[]) pair.getValue().getValue());
-                        }
-                    }
-                } else if (pair.getValueAsString().equalsIgnoreCase("LineString")) {
-                    pair = object.getPair(1);      
-
-                    if (pair.getValue().getValueType().equalsIgnoreCase(JsonValue.COORDINATES)) 
-                        geoObject = new JsonLineString((JsonCoordinate[]) pair.getValue().getValue());
-                } else if (pair.getValueAsString().equalsIgnoreCase("Polygon")) {
-                    pair = object.getPair(1);      
-
-                    if (pair.getValue().getValueType().equalsIgnoreCase(JsonValue.COORDINATES)) 
-                        geoObject = new JsonPolygon((JsonCoordinate[]) pair.getValue().getValue());
-                }    
-            }
-        } catch (Exception e) {
+            return readGeometry(object);
+        } catch (RuntimeException e) {
             System.err.println("Error in JsonParser.parseGeometry(JsonObject) - " + e);
+            return null;
+        }
+    }
+    
+    /**
+     * Reads a JsonObject containing geometry and returns a GeoJsonObject 
+     * biased on what type of geometry is contained in the object.  Returns
+     * null if the object is not a known geometry type.
+     * 
+     * @param object
+     * @return 
+     * @throws IllegalArgumentException if the geometry is not valid, such as
+     *                                  coordinates nested to the wrong depth.
+     */
+    static GeoJsonObject readGeometry(JsonObject object) {
+        GeoJsonObject geoObject   = null;
+        JsonPair      type        = object.getPairByName("type");
+        JsonPair      coordinates = object.getPairByName("coordinates");
+        JsonPair      geometries  = object.getPairByName("geometries");
+        String        typeName;
+            
+        //Members may come in any order, so they are found by name
+        if (type != null) {
+            typeName = type.getValueAsString();
+            
+            if (coordinates != null && coordinates.getValue().getType() == JsonValueType.COORDINATES) {
+                if (typeName.equalsIgnoreCase("Point")) {
+                    geoObject = new JsonPoint(toCheckedCoordinateSequence(coordinates.getValue(), 0));
+                } else if (typeName.equalsIgnoreCase("LineString")) {
+                    geoObject = new JsonLineString(toCheckedCoordinateSequence(coordinates.getValue(), 1));
+                } else if (typeName.equalsIgnoreCase("Polygon")) {
+                    geoObject = new JsonPolygon(toCheckedCoordinateSequence(coordinates.getValue(), 2));
+                } else if (typeName.equalsIgnoreCase("MultiPoint")) {
+                    geoObject = new JsonMultiPoint(toCheckedCoordinateSequence(coordinates.getValue(), 1));
+                } else if (typeName.equalsIgnoreCase("MultiLineString")) {
+                    geoObject = new JsonMultiLineString(toCheckedCoordinateSequence(coordinates.getValue(), 2));
+                } else if (typeName.equalsIgnoreCase("MultiPolygon")) {
+                    geoObject = new JsonMultiPolygon(toCheckedCoordinateSequence(coordinates.getValue(), 3));
+                }
+            } else if (geometries != null && geometries.getValue().getType() == JsonValueType.ARRAY) {
+                if (typeName.equalsIgnoreCase("GeometryCollection"))
+                    geoObject = parseGeometryCollection((Object[]) geometries.getValue().getValue());
+            }
         }
         
         return geoObject;
     }    
+    
+    /**
+     * Creates a GeometryCollection from the objects of a "geometries" array.
+     * 
+     * @param array
+     * @return 
+     */
+    private static JsonGeometryCollection parseGeometryCollection(Object[] array) {
+        GeoJsonObject[] geometries = new GeoJsonObject[array.length];
+        
+        for (int i = 0; i < array.length; i++) {
+            if (array[i] instanceof JsonObject)
+                geometries[i] = readGeometry((JsonObject) array[i]);
+            
+            if (geometries[i] == null)
+                throw new IllegalArgumentException("Geometry " + i + " of the GeometryCollection is not valid");
+        }
+        
+        return new JsonGeometryCollection(geometries);
+    }
+    
+    /**
+     * Returns the JsonCoordinateSequence for a COORDINATES value, checking 
+     * that its arrays are nested to the given depth.  Empty arrays are 
+     * given the expected depth.
+     * 
+     * @param value
+     * @param depth
+     * @return 
+     */
+    private static JsonCoordinateSequence toCheckedCoordinateSequence(JsonValue value, int depth) {
+        JsonCoordinateSequence sequence = toCoordinateSequence(value, depth);
+        
+        if (sequence.getDepth() == depth) {
+            return sequence;
+        } else if (sequence.size() == 0) {
+            return new JsonCoordinateSequence(new double[0], 2, depth, 
+                                              (depth >= 2) ? new int[1] : null, 
+                                              (depth == 3) ? new int[1] : null);
+        } else {
+            throw new IllegalArgumentException("Expected coordinates nested " + depth + " deep, found " + sequence.getDepth());
+        }
+    }
+    
+    /**
+     * Returns the JsonCoordinateSequence for a COORDINATES value, which may 
+     * hold a JsonCoordinateSequence, a single JsonCoordinate or a 
+     * JsonCoordinate array.  The latter two are packed with the given depth.
+     * 
+     * @param value
+     * @param depth
+     * @return 
+     */
+    private static JsonCoordinateSequence toCoordinateSequence(JsonValue value, int depth) {
+        Object coordinates = value.getValue();
+        
+        if (coordinates instanceof JsonCoordinateSequence) {
+            return (JsonCoordinateSequence) coordinates;
+        } else if (coordinates instanceof JsonCoordinate) {
+            return JsonCoordinateSequence.pack(new JsonCoordinate[] {(JsonCoordinate) coordinates}, depth);
+        } else {
+            return JsonCoordinateSequence.pack((JsonCoordinate[]) coordinates, depth);
+        }
+    }
 }
\ No newline at end of file
@@ -28,7 +28,27 @@ public class JsonPoint extends GeoJsonObject {
      * @param coordinate 
      */
     public JsonPoint(JsonCoordinate[] coordinate) {
-        this.coordinates = coordinate;
+        super(JsonCoordinateSequence.pack(coordinate, 0));
+    }
+    
+    /**
+     * Constructor using packed coordinates.
+     * 
+     * @param coordinates 
+     */
+    public JsonPoint(JsonCoordinateSequence coordinates) {
+        super(coordinates);
+    }
+    
+    /**
+     * Returns an immutable Point with the same coordinates, or this 
+     * object if it is already immutable.
+     * 
+     * @return 
+     */
+    @Override
+    public JsonPoint toImmutable() {
+        return isImmutable() ? this : new JsonPoint(coordinates.toImmutable());
     }
     
     /**
@@ -47,6 +67,7 @@ public class JsonPoint extends GeoJsonObject {
      * @param indent    The number of tabs in to start this text.
      * @return 
      */
+    @Override
     public String toString(int indent) {
         StringBuilder sb = new  StringBuilder();
         
@@ -62,8 +83,8 @@ public class JsonPoint extends GeoJsonObject {
         sb.append("\"coordinates\":");
         sb.append("\t");
         
-        if (coordinates.length > 0) {
-            sb.append(coordinates[0].toString());
+        if (coordinates.size() > 0) {
+            coordinates.appendPosition(sb, 0);
         } else {
             sb.append("[]");
         }
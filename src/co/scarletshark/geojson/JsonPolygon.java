@@ -17,7 +17,12 @@
 package co.scarletshark.geojson;
 
 /**
- *
+ * A Polygon made of an outer ring followed by any holes.  All rings are kept
+ * in one packed coordinate sequence with the start of each ring stored as an
+ * offset, so the rings of a polygon can be walked with 
+ * getCoordinateSequence().getRingStart(ring) and getRingEnd(ring) without
+ * creating any objects.
+ * 
  * @author Alec
  */
 public class JsonPolygon extends GeoJsonObject {
@@ -28,9 +33,58 @@ public class JsonPolygon extends GeoJsonObject {
      * @param coordinate 
      */
     public JsonPolygon(JsonCoordinate[] coordinate) {
-        this.coordinates = coordinate;
+        super(JsonCoordinateSequence.pack(coordinate, 2));
+    }    
+    
+    /**
+     * Constructor using an outer ring followed by any holes.
+     * 
+     * @param rings 
+     */
+    public JsonPolygon(JsonCoordinate[][] rings) {
+        super(JsonCoordinateSequence.pack(rings));
     }    
     
+    /**
+     * Constructor using packed coordinates.
+     * 
+     * @param coordinates 
+     */
+    public JsonPolygon(JsonCoordinateSequence coordinates) {
+        super(coordinates);
+    }
+    
+    /**
+     * Returns the coordinates of one ring.  Ring 0 is the outer ring and 
+     * the rings after it are holes.
+     * 
+     * @param ring
+     * @return 
+     */
+    public JsonCoordinate[] getRing(int ring) {
+        return coordinates.toCoordinates(ring);
+    }
+    
+    /**
+     * Returns the number of rings, the outer ring plus the holes.
+     * 
+     * @return 
+     */
+    public int getRingCount() {
+        return coordinates.getRingCount();
+    }
+    
+    /**
+     * Returns an immutable Polygon with the same coordinates, or this 
+     * object if it is already immutable.
+     * 
+     * @return 
+     */
+    @Override
+    public JsonPolygon toImmutable() {
+        return isImmutable() ? this : new JsonPolygon(coordinates.toImmutable());
+    }
+    
     /**
      * Returns a String representation of this Object.  
      * 
@@ -47,8 +101,10 @@ public class JsonPolygon extends GeoJsonObject {
      * @param indent The indent level to add to this object.
      * @return 
      */
+    @Override
     public String toString(int indent) {
         StringBuilder sb = new StringBuilder();
+        
         sb.append("{ ");
         sb.append("\n");
                 
@@ -59,28 +115,7 @@ public class JsonPolygon extends GeoJsonObject {
         sb.append(getIndent(indent));  
         sb.append("\"coordinates\": [\n");                
         
-        sb.append(getIndent(indent + 1));  
-        sb.append("[\n");
-        
-        for (int i = 0; i < coordinates.length; i++) {
-            JsonCoordinate c = coordinates[i];
-            
-            sb.append(getIndent(indent + 2));  
-            sb.append(c.toString());  
-            
-            if (i != (coordinates.length - 1)) {
-                sb.append(",\n");                       
-            } else {
-                //write first coordinate again
-                sb.append(",\n");
-                sb.append(getIndent(indent + 2));  
-                sb.append(coordinates[0].toString());                                  
-                sb.append("\n");  
-            }
-        }
-        
-        sb.append(getIndent(indent + 1));  
-        sb.append("]");        
+        appendRings(sb, 0, coordinates.getRingCount(), indent + 1, true);
         
         sb.append(getIndent(indent));
         sb.append("]");
@@ -0,0 +1,296 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import java.util.List;
+
+/**
+ * LineString and Polygon geometries stored as references to shared arcs, in
+ * the manner of TopoJSON.  Boundaries shared by adjacent polygons are kept 
+ * once, as one arc, and each ring or line is a list of arc references.  A
+ * reference i uses arc i as stored, ~i uses arc i reversed.
+ *
+ * The positions of all arcs are packed into one sequence, and the 
+ * references into int arrays:
+ *
+ * arcRefs:             The arc references of every ring and line.
+ * ringArcOffsets:      The first reference of each ring or line, plus the
+ *                      reference count.
+ * geometryRingOffsets: The first ring of each geometry, plus the ring count.
+ *
+ * getGeometry() rebuilds the geometries exactly as they were given to 
+ * build().
+ *
+ * @author Alec Dhuse
+ */
+public class JsonTopology {
+    protected JsonCoordinateSequence arcs;
+    protected int[]                  arcRefs, geometryRingOffsets, ringArcOffsets;
+    protected JsonValueType[]        types;
+
+    /**
+     * Creates a topology from its packed arrays.
+     *
+     * @param arcs                  The arcs, one ring of the sequence each.
+     * @param arcRefs
+     * @param ringArcOffsets
+     * @param geometryRingOffsets
+     * @param types                 POLYGON or LINESTRING for each geometry.
+     */
+    protected JsonTopology(JsonCoordinateSequence arcs, int[] arcRefs, int[] ringArcOffsets,
+                           int[] geometryRingOffsets,   JsonValueType[] types) {
+        this.arcs                = arcs;
+        this.arcRefs             = arcRefs;
+        this.ringArcOffsets      = ringArcOffsets;
+        this.geometryRingOffsets = geometryRingOffsets;
+        this.types               = types;
+    }
+
+    /**
+     * Builds a topology from JsonLineString and JsonPolygon geometries.
+     *
+     * @param geometries
+     * @return
+     * @throws IllegalArgumentException if another type of geometry is given.
+     */
+    public static JsonTopology build(List<? extends GeoJsonObject> geometries) {
+        TopologyBuilder builder = new TopologyBuilder();
+
+        for (GeoJsonObject geometry: geometries)
+            builder.add(geometry);
+
+        return builder.build();
+    }
+
+    /**
+     * Returns the number of distinct arcs.
+     *
+     * @return
+     */
+    public int getArcCount() {
+        return arcs.getRingCount();
+    }
+
+    /**
+     * Returns the positions of the arcs, each arc being one ring of the 
+     * sequence.
+     *
+     * @return
+     */
+    public JsonCoordinateSequence getArcs() {
+        return arcs;
+    }
+
+    /**
+     * Returns the arc references of all rings and lines.  The array is not
+     * copied.  Use getRingStart() and getRingEnd() for the range of a ring.
+     *
+     * @return
+     */
+    public int[] getArcReferences() {
+        return arcRefs;
+    }
+
+    /**
+     * Returns a geometry rebuilt from its arcs.
+     *
+     * @param index
+     * @return
+     */
+    public GeoJsonObject getGeometry(int index) {
+        JsonCoordinateSequence sequence;
+        double[]               values;
+        int[]                  ringOffsets;
+        int                    dimension, firstRing, ringCount, size;
+
+        dimension   = arcs.getDimension();
+        firstRing   = geometryRingOffsets[index];
+        ringCount   = geometryRingOffsets[index + 1] - firstRing;
+        ringOffsets = new int[ringCount + 1];
+        size        = 0;
+
+        for (int r = 0; r < ringCount; r++) {
+            size += countPositions(firstRing + r);
+            ringOffsets[r + 1] = size;
+        }
+
+        values = new double[size * dimension];
+        size   = 0;
+
+        for (int r = 0; r < ringCount; r++)
+            size = copyRing(firstRing + r, values, size);
+
+        if (types[index] == JsonValueType.POLYGON) {
+            sequence = new JsonCoordinateSequence(values, dimension, 2, ringOffsets, null);
+
+            return new JsonPolygon(sequence);
+        } else {
+            sequence = new JsonCoordinateSequence(values, dimension, 1, null, null);
+
+            return new JsonLineString(sequence);
+        }
+    }
+
+    /**
+     * Returns the number of geometries.
+     *
+     * @return
+     */
+    public int getGeometryCount() {
+        return types.length;
+    }
+
+    /**
+     * Returns the index after the last arc reference of a ring or line.
+     *
+     * @param ring
+     * @return
+     */
+    public int getRingEnd(int ring) {
+        return ringArcOffsets[ring + 1];
+    }
+
+    /**
+     * Returns the index of the first arc reference of a ring or line.
+     *
+     * @param ring
+     * @return
+     */
+    public int getRingStart(int ring) {
+        return ringArcOffsets[ring];
+    }
+
+    /**
+     * Returns the topology as TopoJSON text, with the geometries in a
+     * GeometryCollection named "geometries".  Reversed arcs are written as
+     * negative numbers, ~i being -(i + 1).
+     *
+     * @return
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+
+        sb.append("{\n");
+        sb.append("\t\"type\": \"Topology\",\n");
+        sb.append("\t\"objects\": {\"geometries\": {\"type\": \"GeometryCollection\", \"geometries\": [\n");
+
+        for (int g = 0; g < types.length; g++) {
+            sb.append("\t\t{\"type\": ");
+
+            if (types[g] == JsonValueType.POLYGON) {
+                sb.append("\"Polygon\", \"arcs\": [");
+
+                for (int r = geometryRingOffsets[g]; r < geometryRingOffsets[g + 1]; r++) {
+                    if (r > geometryRingOffsets[g])
+                        sb.append(", ");
+
+                    appendRing(sb, r);
+                }
+
+                sb.append("]}");
+            } else {
+                sb.append("\"LineString\", \"arcs\": ");
+                appendRing(sb, geometryRingOffsets[g]);
+                sb.append("}");
+            }
+
+            sb.append((g < types.length - 1) ? ",\n" : "\n");
+        }
+
+        sb.append("\t]}},\n");
+        sb.append("\t\"arcs\": ");
+        sb.append(arcs.toString());
+        sb.append("\n}");
+
+        return sb.toString();
+    }
+
+    /**
+     * Appends the arc references of a ring as a JSON array.
+     *
+     * @param sb
+     * @param ring
+     */
+    private void appendRing(StringBuilder sb, int ring) {
+        sb.append("[");
+
+        for (int i = ringArcOffsets[ring]; i < ringArcOffsets[ring + 1]; i++) {
+            if (i > ringArcOffsets[ring])
+                sb.append(", ");
+
+            sb.append(arcRefs[i]);
+        }
+
+        sb.append("]");
+    }
+
+    /**
+     * Copies the positions of a ring into an array, skipping the first 
+     * position of each arc after the first as it repeats the end of the 
+     * arc before.  Returns the position index after the ring.
+     *
+     * @param ring
+     * @param values
+     * @param size      The position index to start at.
+     * @return
+     */
+    private int copyRing(int ring, double[] values, int size) {
+        double[] arcValues;
+        int      arc, dimension, end, position, start;
+
+        arcValues = arcs.getValues();
+        dimension = arcs.getDimension();
+
+        for (int i = ringArcOffsets[ring]; i < ringArcOffsets[ring + 1]; i++) {
+            arc   = (arcRefs[i] >= 0) ? arcRefs[i] : ~arcRefs[i];
+            start = arcs.getRingStart(arc);
+            end   = arcs.getRingEnd(arc);
+
+            for (int p = (i == ringArcOffsets[ring]) ? 0 : 1; p < end - start; p++) {
+                position = (arcRefs[i] >= 0) ? start + p : end - 1 - p;
+
+                System.arraycopy(arcValues, position * dimension, values, size * dimension, dimension);
+                size++;
+            }
+        }
+
+        return size;
+    }
+
+    /**
+     * Returns the number of positions in a ring rebuilt from its arcs.
+     *
+     * @param ring
+     * @return
+     */
+    private int countPositions(int ring) {
+        int arc, count;
+
+        count = 0;
+
+        for (int i = ringArcOffsets[ring]; i < ringArcOffsets[ring + 1]; i++) {
+            arc    = (arcRefs[i] >= 0) ? arcRefs[i] : ~arcRefs[i];
+            count += arcs.getRingEnd(arc) - arcs.getRingStart(arc);
+
+            if (i > ringArcOffsets[ring])
+                count--;
+        }
+
+        return count;
+    }
+}
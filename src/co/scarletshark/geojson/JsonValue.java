@@ -16,6 +16,8 @@
  */
 package co.scarletshark.geojson;
 
+import java.util.Arrays;
+
 /**
  * A class for holding various JsonPair values.
  * 
@@ -32,14 +34,20 @@ public class JsonValue {
     public static final String NULL    = "null";
     
     //GeoJSON Value Types
-    public static final String BBOX        = "bbox";
-    public static final String COORDINATES = "coordinates";
-    public static final String POINT       = "point";
-    public static final String LINESTRING  = "linestring";
-    public static final String POLYGON     = "polygon";
+    public static final String BBOX               = "bbox";
+    public static final String COORDINATES        = "coordinates";
+    public static final String POINT              = "point";
+    public static final String LINESTRING         = "linestring";
+    public static final String POLYGON            = "polygon";
+    public static final String MULTIPOINT         = "multipoint";
+    public static final String MULTILINESTRING    = "multilinestring";
+    public static final String MULTIPOLYGON       = "multipolygon";
+    public static final String GEOMETRYCOLLECTION = "geometrycollection";
             
-    protected Object   value;
-    protected String   valueType;    
+    protected double        number;
+    protected JsonValueType type;
+    protected Object        value;
+    protected String        valueType;    
         
     /**
      * Constructor for creating a value of a given type.
@@ -51,6 +59,26 @@ public class JsonValue {
         this.setValue(value, valueType);
     }
     
+    /**
+     * Constructor for creating a value of a given type.
+     * 
+     * @param value
+     * @param type 
+     */
+    public JsonValue(Object value, JsonValueType type) {
+        this.setValue(value, type);
+    }
+    
+    /**
+     * Constructor for a number value.  The number is not boxed unless 
+     * getValue() is called.
+     * 
+     * @param number 
+     */
+    public JsonValue(double number) {
+        this.setNumber(number);
+    }
+    
     /**
      * Returns if this JsonValue is equal to another.
      * 
@@ -64,33 +92,18 @@ public class JsonValue {
         if (obj instanceof JsonValue) {
             objValue = (JsonValue) obj;
             
-            if (this.valueType.equalsIgnoreCase(objValue.getValueType())) {
-                if (value instanceof Object[]) {
-                    boolean  isEqual = false;
-                    Object[] array1, array2;
-                    
-                    array1 = (Object[]) objValue.getValue();
-                    array2 = (Object[]) value;
-                    
-                    for (int i = 0; i < array1.length; i++) {
-                        if (array1[i].equals(array2[i])) {
-                            isEqual = true;
-                        } else {
-                            isEqual = false;
-                            break;
-                        }
-                    }
-                    
-                    return isEqual;                
+            if (this.getType() != objValue.getType()) {
+                return false;
+            } else if (type == JsonValueType.NUMBER) {
+                return (Double.doubleToLongBits(number) == Double.doubleToLongBits(objValue.number));
+            } else if (value instanceof Object[]) {
+                return Arrays.equals((Object[]) value, (Object[]) objValue.getValue());
+            } else {
+                if (value.equals(objValue.getValue())) {
+                    return true;
                 } else {
-                    if (value.equals(objValue.getValue())) {
-                        return true;
-                    } else {
-                        return false;
-                    }
+                    return false;
                 }
-            } else {
-                return false;
             }
         } else {
             return false;
@@ -98,11 +111,81 @@ public class JsonValue {
     }
     
     /**
-     * Returns the actual Object of this value.
+     * Returns a hash code for this JsonValue, consistent with equals().
+     * 
+     * @return 
+     */
+    @Override
+    public int hashCode() {
+        long bits;
+        
+        if (getType() == JsonValueType.NUMBER) {
+            bits = Double.doubleToLongBits(number);
+            
+            return (int) (bits ^ (bits >>> 32));
+        } else if (value instanceof Object[]) {
+            return Arrays.hashCode((Object[]) value);
+        } else {
+            return (value != null) ? value.hashCode() : 0;
+        }
+    }
+    
+    /**
+     * Returns the value of a BOOLEAN value.
+     * 
+     * @return 
+     * @throws IllegalStateException if the value is not a BOOLEAN.
+     */
+    public boolean getBoolean() {
+        if (getType() != JsonValueType.BOOLEAN)
+            throw new IllegalStateException("Value is " + valueType + ", not boolean");
+        
+        return ((Boolean) value).booleanValue();
+    }
+    
+    /**
+     * Returns the value of a NUMBER value without boxing it.
+     * 
+     * @return 
+     * @throws IllegalStateException if the value is not a NUMBER.
+     */
+    public double getDouble() {
+        if (getType() != JsonValueType.NUMBER)
+            throw new IllegalStateException("Value is " + valueType + ", not number");
+        
+        return number;
+    }
+    
+    /**
+     * Returns the value of a NUMBER value as a long.  Fractions are 
+     * truncated.
+     * 
+     * @return 
+     * @throws IllegalStateException if the value is not a NUMBER.
+     */
+    public long getLong() {
+        return (long) getDouble();
+    }
+    
+    /**
+     * Returns the type of this value.
+     * 
+     * @return 
+     */
+    public JsonValueType getType() {
+        return type;
+    }
+    
+    /**
+     * Returns the actual Object of this value.  Numbers are boxed the first
+     * time this is called.
      * 
      * @return 
      */
     public Object getValue() {
+        if (value == null && type == JsonValueType.NUMBER)
+            value = new Double(number);
+        
         return value;
     }               
     
@@ -115,6 +198,18 @@ public class JsonValue {
         return this.valueType;
     }        
     
+    /**
+     * Sets this JsonValue to a number.
+     * 
+     * @param number 
+     */
+    public final void setNumber(double number) {
+        this.number    = number;
+        this.value     = null;
+        this.type      = JsonValueType.NUMBER;
+        this.valueType = NUMBER;
+    }
+    
     /**
      * Sets the value and value type of this JsonValue.
      * 
@@ -124,6 +219,25 @@ public class JsonValue {
     public final void setValue(Object value, String valueType) {
         this.value     = value;
         this.valueType = valueType;        
+        this.type      = JsonValueType.forName(valueType);
+        
+        if (type == JsonValueType.NUMBER && value instanceof Number)
+            this.number = ((Number) value).doubleValue();
+    }
+    
+    /**
+     * Sets the value and value type of this JsonValue.
+     * 
+     * @param value
+     * @param type 
+     */
+    public final void setValue(Object value, JsonValueType type) {
+        this.value     = value;
+        this.valueType = type.getName();        
+        this.type      = type;
+        
+        if (type == JsonValueType.NUMBER && value instanceof Number)
+            this.number = ((Number) value).doubleValue();
     }
     
     /**
@@ -136,20 +250,9 @@ public class JsonValue {
         if (value instanceof JsonCoordinate[]) {
             return toCoodinateString();
         } else if (value instanceof Object[]) {
-            Object[]      array = (Object[]) value;
-            StringBuilder sb    = new StringBuilder();
-
-                sb.append("[");
-
-                for (int i = 0; i < array.length; i++) { 
-                    sb.append(array[i].toString());                
-                    
-                    if (i < (array.length - 1))
-                        sb.append(", ");    
-                }
-                
-                sb.append("]");
+            StringBuilder sb = new StringBuilder();
             
+            appendArray(sb, (Object[]) value);
             
             return sb.toString();
         } else {
@@ -157,6 +260,35 @@ public class JsonValue {
         }        
     }    
     
+    /**
+     * Appends an array of parsed elements as JSON text.  Strings are quoted,
+     * except for the "null" marker used by the parser, and nested arrays are
+     * written recursively.
+     * 
+     * @param sb
+     * @param array 
+     */
+    private static void appendArray(StringBuilder sb, Object[] array) {
+        sb.append("[");
+
+        for (int i = 0; i < array.length; i++) { 
+            if (array[i] instanceof Object[]) {
+                appendArray(sb, (Object[]) array[i]);
+            } else if (array[i] instanceof String && !NULL.equals(array[i])) {
+                sb.append("\"");
+                sb.append(array[i]);
+                sb.append("\"");
+            } else {
+                sb.append(array[i]);
+            }
+
+            if (i < (array.length - 1))
+                sb.append(", ");    
+        }
+
+        sb.append("]");
+    }
+    
     /**
      * Returns a String value for a JsonCoordinate value
      * 
@@ -181,7 +313,8 @@ public class JsonValue {
             
             return sb.toString();
         } else {
-            return ((JsonCoordinate) value).toString();
+            //JsonCoordinate or JsonCoordinateSequence
+            return value.toString();
         }        
     }    
     
@@ -203,32 +336,36 @@ public class JsonValue {
      * @return 
      */
     public String toString(int indent) {
-
-        if (valueType.equals(ARRAY)) {
-            return toArrayString();
-        } else if (valueType.equals(BBOX)) {            
-            return ((JsonBoundingBox) value).toString();  
-        } else if (valueType.equals(BOOLEAN)) {
-            return ((Boolean) value).toString();                    
-        } else if (valueType.equals(COORDINATES)) {
-            return toCoodinateString();
-        } else if (valueType.equals(LINESTRING)) {
-            return ((JsonLineString) value).toString(indent + 1); 
-        } else if (valueType.equals(NUMBER)) {
-            return ((Double) value).toString();    
-        } else if (valueType.equals(OBJECT)) {
-            return ((JsonObject) value).toString(indent + 1);
-        } else if (valueType.equals(POINT)) {
-            return ((JsonPoint) value).toString(indent + 1);      
-        } else if (valueType.equals(POLYGON)) {
-            return ((JsonPolygon) value).toString(indent + 1); 
-        } else if (valueType.equals(STRING)) {
-            String sVal = (String) value;       
-            return "\"" + sVal + "\"";                      
-        } else {
-            return value.toString();
-        }       
+        if (getType() == null)
+            return String.valueOf(value);
+        
+        switch (type) {
+            case ARRAY:
+                return toArrayString();
+            case BBOX:
+                return ((JsonBoundingBox) value).toString();
+            case BOOLEAN:
+                return ((Boolean) value).toString();
+            case COORDINATES:
+                return toCoodinateString();
+            case GEOMETRYCOLLECTION:
+            case LINESTRING:
+            case MULTILINESTRING:
+            case MULTIPOINT:
+            case MULTIPOLYGON:
+                return ((GeoJsonObject) value).toString(indent + 1);
+            case NUMBER:
+                return (value != null) ? value.toString() : Double.toString(number);
+            case OBJECT:
+                return ((JsonObject) value).toString(indent + 1);
+            case POINT:
+                return ((JsonPoint) value).toString(indent + 1);
+            case POLYGON:
+                return ((JsonPolygon) value).toString(indent + 1);
+            case STRING:
+                return "\"" + value + "\"";
+            default:
+                return value.toString();
+        }
     }    
-    
-
 }
@@ -0,0 +1,117 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+/**
+ * The types of value a JsonValue can hold.  Each type has the name used by
+ * the String constants of JsonValue, so code using either can be mixed.
+ *
+ * @author Alec Dhuse
+ */
+public enum JsonValueType {
+    //Standard JSON Value Types
+    STRING(JsonValue.STRING),
+    NUMBER(JsonValue.NUMBER),
+    OBJECT(JsonValue.OBJECT),
+    ARRAY(JsonValue.ARRAY),
+    BOOLEAN(JsonValue.BOOLEAN),
+    NULL(JsonValue.NULL),
+
+    //GeoJSON Value Types
+    BBOX(JsonValue.BBOX),
+    COORDINATES(JsonValue.COORDINATES),
+    POINT(JsonValue.POINT),
+    LINESTRING(JsonValue.LINESTRING),
+    POLYGON(JsonValue.POLYGON),
+    MULTIPOINT(JsonValue.MULTIPOINT),
+    MULTILINESTRING(JsonValue.MULTILINESTRING),
+    MULTIPOLYGON(JsonValue.MULTIPOLYGON),
+    GEOMETRYCOLLECTION(JsonValue.GEOMETRYCOLLECTION),
+
+    /** A type name that is not one of the above. */
+    OTHER(null);
+
+    private static final JsonValueType[] TYPES = values();
+
+    private final String name;
+
+    private JsonValueType(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns the type with the given name, ignoring case.  Returns OTHER
+     * for unknown names and null for a null name.
+     *
+     * @param name
+     * @return
+     */
+    public static JsonValueType forName(String name) {
+        if (name == null)
+            return null;
+
+        //The constants of JsonValue are usually passed, so check identity first
+        for (JsonValueType type: TYPES) {
+            if (type.name == name)
+                return type;
+        }
+
+        for (JsonValueType type: TYPES) {
+            if (type.name != null && type.name.equalsIgnoreCase(name))
+                return type;
+        }
+
+        return OTHER;
+    }
+
+    /**
+     * Returns the type for a geometry, or OBJECT if it is not one of the
+     * GeoJSON geometry types.
+     *
+     * @param geometry
+     * @return
+     */
+    static JsonValueType forGeometry(GeoJsonObject geometry) {
+        if (geometry instanceof JsonPoint) {
+            return POINT;
+        } else if (geometry instanceof JsonLineString) {
+            return LINESTRING;
+        } else if (geometry instanceof JsonPolygon) {
+            return POLYGON;
+        } else if (geometry instanceof JsonMultiPoint) {
+            return MULTIPOINT;
+        } else if (geometry instanceof JsonMultiLineString) {
+            return MULTILINESTRING;
+        } else if (geometry instanceof JsonMultiPolygon) {
+            return MULTIPOLYGON;
+        } else if (geometry instanceof JsonGeometryCollection) {
+            return GEOMETRYCOLLECTION;
+        } else {
+            return OBJECT;
+        }
+    }
+
+    /**
+     * Returns the name of this type, as used by the String constants of 
+     * JsonValue.  OTHER has no name and returns null.
+     *
+     * @return
+     */
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Maps the raw text of pair names to shared String instances.  Names are 
+ * looked up by hashing the chars or bytes in the parser's buffer, so a String
+ * is only created the first time a name is seen.  Features in a collection 
+ * repeat the same names, so this saves a String per pair and lets name 
+ * comparisons succeed on identity.
+ * 
+ * Lookups take no lock and adding a name is synchronized, so a dictionary
+ * can be shared by parsers on different threads.  Once MAX_KEYS names have
+ * been added, new names are returned without being kept.
+ *
+ * @author Alec Dhuse
+ */
+public class KeyDictionary {
+    public static final int MAX_KEYS = 4096;
+    
+    private          int      count;
+    private volatile String[] table;
+    
+    /**
+     * Creates an empty dictionary.
+     */
+    public KeyDictionary() {
+        this.table = new String[256];
+    }
+    
+    /**
+     * Returns the shared String for a name held in a char array.
+     * 
+     * @param chars
+     * @param start
+     * @param length
+     * @return 
+     */
+    String get(char[] chars, int start, int length) {
+        String[] keys;
+        String   key;
+        int      hash, i;
+        
+        hash = 0;
+        keys = table;
+        
+        for (int j = start; j < start + length; j++)
+            hash = 31 * hash + chars[j];
+        
+        for (i = hash & (keys.length - 1); (key = keys[i]) != null; i = (i + 1) & (keys.length - 1)) {
+            if (key.hashCode() == hash && matches(key, chars, start, length))
+                return key;
+        }
+        
+        return add(new String(chars, start, length), hash);
+    }
+    
+    /**
+     * Returns the shared String for an ASCII name held in a ByteBuffer.  
+     * Returns null if the name contains a byte outside of ASCII, in which 
+     * case it must be decoded and passed to intern(String).
+     * 
+     * @param bytes
+     * @param start
+     * @param length
+     * @return 
+     */
+    String get(ByteBuffer bytes, int start, int length) {
+        String[] keys;
+        String   key;
+        int      b, hash, i;
+        char[]   chars;
+        
+        hash = 0;
+        keys = table;
+        
+        for (int j = start; j < start + length; j++) {
+            b = bytes.get(j);
+            
+            if (b < 0)
+                return null;
+            
+            hash = 31 * hash + b;
+        }
+        
+        for (i = hash & (keys.length - 1); (key = keys[i]) != null; i = (i + 1) & (keys.length - 1)) {
+            if (key.hashCode() == hash && matches(key, bytes, start, length))
+                return key;
+        }
+        
+        chars = new char[length];
+        
+        for (int j = 0; j < length; j++)
+            chars[j] = (char) bytes.get(start + j);
+        
+        return add(new String(chars), hash);
+    }
+    
+    /**
+     * Returns the shared String equal to the given name, adding it if it is
+     * not yet in the dictionary.
+     * 
+     * @param name
+     * @return 
+     */
+    public String intern(String name) {
+        String[] keys;
+        String   key;
+        int      hash, i;
+        
+        hash = name.hashCode();
+        keys = table;
+        
+        for (i = hash & (keys.length - 1); (key = keys[i]) != null; i = (i + 1) & (keys.length - 1)) {
+            if (key.equals(name))
+                return key;
+        }
+        
+        return add(name, hash);
+    }
+    
+    /**
+     * Returns the number of names in the dictionary.
+     * 
+     * @return 
+     */
+    public synchronized int size() {
+        return count;
+    }
+    
+    /**
+     * Adds a name not found by a lookup.  The table is searched again under
+     * the lock, as another thread may have added the name since.
+     * 
+     * @param name
+     * @param hash
+     * @return 
+     */
+    private synchronized String add(String name, int hash) {
+        String[] keys;
+        String   key;
+        int      i;
+        
+        keys = table;
+        
+        for (i = hash & (keys.length - 1); (key = keys[i]) != null; i = (i + 1) & (keys.length - 1)) {
+            if (key.equals(name))
+                return key;
+        }
+        
+        if (count < MAX_KEYS) {
+            if ((count + 1) * 2 > keys.length) {
+                //Fill a larger table before publishing it, so lookups never
+                //see a partly copied table
+                keys = new String[table.length * 2];
+                
+                for (String old: table) {
+                    if (old != null) {
+                        for (i = old.hashCode() & (keys.length - 1); keys[i] != null; i = (i + 1) & (keys.length - 1));
+                        
+                        keys[i] = old;
+                    }
+                }
+                
+                for (i = hash & (keys.length - 1); keys[i] != null; i = (i + 1) & (keys.length - 1));
+                
+                keys[i] = name;
+                table   = keys;
+            } else {
+                keys[i] = name;
+            }
+            
+            count++;
+        }
+        
+        return name;
+    }
+    
+    /**
+     * Returns if a String equals the chars in a range of an array.
+     * 
+     * @param key
+     * @param chars
+     * @param start
+     * @param length
+     * @return 
+     */
+    private static boolean matches(String key, char[] chars, int start, int length) {
+        if (key.length() != length)
+            return false;
+        
+        for (int i = 0; i < length; i++) {
+            if (key.charAt(i) != chars[start + i])
+                return false;
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Returns if a String equals the ASCII bytes in a range of a buffer.
+     * 
+     * @param key
+     * @param bytes
+     * @param start
+     * @param length
+     * @return 
+     */
+    private static boolean matches(String key, ByteBuffer bytes, int start, int length) {
+        if (key.length() != length)
+            return false;
+        
+        for (int i = 0; i < length; i++) {
+            if (key.charAt(i) != bytes.get(start + i))
+                return false;
+        }
+        
+        return true;
+    }
+}
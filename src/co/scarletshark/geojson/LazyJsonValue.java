@@ -0,0 +1,175 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import java.io.IOException;
+
+/**
+ * A JsonValue for an object or array that has not been parsed yet.  Only the
+ * range of the value in the source text is kept; the value is parsed the 
+ * first time it is needed and then cached.
+ * 
+ * Objects and arrays inside the value are themselves read lazily, so only
+ * the parts of a document that are used are ever fully parsed.
+ * 
+ * As with a document that was parsed eagerly, a lazily parsed document can
+ * be read from several threads at once.  Each value is parsed once, under 
+ * its own lock, and the parsed value is seen by every thread that reads it
+ * afterwards.  Changing a document while it is read is not safe.
+ *
+ * @author Alec Dhuse
+ */
+public class LazyJsonValue extends JsonValue {
+    private volatile boolean parsed;
+    private JsonCursor       source;
+    private long             start, end;
+    private String           pairName;
+    
+    /**
+     * Creates a value for the given range of the source.
+     * 
+     * @param source    A cursor over the complete source text.
+     * @param start     The offset of the value's opening bracket.
+     * @param end       The offset after the value's closing bracket.
+     * @param pairName  The name of the pair holding this value.
+     */
+    LazyJsonValue(JsonCursor source, long start, long end, String pairName) {
+        super(null, (String) null);
+        
+        this.source   = source;
+        this.start    = start;
+        this.end      = end;
+        this.pairName = pairName;
+    }
+    
+    /**
+     * Returns if this JsonValue is equal to another.  Both values are parsed
+     * first.
+     * 
+     * @param obj
+     * @return 
+     */
+    @Override
+    public boolean equals(Object obj) {
+        parse();
+        
+        return super.equals(obj);
+    }
+    
+    /**
+     * Returns a hash code for this JsonValue, parsing it first so it is the 
+     * same as for an equal value that was not read lazily.
+     * 
+     * @return 
+     */
+    @Override
+    public int hashCode() {
+        parse();
+        
+        return super.hashCode();
+    }
+
+    /**
+     * Returns the actual Object of this value, parsing it if needed.
+     * 
+     * @return 
+     */
+    @Override
+    public Object getValue() {
+        parse();
+        
+        return value;
+    }
+    
+    /**
+     * Returns the type of this value, parsing it if needed.
+     * 
+     * @return 
+     */
+    @Override
+    public JsonValueType getType() {
+        parse();
+        
+        return type;
+    }
+    
+    /**
+     * Returns the value type of this value, parsing it if needed.
+     * 
+     * @return 
+     */
+    @Override
+    public String getValueType() {
+        parse();
+        
+        return valueType;
+    }
+    
+    /**
+     * Returns if the value has been parsed or set.
+     * 
+     * @return 
+     */
+    public boolean isParsed() {
+        return (parsed || valueType != null);
+    }
+    
+    /**
+     * Returns the raw JSON text for this value at a given indent level.
+     * 
+     * @param indent
+     * @return 
+     */
+    @Override
+    public String toString(int indent) {
+        parse();
+        
+        return super.toString(indent);
+    }
+    
+    /**
+     * Parses the value from the source if it has not been parsed or set 
+     * yet.  The same conversions JsonObject.addPair(JsonPair) makes for
+     * GeoJSON pair names are applied, before the value is stored, so the 
+     * parsed flag is only set once the value is complete.  Other threads 
+     * either wait for the lock or see the finished value.
+     */
+    private void parse() {
+        JsonValue result;
+        
+        if (!parsed) {
+            synchronized (this) {
+                if (!parsed) {
+                    if (valueType == null) {
+                        try {
+                            result = JsonParser.readPairValue(source.slice(start, end), pairName, true);
+                        } catch (IOException e) {
+                            System.err.println("Error in LazyJsonValue.parse() - " + e);
+                            result = new JsonValue("null", JsonValueType.NULL);
+                        }
+                        
+                        JsonObject.convertPairValue(new JsonPair(pairName, result));
+                        setValue(result.getValue(), result.getType());
+                        source = null;
+                    }
+                    
+                    parsed = true;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import java.util.Arrays;
+
+/**
+ * A column of numbers stored in a double array.  Rows without a value hold
+ * Double.NaN, which cannot be read from JSON, so scans can skip them 
+ * without checking the null rows.
+ *
+ * @author Alec Dhuse
+ */
+public class NumberColumn extends PropertyColumn {
+    private double[] values;
+
+    /**
+     * Creates an empty column.
+     *
+     * @param name  The property name.
+     */
+    public NumberColumn(String name) {
+        super(name);
+        this.values = new double[0];
+    }
+
+    /**
+     * Returns the number in a row, or Double.NaN if the row has none.
+     *
+     * @param row
+     * @return
+     */
+    public double getDouble(int row) {
+        return (row < size) ? values[row] : Double.NaN;
+    }
+
+    @Override
+    public JsonValueType getType() {
+        return JsonValueType.NUMBER;
+    }
+
+    /**
+     * Returns the array holding the numbers.  Only the first size() values
+     * are rows, and the array is replaced when the column grows.
+     *
+     * @return
+     */
+    public double[] getValues() {
+        return values;
+    }
+
+    /**
+     * Returns the rows with numbers from min to max, inclusive.
+     *
+     * @param min
+     * @param max
+     * @return
+     */
+    public int[] select(double min, double max) {
+        int[] rows;
+        int   matches;
+
+        matches = 0;
+
+        for (int i = 0; i < size; i++) {
+            if (values[i] >= min && values[i] <= max)
+                matches++;
+        }
+
+        rows    = new int[matches];
+        matches = 0;
+
+        for (int i = 0; i < size; i++) {
+            if (values[i] >= min && values[i] <= max)
+                rows[matches++] = i;
+        }
+
+        return rows;
+    }
+
+    /**
+     * Returns the sum of the numbers in the column.
+     *
+     * @return
+     */
+    public double sum() {
+        double sum = 0;
+
+        for (int i = 0; i < size; i++) {
+            if (!Double.isNaN(values[i]))
+                sum += values[i];
+        }
+
+        return sum;
+    }
+
+    @Override
+    boolean accepts(JsonValue value) {
+        return (value.getType() == JsonValueType.NUMBER);
+    }
+
+    @Override
+    void erase(int row) {
+        values[row] = Double.NaN;
+    }
+
+    @Override
+    JsonValue read(int row) {
+        return new JsonValue(values[row]);
+    }
+
+    @Override
+    void reserve(int row) {
+        int length = values.length;
+
+        if (row >= length) {
+            values = Arrays.copyOf(values, grow(length, row));
+            Arrays.fill(values, length, values.length, Double.NaN);
+        }
+    }
+
+    @Override
+    void write(int row, JsonValue value) {
+        values[row] = value.getDouble();
+    }
+}
@@ -0,0 +1,287 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Parses the features of a FeatureCollection on several threads.
+ * 
+ * A quick structural scan first finds where each element of the "features"
+ * array starts and ends, without parsing it.  The elements are then split 
+ * into chunks and parsed concurrently, and the results are put back in their
+ * original order.  The returned JsonObject is the same as 
+ * JsonParser.parseObject() would return for the same text.
+ * 
+ * Unlike JsonParser, malformed input causes a JsonParseException to be 
+ * thrown rather than a partial object to be returned.
+ *
+ * @author Alec Dhuse
+ */
+public class ParallelFeatureParser {
+    private static final int CHUNKS_PER_THREAD = 4;
+    
+    private static ExecutorService sharedExecutor;
+    
+    /**
+     * Parses a JSON object from text using a shared pool with one thread per
+     * processor.
+     * 
+     * @param text
+     * @return
+     * @throws IOException 
+     */
+    public static JsonObject parseObject(String text) throws IOException {
+        return parseObject(text, getSharedExecutor());
+    }
+    
+    /**
+     * Parses a JSON object from text using the given executor.
+     * 
+     * @param text
+     * @param executor
+     * @return
+     * @throws IOException 
+     */
+    public static JsonObject parseObject(String text, ExecutorService executor) throws IOException {
+        return parse(new CharCursor(text.toCharArray()), executor);
+    }
+    
+    /**
+     * Parses a memory mapped UTF-8 file using a shared pool with one thread
+     * per processor.
+     * 
+     * @param file
+     * @return
+     * @throws IOException 
+     */
+    public static JsonObject parseMappedFile(File file) throws IOException {
+        return parseMappedFile(file, getSharedExecutor());
+    }
+    
+    /**
+     * Parses a memory mapped UTF-8 file using the given executor.
+     * 
+     * @param file
+     * @param executor
+     * @return
+     * @throws IOException 
+     */
+    public static JsonObject parseMappedFile(File file, ExecutorService executor) throws IOException {
+        FileChannel     channel;
+        FileInputStream in;
+        
+        in = new FileInputStream(file);
+        
+        try {
+            channel = in.getChannel();
+            
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException("File is too large to map: " + file);
+            
+            return parse(new ByteCursor(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())), executor);
+        } finally {
+            in.close();
+        }
+    }
+    
+    /**
+     * Returns the executor used when none is given, creating it on first use.
+     * Its threads are daemons so it does not keep the JVM running.
+     * 
+     * @return 
+     */
+    private static synchronized ExecutorService getSharedExecutor() {
+        if (sharedExecutor == null) {
+            sharedExecutor = Executors.newFixedThreadPool(
+                    Runtime.getRuntime().availableProcessors(),
+                    new ThreadFactory() {
+                        @Override
+                        public Thread newThread(Runnable runnable) {
+                            Thread thread = new Thread(runnable, "GeoJSON Parser");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+        }
+        
+        return sharedExecutor;
+    }
+    
+    /**
+     * Reads the root object from a cursor, parsing the features array in 
+     * parallel.
+     * 
+     * @param cursor
+     * @param executor
+     * @return
+     * @throws IOException 
+     */
+    static JsonObject parse(JsonCursor cursor, ExecutorService executor) throws IOException {
+        ArrayList<JsonPair> pairs;
+        int                 count, nextChar;
+        JsonObject          object;
+        JsonPair            featuresPair;
+        long[]              bounds;
+        String              pairName;
+        
+        pairs        = new ArrayList<JsonPair>();
+        featuresPair = null;
+        cursor.keys  = new KeyDictionary();
+        bounds       = new long[0];
+        count        = 0;
+        
+        cursor.expect('{');
+        nextChar = cursor.peek();
+        
+        while (nextChar != '}') {
+            pairName = cursor.readName();
+            cursor.expect(':');
+            
+            if (featuresPair == null && pairName.equalsIgnoreCase("features") && cursor.peek() == '[') {
+                featuresPair = new JsonPair(pairName);
+                pairs.add(featuresPair);
+                
+                //Find the bounds of each feature without parsing it
+                bounds = new long[64];
+                cursor.skip();
+                nextChar = cursor.peek();
+                
+                while (nextChar != ']') {
+                    if (count * 2 == bounds.length)
+                        bounds = Arrays.copyOf(bounds, bounds.length * 2);
+                    
+                    bounds[count * 2] = cursor.position();
+                    cursor.skipValue();
+                    bounds[count * 2 + 1] = cursor.position();
+                    count++;
+                    
+                    nextChar = cursor.peek();
+                    
+                    if (nextChar == ',') {
+                        cursor.skip();
+                        nextChar = cursor.peek();
+                    } else if (nextChar != ']') {
+                        throw cursor.error("Expected ',' or ']'");
+                    }
+                }
+                
+                cursor.skip();
+            } else {
+                pairs.add(new JsonPair(pairName, JsonParser.readPairValue(cursor, pairName, false)));
+            }
+            
+            nextChar = cursor.peek();
+            
+            if (nextChar == ',') {
+                cursor.skip();
+                nextChar = cursor.peek();
+            } else if (nextChar != '}') {
+                throw cursor.error("Expected ',' or '}'");
+            }
+        }
+        
+        if (featuresPair != null)
+            featuresPair.setValue(new JsonValue(parseElements(cursor, bounds, count, executor), JsonValueType.ARRAY));
+        
+        object = new JsonObject();
+        
+        for (JsonPair pair: pairs)
+            object.addPair(pair);
+        
+        return object;
+    }
+    
+    /**
+     * Parses the array elements with the given bounds in chunks on the 
+     * executor.
+     * 
+     * @param cursor    The cursor the bounds were found with.
+     * @param bounds    The start and end offset of each element.
+     * @param count     The number of elements.
+     * @param executor
+     * @return
+     * @throws IOException 
+     */
+    private static Object[] parseElements(final JsonCursor cursor,
+                                          final long[]     bounds,
+                                          final int        count,
+                                          ExecutorService  executor) throws IOException {
+        ArrayList<Future<Object>> futures;
+        int                       chunkSize;
+        final Object[]            elements;
+        
+        chunkSize = count / (Runtime.getRuntime().availableProcessors() * CHUNKS_PER_THREAD);
+        chunkSize = Math.max(chunkSize, 1);
+        elements  = new Object[count];
+        futures   = new ArrayList<Future<Object>>();
+        
+        try {
+            for (int first = 0; first < count; first += chunkSize) {
+                final int start = first;
+                final int end   = Math.min(first + chunkSize, count);
+                
+                futures.add(executor.submit(new Callable<Object>() {
+                    @Override
+                    public Object call() throws IOException {
+                        JsonCursor chunk = cursor.slice(bounds[start * 2], bounds[(end - 1) * 2 + 1]);
+                        
+                        for (int i = start; i < end; i++) {
+                            if (i > start)
+                                chunk.expect(',');
+                        
+                            elements[i] = JsonParser.readElement(chunk, false);
+                        }
+                        
+                        return null;
+                    }
+                }));
+            }
+                
+            for (Future<Object> future: futures)
+                future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while parsing features");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            } else if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else {
+                throw new IOException(e.getCause().toString());
+            }
+        } finally {
+            //Stop the chunks still running after a failure, does nothing once all are done
+            for (Future<Object> future: futures)
+                future.cancel(true);
+        }
+        
+        return elements;
+    }
+}
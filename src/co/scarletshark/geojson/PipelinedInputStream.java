@@ -0,0 +1,254 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * An InputStream that reads from another stream on its own thread.  Bytes 
+ * are passed to the reading thread through a bounded ring of reusable 
+ * buffers, so work done by the source stream, such as decompression, 
+ * overlaps with the parsing of bytes already read.  Memory use is fixed at
+ * the size of the ring.
+ *
+ * @author Alec Dhuse
+ */
+public class PipelinedInputStream extends InputStream {
+    public static final int BUFFER_COUNT = 4;
+    public static final int BUFFER_SIZE  = 65536;
+    
+    private BlockingQueue<Chunk> filled, free;
+    private Chunk                current;
+    private InputStream          source;
+    private Thread               thread;
+    private volatile IOException error;
+    
+    /**
+     * Creates a stream that reads the source on a new thread, using the
+     * default ring size.
+     * 
+     * @param source 
+     */
+    public PipelinedInputStream(InputStream source) {
+        this(source, BUFFER_COUNT, BUFFER_SIZE);
+    }
+    
+    /**
+     * Creates a stream that reads the source on a new thread.
+     * 
+     * @param source
+     * @param bufferCount   The number of buffers in the ring.
+     * @param bufferSize    The size of each buffer.
+     */
+    public PipelinedInputStream(InputStream source, int bufferCount, int bufferSize) {
+        this.source = source;
+        this.filled = new ArrayBlockingQueue<Chunk>(bufferCount + 1);
+        this.free   = new ArrayBlockingQueue<Chunk>(bufferCount);
+        
+        for (int i = 0; i < bufferCount; i++)
+            free.add(new Chunk(bufferSize));
+        
+        this.thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                fillChunks();
+            }
+        }, "GeoJSON Input");
+        
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    /**
+     * Opens a gzip, zlib or raw deflate compressed file, decompressing it on
+     * its own thread.  The format is found from the first bytes of the file.
+     * The file is closed if it cannot be opened, such as when its header is
+     * corrupt.
+     * 
+     * @param file
+     * @return
+     * @throws IOException 
+     */
+    public static InputStream openCompressed(File file) throws IOException {
+        BufferedInputStream in;
+        InputStream         stream;
+        int                 first, second;
+        
+        in     = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE);
+        stream = null;
+        
+        try {
+            in.mark(2);
+            first  = in.read();
+            second = in.read();
+            in.reset();
+
+            if (first == 0x1F && second == 0x8B) {
+                stream = new PipelinedInputStream(new GZIPInputStream(in, BUFFER_SIZE));
+            } else if ((first & 0x0F) == 8 && ((first << 8) | second) % 31 == 0) {
+                stream = new PipelinedInputStream(new InflaterInputStream(in, new Inflater(), BUFFER_SIZE));
+            } else {
+                stream = new PipelinedInputStream(new InflaterInputStream(in, new Inflater(true), BUFFER_SIZE));
+            }
+        } finally {
+            if (stream == null)
+                in.close();
+        }
+        
+        return stream;
+    }
+    
+    /**
+     * Returns the number of bytes that can be read without waiting for the 
+     * source.
+     * 
+     * @return 
+     */
+    @Override
+    public int available() {
+        return (current != null && current.length > 0) ? current.length - current.position : 0;
+    }
+    
+    /**
+     * Stops the reading thread and closes the source.
+     * 
+     * @throws IOException 
+     */
+    @Override
+    public void close() throws IOException {
+        thread.interrupt();
+        source.close();
+    }
+    
+    @Override
+    public int read() throws IOException {
+        if (nextChunk()) {
+            return current.data[current.position++] & 0xFF;
+        } else {
+            return -1;
+        }
+    }
+    
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int count;
+        
+        if (len == 0) {
+            return 0;
+        } else if (nextChunk()) {
+            count = Math.min(len, current.length - current.position);
+            System.arraycopy(current.data, current.position, b, off, count);
+            current.position += count;
+            
+            return count;
+        } else {
+            return -1;
+        }
+    }
+    
+    /**
+     * Run on the reading thread.  Fills free buffers from the source and
+     * queues them in order, always ending with an empty buffer, whether at 
+     * the end of the source, on an error of any kind or when closed.
+     */
+    private void fillChunks() {
+        Chunk chunk;
+        int   read;
+        
+        try {
+            do {
+                chunk        = free.take();
+                chunk.length = 0;
+                read         = 0;
+                
+                while (chunk.length < chunk.data.length && 
+                       (read = source.read(chunk.data, chunk.length, chunk.data.length - chunk.length)) > 0) {
+                    chunk.length += read;
+                }
+                
+                if (chunk.length > 0) {
+                    filled.put(chunk);
+                } else {
+                    //Nothing was read, so the buffer goes back to the ring rather than being lost
+                    free.put(chunk);
+                }
+            } while (read >= 0);
+        } catch (IOException e) {
+            error = e;
+        } catch (InterruptedException e) {
+            //Closed
+        } catch (Throwable e) {
+            error = new IOException("Error reading source: " + e, e);
+        } finally {
+            filled.add(new Chunk(0));
+        }
+    }
+    
+    /**
+     * Makes sure the current buffer has bytes left to read, returning the
+     * used one to the ring and waiting for the next if needed.  Returns 
+     * false at the end of the stream.
+     * 
+     * @return
+     * @throws IOException 
+     */
+    private boolean nextChunk() throws IOException {
+        while (current == null || current.position == current.length) {
+            if (current != null) {
+                if (current.length == 0) {
+                    if (error != null)
+                        throw error;
+                    
+                    return false;
+                }
+                
+                current.position = 0;
+                free.add(current);
+            }
+            
+            try {
+                current = filled.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while reading");
+            }
+        }
+        
+        return true;
+    }
+    
+    /**
+     * A buffer of the ring and the number of bytes in it.
+     */
+    private static class Chunk {
+        byte[] data;
+        int    length, position;
+
+        public Chunk(int size) {
+            this.data = new byte[size];
+        }
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import java.util.BitSet;
+
+/**
+ * The values of one property for every feature of a JsonFeatureCollection,
+ * stored by row.  Subclasses keep the values of a single type in a primitive
+ * array, so scans over a column read contiguous memory without unboxing.
+ * Rows where the feature did not have the property, or had it as null, are
+ * tracked here.
+ * 
+ * If a value of a different type is added, the collection replaces the 
+ * column with one holding JsonValues.
+ *
+ * @author Alec Dhuse
+ */
+public abstract class PropertyColumn {
+    protected final String name;
+    protected int          count, size;
+    protected BitSet       nulls, present;
+
+    /**
+     * Creates an empty column.
+     *
+     * @param name  The property name.
+     */
+    protected PropertyColumn(String name) {
+        this.name    = name;
+        this.nulls   = new BitSet();
+        this.present = new BitSet();
+    }
+
+    /**
+     * Returns a column for the given name that can hold the given value.  
+     * If the previous column for the name holds values of another type, 
+     * they are copied to a column of JsonValues.  A previous column with
+     * only null rows is replaced by one typed for the value.
+     *
+     * @param name
+     * @param value
+     * @param previous  The current column for the name, or null.
+     * @return
+     */
+    static PropertyColumn forValue(String name, JsonValue value, PropertyColumn previous) {
+        PropertyColumn column;
+        JsonValue      rowValue;
+
+        if (previous != null && previous.count > 0) {
+            column = new ValueColumn(name);
+
+            for (int row = 0; row < previous.size; row++) {
+                rowValue = previous.getValue(row);
+
+                if (rowValue != null)
+                    column.set(row, rowValue);
+            }
+
+            return column;
+        }
+
+        switch (value.getType()) {
+            case BOOLEAN:
+                column = new BooleanColumn(name);
+                break;
+            case NUMBER:
+                column = new NumberColumn(name);
+                break;
+            case STRING:
+                column = new StringColumn(name);
+                break;
+            default:
+                column = new ValueColumn(name);
+        }
+
+        if (previous != null) {
+            column.nulls   = previous.nulls;
+            column.present = previous.present;
+            column.size    = previous.size;
+
+            if (column.size > 0)
+                column.reserve(column.size - 1);
+        }
+
+        return column;
+    }
+
+    /**
+     * Returns the number of rows with a value other than null.
+     *
+     * @return
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the property name of this column.
+     *
+     * @return
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the type of the values in this column, OTHER if the column
+     * holds values of several types or objects and arrays.
+     *
+     * @return
+     */
+    public abstract JsonValueType getType();
+
+    /**
+     * Returns the value of a row as a new JsonValue.  Returns a JSON null
+     * value if the feature had the property as null, and null if the feature
+     * did not have the property.
+     *
+     * @param row
+     * @return
+     */
+    public JsonValue getValue(int row) {
+        if (row >= size || !present.get(row)) {
+            return null;
+        } else if (nulls.get(row)) {
+            return new JsonValue("null", JsonValueType.NULL);
+        } else {
+            return read(row);
+        }
+    }
+
+    /**
+     * Returns if a row has no value, either because the property was null 
+     * or because the feature did not have it.
+     *
+     * @param row
+     * @return
+     */
+    public boolean isNull(int row) {
+        return (row >= size || !present.get(row) || nulls.get(row));
+    }
+
+    /**
+     * Returns the number of rows up to the last row set.  Later rows of the
+     * collection did not have the property.
+     *
+     * @return
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns if this column can store the given value.
+     *
+     * @param value
+     * @return
+     */
+    abstract boolean accepts(JsonValue value);
+
+    /**
+     * Clears the stored value of a row that has been set to null.
+     *
+     * @param row
+     */
+    abstract void erase(int row);
+
+    /**
+     * Returns the stored value of a row that is not null.
+     *
+     * @param row
+     * @return
+     */
+    abstract JsonValue read(int row);
+
+    /**
+     * Grows the column's array to hold the given row.
+     *
+     * @param row
+     */
+    abstract void reserve(int row);
+
+    /**
+     * Stores the value of a row that has been reserved.
+     *
+     * @param row
+     * @param value
+     */
+    abstract void write(int row, JsonValue value);
+
+    /**
+     * Sets the value of a row.  The value must be accepted by this column
+     * or be a JSON null.
+     *
+     * @param row
+     * @param value
+     */
+    void set(int row, JsonValue value) {
+        boolean hadValue = !isNull(row);
+
+        reserve(row);
+
+        if (value.getType() == JsonValueType.NULL) {
+            nulls.set(row);
+
+            if (hadValue) {
+                erase(row);
+                count--;
+            }
+        } else {
+            write(row, value);
+            nulls.clear(row);
+
+            if (!hadValue)
+                count++;
+        }
+
+        present.set(row);
+        size = Math.max(size, row + 1);
+    }
+
+    /**
+     * Returns the new length of an array that must hold the given row, 
+     * doubling the current length to avoid growing on each row.
+     *
+     * @param length
+     * @param row
+     * @return
+     */
+    static int grow(int length, int row) {
+        return Math.max(row + 1, Math.max(16, length * 2));
+    }
+}
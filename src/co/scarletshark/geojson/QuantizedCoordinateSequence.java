@@ -0,0 +1,115 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+/**
+ * A coordinate sequence storing x and y as integers multiplied by a scale,
+ * with z values, if any, stored as floats.
+ *
+ * @author Alec Dhuse
+ */
+class QuantizedCoordinateSequence extends JsonCoordinateSequence {
+    private double  scale;
+    private float[] altitudes;
+    private int[]   ints;
+
+    /**
+     * Creates a sequence from quantized values.
+     *
+     * @param ints          Interleaved x and y values multiplied by the scale.
+     * @param altitudes     The z values, null for 2D sequences.
+     * @param scale
+     * @param depth         The number of array levels above the positions.
+     * @param ringOffsets   The start of each ring, plus the position count.
+     * @param partOffsets   The first ring of each part, plus the ring count.
+     */
+    QuantizedCoordinateSequence(int[] ints,          float[] altitudes, double scale, int depth,
+                                int[] ringOffsets,   int[] partOffsets) {
+        super(ints.length / 2, (altitudes == null) ? 2 : 3, depth, ringOffsets, partOffsets);
+
+        this.ints      = ints;
+        this.altitudes = altitudes;
+        this.scale     = scale;
+    }
+
+    /**
+     * Writes z values as floats, so they are not shown with the digits added
+     * by widening to double.
+     *
+     * @param sb
+     * @param index
+     */
+    @Override
+    protected void appendValue(StringBuilder sb, int index) {
+        if (dimension == 3 && index % 3 == 2) {
+            sb.append(altitudes[index / 3]);
+        } else {
+            sb.append(getValue(index));
+        }
+    }
+
+    /**
+     * Returns true, the stored values are not given out.
+     *
+     * @return
+     */
+    @Override
+    public boolean isImmutable() {
+        return true;
+    }
+
+    @Override
+    protected double getValue(int index) {
+        if (dimension == 2) {
+            return ints[index] / scale;
+        } else if (index % 3 == 2) {
+            return altitudes[index / 3];
+        } else {
+            return ints[(index / 3) * 2 + index % 3] / scale;
+        }
+    }
+
+    /**
+     * Returns the values widened to a new double array.
+     *
+     * @return
+     */
+    @Override
+    public double[] getValues() {
+        double[] copy = new double[size * dimension];
+
+        for (int i = 0; i < copy.length; i++)
+            copy[i] = getValue(i);
+
+        return copy;
+    }
+
+    @Override
+    public double getX(int index) {
+        return ints[index * 2] / scale;
+    }
+
+    @Override
+    public double getY(int index) {
+        return ints[index * 2 + 1] / scale;
+    }
+
+    @Override
+    public double getZ(int index) {
+        return (altitudes == null) ? Double.NaN : altitudes[index];
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * A CharCursor that reads its chars from a Reader through a sliding window.
+ * Only the token being read is kept, so memory use does not depend on the
+ * length of the input.
+ *
+ * @author Alec Dhuse
+ */
+class ReaderCursor extends CharCursor {
+    private long    offset;
+    private Reader  reader;
+
+    /**
+     * Creates a cursor reading from the given Reader.
+     *
+     * @param reader
+     */
+    public ReaderCursor(Reader reader) {
+        super(new char[8192], 0, 0);
+
+        this.offset = 0;
+        this.reader = reader;
+    }
+
+    /**
+     * Closes the underlying Reader.
+     *
+     * @throws IOException
+     */
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    @Override
+    protected boolean fill() throws IOException {
+        int keep, read;
+
+        keep = (tokenStart >= 0) ? tokenStart : index;
+
+        if (mark >= 0 && mark < keep)
+            keep = mark;
+
+        if (keep > 0) {
+            System.arraycopy(buffer, keep, buffer, 0, limit - keep);
+            offset += keep;
+            index  -= keep;
+            limit  -= keep;
+
+            if (tokenStart >= 0)
+                tokenStart -= keep;
+
+            if (mark >= 0)
+                mark -= keep;
+        }
+
+        if (limit == buffer.length)
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+
+        read = reader.read(buffer, limit, buffer.length - limit);
+
+        if (read > 0) {
+            limit += read;
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    @Override
+    long position() {
+        return offset + index;
+    }
+
+    @Override
+    void seek(long position) {
+        index = (int) (position - offset);
+    }
+
+    @Override
+    JsonCursor slice(long start, long end) {
+        throw new UnsupportedOperationException("A Reader cannot be sliced");
+    }
+}
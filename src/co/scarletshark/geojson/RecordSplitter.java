@@ -0,0 +1,202 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Splits a stream of JSON texts into records.  If the stream starts with an
+ * ASCII record separator it is read as an RFC 7464 / RFC 8142 sequence and
+ * split on record separators, otherwise it is split on line feeds.  Records
+ * containing only whitespace are skipped.
+ *
+ * @author Alec Dhuse
+ */
+class RecordSplitter {
+    static final char RECORD_SEPARATOR = '\u001E';
+    
+    private static final int UNKNOWN = 0;
+    private static final int LINES   = 1;
+    private static final int RECORDS = 2;
+    
+    private char[]  buffer, record;
+    private int     index, limit, mode, recordLength;
+    private long    offset, recordCount, recordStart;
+    private Reader  reader;
+    
+    /**
+     * Creates a splitter reading from the given Reader.
+     * 
+     * @param reader 
+     */
+    public RecordSplitter(Reader reader) {
+        this.reader = reader;
+        this.buffer = new char[8192];
+        this.record = new char[1024];
+        this.mode   = UNKNOWN;
+    }
+    
+    /**
+     * Closes the underlying Reader.
+     * 
+     * @throws IOException 
+     */
+    public void close() throws IOException {
+        reader.close();
+    }
+    
+    /**
+     * Returns the chars of the current record.  Only the first 
+     * getRecordLength() chars are part of the record.
+     * 
+     * @return 
+     */
+    public char[] getRecord() {
+        return record;
+    }
+    
+    /**
+     * Returns the number of records read so far, including the current one.
+     * 
+     * @return 
+     */
+    public long getRecordCount() {
+        return recordCount;
+    }
+    
+    /**
+     * Returns the char offset of the current record from the start of the
+     * stream.
+     * 
+     * @return 
+     */
+    public long getRecordStart() {
+        return recordStart;
+    }
+    
+    /**
+     * Returns the length of the current record.
+     * 
+     * @return 
+     */
+    public int getRecordLength() {
+        return recordLength;
+    }
+    
+    /**
+     * Reads the next record.  Returns false at the end of the stream.
+     * 
+     * @return
+     * @throws IOException 
+     */
+    public boolean next() throws IOException {
+        char    delimiter;
+        int     start;
+        boolean blank;
+        
+        if (mode == UNKNOWN)
+            mode = detectMode();
+        
+        delimiter = (mode == RECORDS) ? RECORD_SEPARATOR : '\n';
+        
+        while (index < limit || fill()) {
+            recordLength = 0;
+            recordStart  = offset + index;
+            blank        = true;
+            
+            while (index < limit || fill()) {
+                start = index;
+                
+                while (index < limit && buffer[index] != delimiter) {
+                    blank &= JsonCursor.isWhiteSpace(buffer[index]);
+                    index++;
+                }
+                
+                append(start, index);
+                
+                if (index < limit) {
+                    //skip the delimiter
+                    index++;
+                    break;
+                }
+            }
+            
+            if (!blank) {
+                recordCount++;
+                return true;
+            }
+        }
+        
+        recordLength = 0;
+        return false;
+    }
+    
+    /**
+     * Adds chars from the buffer to the record.
+     * 
+     * @param start
+     * @param end 
+     */
+    private void append(int start, int end) {
+        int length = end - start;
+        
+        if (recordLength + length > record.length)
+            record = Arrays.copyOf(record, Math.max(record.length * 2, recordLength + length));
+        
+        System.arraycopy(buffer, start, record, recordLength, length);
+        recordLength += length;
+    }
+    
+    /**
+     * Looks at the first non whitespace char to decide how records are
+     * delimited.
+     * 
+     * @return
+     * @throws IOException 
+     */
+    private int detectMode() throws IOException {
+        while (index < limit || fill()) {
+            if (buffer[index] == RECORD_SEPARATOR) {
+                return RECORDS;
+            } else if (!JsonCursor.isWhiteSpace(buffer[index])) {
+                return LINES;
+            } 
+            
+            index++;
+        }
+        
+        return LINES;
+    }
+    
+    /**
+     * Reads more chars into the buffer once it has been used up.
+     * 
+     * @return
+     * @throws IOException 
+     */
+    private boolean fill() throws IOException {
+        int read = reader.read(buffer, 0, buffer.length);
+        
+        offset += limit;
+        index   = 0;
+        limit = Math.max(read, 0);
+        
+        return (read > 0);
+    }
+}
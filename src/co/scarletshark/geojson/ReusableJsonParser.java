@@ -0,0 +1,225 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A JSON object parser that keeps its buffers between documents.  The static
+ * methods of JsonParser create a new char array, cursor, list and coordinate
+ * builder for every call.  This parser copies input into its own growable
+ * buffers and reuses one cursor of each kind, so once the buffers have grown
+ * to fit the documents being read, parsing only creates the result objects.
+ *
+ * Pair names are shared through a KeyDictionary that is kept until reset()
+ * is called, so the names of repeated documents are not copied either.
+ *
+ * Instances are not thread safe.  forCurrentThread() returns a parser for
+ * the calling thread that can be used from any code on that thread.
+ *
+ * @author Alec Dhuse
+ */
+public class ReusableJsonParser {
+    /** Buffers larger than this are dropped by reset(). */
+    protected static final int MAX_KEPT_SIZE = 1024 * 1024;
+
+    private static final ThreadLocal<ReusableJsonParser> PARSERS = new ThreadLocal<ReusableJsonParser>() {
+        @Override
+        protected ReusableJsonParser initialValue() {
+            return new ReusableJsonParser();
+        }
+    };
+
+    protected byte[]            bytes;
+    protected ByteBuffer        byteBuffer;
+    protected ByteCursor        byteCursor;
+    protected char[]            chars;
+    protected CharCursor        charCursor;
+    protected CoordinateStorage storage;
+    protected KeyDictionary     keys;
+
+    /**
+     * Creates a parser with small initial buffers.
+     */
+    public ReusableJsonParser() {
+        this.chars      = new char[1024];
+        this.charCursor = new CharCursor(chars, 0, 0);
+        this.bytes      = new byte[1024];
+        this.byteBuffer = ByteBuffer.wrap(bytes);
+        this.byteCursor = new ByteCursor(byteBuffer, 0, 0);
+        this.keys       = new KeyDictionary();
+    }
+
+    /**
+     * Returns the parser belonging to the calling thread, creating it on
+     * first use.
+     *
+     * @return
+     */
+    public static ReusableJsonParser forCurrentThread() {
+        return PARSERS.get();
+    }
+
+    /**
+     * Returns the KeyDictionary used for pair names.
+     *
+     * @return
+     */
+    public KeyDictionary getKeyDictionary() {
+        return keys;
+    }
+
+    /**
+     * Sets how parsed coordinates are stored, such as in floats or in a
+     * CoordinateArena.  Null, the default, stores full precision values on
+     * the heap.
+     *
+     * @param storage
+     */
+    public void setCoordinateStorage(CoordinateStorage storage) {
+        this.storage = storage;
+    }
+
+    /**
+     * Parses a JSON object from the given text.
+     *
+     * @param text
+     * @return
+     * @throws JsonParseException
+     */
+    public JsonObject parseObject(String text) throws JsonParseException {
+        int length = text.length();
+
+        ensureCharCapacity(length);
+        text.getChars(0, length, chars, 0);
+        charCursor.reset(chars, 0, length);
+
+        return parse(charCursor);
+    }
+
+    /**
+     * Parses a JSON object from part of a char array.  The chars are read
+     * in place and are not copied.
+     *
+     * @param source
+     * @param offset    The index of the first char of the object.
+     * @param length    The number of chars to read.
+     * @return
+     * @throws JsonParseException
+     */
+    public JsonObject parseObject(char[] source, int offset, int length) throws JsonParseException {
+        charCursor.reset(source, offset, offset + length);
+
+        return parse(charCursor);
+    }
+
+    /**
+     * Parses a JSON object from part of a UTF-8 encoded byte array.  The
+     * bytes are copied into the parser's buffer, so the array is not changed.
+     *
+     * @param source
+     * @param offset    The index of the first byte of the object.
+     * @param length    The number of bytes to read.
+     * @return
+     * @throws JsonParseException
+     */
+    public JsonObject parseObject(byte[] source, int offset, int length) throws JsonParseException {
+        if (bytes.length < length) {
+            bytes      = new byte[grow(bytes.length, length)];
+            byteBuffer = ByteBuffer.wrap(bytes);
+        }
+
+        System.arraycopy(source, offset, bytes, 0, length);
+        byteCursor.reset(byteBuffer, 0, length);
+
+        return parse(byteCursor);
+    }
+
+    /**
+     * Drops buffers that have grown past MAX_KEPT_SIZE and starts a new
+     * KeyDictionary.  Call this after reading an unusually large document,
+     * or when the documents being read change to ones with different names.
+     */
+    public void reset() {
+        if (chars.length > MAX_KEPT_SIZE) {
+            chars = new char[1024];
+        }
+
+        if (bytes.length > MAX_KEPT_SIZE) {
+            bytes      = new byte[1024];
+            byteBuffer = ByteBuffer.wrap(bytes);
+        }
+
+        charCursor = new CharCursor(chars, 0, 0);
+        byteCursor = new ByteCursor(byteBuffer, 0, 0);
+        keys       = new KeyDictionary();
+    }
+
+    /**
+     * Grows the char buffer to hold at least the given number of chars.
+     *
+     * @param length
+     */
+    private void ensureCharCapacity(int length) {
+        if (chars.length < length)
+            chars = new char[grow(chars.length, length)];
+    }
+
+    /**
+     * Returns the new size of a buffer that must hold at least the given
+     * length, doubling the current size to avoid growing on each call.
+     *
+     * @param current
+     * @param length
+     * @return
+     */
+    private static int grow(int current, int length) {
+        return Math.max(length, Math.min(current * 2, Integer.MAX_VALUE - 8));
+    }
+
+    /**
+     * Reads a whole object from a reset cursor.  The cursor's source is
+     * released afterwards so documents passed in by callers are not kept.
+     *
+     * @param cursor
+     * @return
+     * @throws JsonParseException
+     */
+    private JsonObject parse(JsonCursor cursor) throws JsonParseException {
+        JsonObject object;
+
+        cursor.keys    = keys;
+        cursor.storage = storage;
+
+        try {
+            object = JsonParser.readObject(cursor, false);
+
+            if (cursor.peek() != -1)
+                throw cursor.error("Unexpected content after object");
+
+            return object;
+        } catch (JsonParseException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new JsonParseException(e.toString(), cursor.position());
+        } finally {
+            if (cursor == charCursor)
+                charCursor.reset(chars, 0, 0);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * A column of strings stored as codes into a dictionary of the distinct 
+ * strings.  Each string is kept once however many rows hold it, and 
+ * filtering on a value compares int codes.  Rows without a value hold -1.
+ *
+ * @author Alec Dhuse
+ */
+public class StringColumn extends PropertyColumn {
+    private ArrayList<String>        dictionary;
+    private HashMap<String, Integer> codes;
+    private int[]                    values;
+
+    /**
+     * Creates an empty column.
+     *
+     * @param name  The property name.
+     */
+    public StringColumn(String name) {
+        super(name);
+        this.codes      = new HashMap<String, Integer>();
+        this.dictionary = new ArrayList<String>();
+        this.values     = new int[0];
+    }
+
+    /**
+     * Returns the code of a string, or -1 if no row holds it.
+     *
+     * @param value
+     * @return
+     */
+    public int getCode(String value) {
+        Integer code = codes.get(value);
+
+        return (code != null) ? code.intValue() : -1;
+    }
+
+    /**
+     * Returns the string for a code.
+     *
+     * @param code
+     * @return
+     */
+    public String getDictionaryValue(int code) {
+        return dictionary.get(code);
+    }
+
+    /**
+     * Returns the number of distinct strings in the column.
+     *
+     * @return
+     */
+    public int getDictionarySize() {
+        return dictionary.size();
+    }
+
+    /**
+     * Returns the string in a row, or null if the row has none.
+     *
+     * @param row
+     * @return
+     */
+    public String getString(int row) {
+        return (row < size && values[row] >= 0) ? dictionary.get(values[row]) : null;
+    }
+
+    @Override
+    public JsonValueType getType() {
+        return JsonValueType.STRING;
+    }
+
+    /**
+     * Returns the array holding the code of each row.  Only the first 
+     * size() codes are rows, and the array is replaced when the column 
+     * grows.
+     *
+     * @return
+     */
+    public int[] getValues() {
+        return values;
+    }
+
+    /**
+     * Returns the rows holding the given string.
+     *
+     * @param value
+     * @return
+     */
+    public int[] select(String value) {
+        int[] rows;
+        int   code, matches;
+
+        code = getCode(value);
+
+        if (code < 0)
+            return new int[0];
+
+        matches = 0;
+
+        for (int i = 0; i < size; i++) {
+            if (values[i] == code)
+                matches++;
+        }
+
+        rows    = new int[matches];
+        matches = 0;
+
+        for (int i = 0; i < size; i++) {
+            if (values[i] == code)
+                rows[matches++] = i;
+        }
+
+        return rows;
+    }
+
+    @Override
+    boolean accepts(JsonValue value) {
+        return (value.getType() == JsonValueType.STRING);
+    }
+
+    @Override
+    void erase(int row) {
+        values[row] = -1;
+    }
+
+    @Override
+    JsonValue read(int row) {
+        return new JsonValue(dictionary.get(values[row]), JsonValueType.STRING);
+    }
+
+    @Override
+    void reserve(int row) {
+        int length = values.length;
+
+        if (row >= length) {
+            values = Arrays.copyOf(values, grow(length, row));
+            Arrays.fill(values, length, values.length, -1);
+        }
+    }
+
+    @Override
+    void write(int row, JsonValue value) {
+        String  string = (String) value.getValue();
+        Integer code   = codes.get(string);
+
+        if (code == null) {
+            code = Integer.valueOf(dictionary.size());
+            codes.put(string, code);
+            dictionary.add(string);
+        }
+
+        values[row] = code.intValue();
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Finds the structural characters of UTF-8 JSON 64 bytes at a time.  Each
+ * 64 byte block is turned into long bitmasks, one bit per byte, for quotes,
+ * backslashes and brackets.  Escaped quotes and everything inside strings
+ * are then removed with bitwise operations, without a branch per byte, and
+ * the positions of the remaining bits are written to an array that the
+ * caller walks.
+ * 
+ * The indexed positions are unescaped quotes and brackets outside of 
+ * strings, which is all that is needed to skip over a value.  Blocks are 
+ * indexed in windows that start at one block and grow with each call, so 
+ * small values are cheap to skip and memory use does not grow with the 
+ * input.
+ *
+ * @author Alec Dhuse
+ */
+final class StructuralIndexer {
+    /** The largest number of 64 byte blocks indexed per call to next(). */
+    private static final int BLOCKS = 16;
+    
+    static final byte QUOTE = 0;
+    static final byte OPEN  = 1;
+    static final byte CLOSE = 2;
+    
+    private static final long EVEN_BITS = 0x5555555555555555L;
+    private static final long ONES      = 0x0101010101010101L;
+    private static final long LOW_BITS  = 0x7F7F7F7F7F7F7F7FL;
+    private static final long CASE_BITS = 0x2020202020202020L;
+    private static final long GATHER    = 0x0102040810204080L;
+    
+    private ByteBuffer buffer;
+    private int        blocks, count, limit, next;
+    private byte[]     kinds;
+    private int[]      positions;
+    private long       inString, oddBackslash;
+    
+    /**
+     * Creates an indexer over a range of a buffer.
+     * 
+     * @param buffer
+     * @param limit     The offset after the last byte to index.
+     */
+    StructuralIndexer(ByteBuffer buffer, int limit) {
+        this.buffer    = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        this.limit     = limit;
+        this.kinds     = new byte[BLOCKS * 64];
+        this.positions = new int[BLOCKS * 64];
+    }
+    
+    /**
+     * Returns the number of positions found by the last call to next().
+     * 
+     * @return 
+     */
+    int getCount() {
+        return count;
+    }
+    
+    /**
+     * Returns what is at each position found by the last call to next(): 
+     * QUOTE, OPEN for '{' or '[', or CLOSE for '}' or ']'.
+     * 
+     * @return 
+     */
+    byte[] getKinds() {
+        return kinds;
+    }
+    
+    /**
+     * Returns the positions found by the last call to next(), in order.
+     * Only the first getCount() entries are valid.
+     * 
+     * @return 
+     */
+    int[] getPositions() {
+        return positions;
+    }
+    
+    /**
+     * Indexes the next window of blocks.  Returns false if the end of the
+     * range has been reached.
+     * 
+     * @return 
+     */
+    boolean next() {
+        count = 0;
+        
+        if (next >= limit)
+            return false;
+        
+        for (int i = 0; i < blocks && next < limit; i++) {
+            indexBlock(next);
+            next += 64;
+        }
+        
+        blocks = Math.min(blocks * 2, BLOCKS);
+        
+        return true;
+    }
+    
+    /**
+     * Starts indexing at the given offset, which must not be inside a 
+     * string.
+     * 
+     * @param start 
+     */
+    void reset(int start) {
+        this.next         = start;
+        this.blocks       = 1;
+        this.count        = 0;
+        this.inString     = 0;
+        this.oddBackslash = 0;
+    }
+    
+    /**
+     * Returns a mask with the high bit of each byte of a word set if that
+     * byte equals c.
+     * 
+     * @param word
+     * @param c
+     * @return 
+     */
+    private static long equalBytes(long word, int c) {
+        long x = word ^ (c * ONES);
+        
+        return ~(((x & LOW_BITS) + LOW_BITS) | x | LOW_BITS);
+    }
+    
+    /**
+     * Packs the high bit of each byte of a word into the low 8 bits.
+     * 
+     * @param mask
+     * @return 
+     */
+    private static long gather(long mask) {
+        return ((mask >>> 7) * GATHER) >>> 56;
+    }
+    
+    /**
+     * Returns a mask with every bit set from each quote up to, but not 
+     * including, the next one.
+     * 
+     * @param quotes
+     * @return 
+     */
+    private static long prefixXor(long quotes) {
+        quotes ^= quotes << 1;
+        quotes ^= quotes << 2;
+        quotes ^= quotes << 4;
+        quotes ^= quotes << 8;
+        quotes ^= quotes << 16;
+        quotes ^= quotes << 32;
+        
+        return quotes;
+    }
+    
+    /**
+     * Finds the characters that follow an odd length run of backslashes,
+     * which are the escaped characters.  A run carried over from the last 
+     * block is taken into account.
+     * 
+     * @param backslashes
+     * @return 
+     */
+    private long escapedChars(long backslashes) {
+        long carry, evenCarries, evenStartMask, evenStarts, oddCarries, oddStarts, startEdges;
+        
+        startEdges    = backslashes & ~(backslashes << 1);
+        evenStartMask = EVEN_BITS ^ oddBackslash;
+        evenStarts    = startEdges & evenStartMask;
+        oddStarts     = startEdges & ~evenStartMask;
+        evenCarries   = backslashes + evenStarts;
+        oddCarries    = backslashes + oddStarts;
+        
+        //A carry out of bit 63 means the block ends in an odd length run
+        carry        = ((oddCarries ^ Long.MIN_VALUE) < (backslashes ^ Long.MIN_VALUE)) ? 1 : 0;
+        oddCarries  |= oddBackslash;
+        oddBackslash = carry;
+        
+        evenCarries &= ~backslashes;
+        oddCarries  &= ~backslashes;
+        
+        return (evenCarries & ~EVEN_BITS) | (oddCarries & EVEN_BITS);
+    }
+    
+    /**
+     * Indexes one block, adding the positions of its structural characters.
+     * 
+     * @param start 
+     */
+    private void indexBlock(int start) {
+        long backslashes, closes, opens, quotes, structural, strings, word;
+        int  bit;
+        
+        backslashes = 0;
+        closes      = 0;
+        opens       = 0;
+        quotes      = 0;
+        
+        for (int i = 0; i < 8; i++) {
+            word         = load(start + i * 8);
+            quotes      |= gather(equalBytes(word, '"'))  << (i * 8);
+            backslashes |= gather(equalBytes(word, '\\')) << (i * 8);
+            
+            //'{' and '[', and '}' and ']', differ only by the 0x20 bit
+            word   |= CASE_BITS;
+            opens  |= gather(equalBytes(word, '{')) << (i * 8);
+            closes |= gather(equalBytes(word, '}')) << (i * 8);
+        }
+        
+        quotes   &= ~escapedChars(backslashes);
+        strings   = prefixXor(quotes) ^ inString;
+        inString  = strings >> 63;
+        opens    &= ~strings;
+        closes   &= ~strings;
+        
+        structural = opens | closes | quotes;
+        
+        if (limit - start < 64)
+            structural &= (1L << (limit - start)) - 1;
+        
+        while (structural != 0) {
+            bit              = Long.numberOfTrailingZeros(structural);
+            positions[count] = start + bit;
+            kinds[count++]   = (byte) (((opens >>> bit) & 1) | ((closes >>> bit) & 1) << 1);
+            structural      &= structural - 1;
+        }
+    }
+    
+    /**
+     * Reads 8 bytes as a little endian word.  Bytes past the limit read as
+     * zero.
+     * 
+     * @param offset
+     * @return 
+     */
+    private long load(int offset) {
+        long word;
+        
+        if (offset + 8 <= limit) {
+            return buffer.getLong(offset);
+        } else {
+            word = 0;
+            
+            for (int i = Math.min(limit, offset + 8) - 1; i >= offset; i--)
+                word = (word << 8) | (buffer.get(i) & 0xFF);
+            
+            return word;
+        }
+    }
+}
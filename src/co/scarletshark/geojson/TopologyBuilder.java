@@ -0,0 +1,372 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Builds a JsonTopology from LineString and Polygon geometries.
+ *
+ * Every distinct position is given an id through an open addressing table.
+ * A position is a junction if it starts or ends a line, starts a ring, or
+ * is seen with different neighbours in different places.  Lines are cut at
+ * junctions into arcs, and arcs that are the same in either direction are
+ * stored once.  Cutting at the first position of rings means geometries 
+ * are rebuilt exactly as they were added.
+ *
+ * @author Alec Dhuse
+ */
+class TopologyBuilder {
+    private boolean         is3D;
+    private double[]        positions;
+    private int             positionCount, mask;
+    private int[]           table;
+
+    private int[]           ids, lineOffsets;
+    private boolean[]       closed;
+    private int             idCount, lineCount;
+
+    private int[]           geometryLineOffsets;
+    private JsonValueType[] types;
+    private int             geometryCount;
+
+    /**
+     * Creates an empty builder.
+     */
+    public TopologyBuilder() {
+        this.positions           = new double[3 * 64];
+        this.table               = new int[128];
+        this.mask                = table.length - 1;
+        this.ids                 = new int[256];
+        this.lineOffsets         = new int[17];
+        this.closed              = new boolean[16];
+        this.geometryLineOffsets = new int[17];
+        this.types               = new JsonValueType[16];
+    }
+
+    /**
+     * Adds a LineString or Polygon to the topology.
+     *
+     * @param geometry
+     */
+    void add(GeoJsonObject geometry) {
+        JsonCoordinateSequence sequence;
+        boolean                isRing;
+
+        if (geometry instanceof JsonPolygon) {
+            isRing = true;
+        } else if (geometry instanceof JsonLineString) {
+            isRing = false;
+        } else {
+            throw new IllegalArgumentException("Only LineString and Polygon geometries can be added to a topology");
+        }
+
+        sequence = geometry.getCoordinateSequence();
+
+        if (sequence.getDimension() == 3)
+            is3D = true;
+
+        for (int r = 0; r < sequence.getRingCount(); r++)
+            addLine(sequence, sequence.getRingStart(r), sequence.getRingEnd(r), isRing);
+
+        if (geometryCount == types.length) {
+            types               = Arrays.copyOf(types, geometryCount * 2);
+            geometryLineOffsets = Arrays.copyOf(geometryLineOffsets, geometryCount * 2 + 1);
+        }
+
+        types[geometryCount++]             = isRing ? JsonValueType.POLYGON : JsonValueType.LINESTRING;
+        geometryLineOffsets[geometryCount] = lineCount;
+    }
+
+    /**
+     * Builds the topology from the geometries added.
+     *
+     * @return
+     */
+    JsonTopology build() {
+        HashMap<IdRun, Integer> arcIndexes;
+        boolean[]               junctions;
+        double[]                arcValues;
+        int[]                   arcRefs, arcIds, arcOffsets, ringArcOffsets, run;
+        int                     arcCount, arcIdCount, dimension, id, length, refCount, start;
+
+        junctions      = findJunctions();
+        arcIndexes     = new HashMap<IdRun, Integer>();
+        arcIds         = new int[idCount + lineCount];
+        arcOffsets     = new int[17];
+        arcRefs        = new int[16];
+        ringArcOffsets = new int[lineCount + 1];
+        run            = new int[16];
+        arcCount       = 0;
+        arcIdCount     = 0;
+        refCount       = 0;
+
+        for (int l = 0; l < lineCount; l++) {
+            start  = lineOffsets[l];
+            length = lineOffsets[l + 1] - start;
+
+            for (int k = 0, runLength = 0; k <= length; k++) {
+                if (k == length) {
+                    //Rings end back at their first position
+                    if (!closed[l] || length == 0)
+                        break;
+
+                    id = ids[start];
+                } else {
+                    id = ids[start + k];
+                }
+
+                if (runLength == run.length)
+                    run = Arrays.copyOf(run, runLength * 2);
+
+                run[runLength++] = id;
+
+                if ((junctions[id] && runLength > 1) || (length == 1 && !closed[l])) {
+                    IdRun   arc      = new IdRun(run, runLength);
+                    Integer index    = arcIndexes.get(arc);
+                    boolean reversed = arc.reversed;
+
+                    if (index == null) {
+                        index = arcCount++;
+                        arcIndexes.put(arc, index);
+
+                        if (arcOffsets.length <= arcCount)
+                            arcOffsets = Arrays.copyOf(arcOffsets, arcCount * 2 + 1);
+
+                        if (arcIdCount + runLength > arcIds.length)
+                            arcIds = Arrays.copyOf(arcIds, (arcIdCount + runLength) * 2);
+
+                        System.arraycopy(arc.ids, 0, arcIds, arcIdCount, runLength);
+                        arcIdCount          += runLength;
+                        arcOffsets[arcCount] = arcIdCount;
+                    }
+
+                    if (refCount == arcRefs.length)
+                        arcRefs = Arrays.copyOf(arcRefs, refCount * 2);
+
+                    arcRefs[refCount++] = reversed ? ~index.intValue() : index.intValue();
+                    run[0]    = id;
+                    runLength = 1;
+                }
+            }
+
+            ringArcOffsets[l + 1] = refCount;
+        }
+
+        dimension = is3D ? 3 : 2;
+        arcValues = new double[arcIdCount * dimension];
+
+        for (int i = 0; i < arcIdCount; i++) {
+            for (int d = 0; d < dimension; d++)
+                arcValues[i * dimension + d] = positions[arcIds[i] * 3 + d];
+        }
+
+        return new JsonTopology(new JsonCoordinateSequence(arcValues, dimension, 2, Arrays.copyOf(arcOffsets, arcCount + 1), null),
+                                Arrays.copyOf(arcRefs, refCount), ringArcOffsets,
+                                Arrays.copyOf(geometryLineOffsets, geometryCount + 1),
+                                Arrays.copyOf(types, geometryCount));
+    }
+
+    /**
+     * Adds the ids of the positions of a line or ring.  The closing position
+     * of a ring is not added.
+     *
+     * @param sequence
+     * @param start
+     * @param end
+     * @param isRing
+     */
+    private void addLine(JsonCoordinateSequence sequence, int start, int end, boolean isRing) {
+        int first;
+
+        if (idCount + end - start > ids.length)
+            ids = Arrays.copyOf(ids, (idCount + end - start) * 2);
+
+        first = idCount;
+
+        for (int i = start; i < end; i++)
+            ids[idCount++] = getId(sequence.getX(i), sequence.getY(i), sequence.getZ(i));
+
+        if (isRing && idCount - first > 1 && ids[idCount - 1] == ids[first])
+            idCount--;
+
+        if (lineCount == closed.length) {
+            closed      = Arrays.copyOf(closed, lineCount * 2);
+            lineOffsets = Arrays.copyOf(lineOffsets, lineCount * 2 + 1);
+        }
+
+        closed[lineCount++]    = isRing;
+        lineOffsets[lineCount] = idCount;
+    }
+
+    /**
+     * Marks the positions where arcs must start or end.
+     *
+     * @return
+     */
+    private boolean[] findJunctions() {
+        boolean[] junctions;
+        int[]     neighbourA, neighbourB;
+        int       a, b, id, length, next, previous, start;
+
+        junctions  = new boolean[positionCount];
+        neighbourA = new int[positionCount];
+        neighbourB = new int[positionCount];
+
+        Arrays.fill(neighbourA, -1);
+
+        for (int l = 0; l < lineCount; l++) {
+            start  = lineOffsets[l];
+            length = lineOffsets[l + 1] - start;
+
+            for (int k = 0; k < length; k++) {
+                id = ids[start + k];
+
+                if (k == 0 || (!closed[l] && k == length - 1)) {
+                    junctions[id] = true;
+                    continue;
+                }
+
+                previous = ids[start + k - 1];
+                next     = ids[start + (k + 1) % length];
+                a        = Math.min(previous, next);
+                b        = Math.max(previous, next);
+
+                if (neighbourA[id] < 0) {
+                    neighbourA[id] = a;
+                    neighbourB[id] = b;
+                } else if (neighbourA[id] != a || neighbourB[id] != b) {
+                    junctions[id] = true;
+                }
+            }
+        }
+
+        return junctions;
+    }
+
+    /**
+     * Returns the id of a position, adding it if it has not been seen.
+     *
+     * @param x
+     * @param y
+     * @param z
+     * @return
+     */
+    private int getId(double x, double y, double z) {
+        int entry, slot;
+
+        slot = hash(x, y, z) & mask;
+
+        while ((entry = table[slot]) != 0) {
+            if (positions[(entry - 1) * 3] == x && positions[(entry - 1) * 3 + 1] == y &&
+                    Double.doubleToLongBits(positions[(entry - 1) * 3 + 2]) == Double.doubleToLongBits(z))
+                return entry - 1;
+
+            slot = (slot + 1) & mask;
+        }
+
+        if ((positionCount + 1) * 3 > positions.length)
+            positions = Arrays.copyOf(positions, positions.length * 2);
+
+        positions[positionCount * 3]     = x;
+        positions[positionCount * 3 + 1] = y;
+        positions[positionCount * 3 + 2] = z;
+        table[slot]                      = ++positionCount;
+
+        if (positionCount * 2 > table.length)
+            rehash();
+
+        return positionCount - 1;
+    }
+
+    /**
+     * Returns the hash of a position.  0.0 and -0.0 hash the same as they 
+     * are compared with ==.
+     *
+     * @param x
+     * @param y
+     * @param z
+     * @return
+     */
+    private static int hash(double x, double y, double z) {
+        long bits;
+
+        bits = Double.doubleToLongBits(x + 0.0);
+        bits = bits * 31 + Double.doubleToLongBits(y + 0.0);
+        bits = bits * 31 + Double.doubleToLongBits(z);
+        bits = bits ^ (bits >>> 32);
+
+        return (int) (bits ^ (bits >>> 16));
+    }
+
+    /**
+     * Doubles the size of the position table.
+     */
+    private void rehash() {
+        int slot;
+
+        table = new int[table.length * 2];
+        mask  = table.length - 1;
+
+        for (int i = 0; i < positionCount; i++) {
+            slot = hash(positions[i * 3], positions[i * 3 + 1], positions[i * 3 + 2]) & mask;
+
+            while (table[slot] != 0)
+                slot = (slot + 1) & mask;
+
+            table[slot] = i + 1;
+        }
+    }
+
+    /**
+     * A run of position ids stored in the direction that compares lowest, 
+     * so an arc and its reverse are equal.
+     */
+    private static class IdRun {
+        final boolean reversed;
+        final int[]   ids;
+        final int     hash;
+
+        IdRun(int[] run, int length) {
+            int compare = 0;
+
+            for (int i = 0; i < length && compare == 0; i++) {
+                if (run[i] != run[length - 1 - i])
+                    compare = (run[i] < run[length - 1 - i]) ? -1 : 1;
+            }
+
+            reversed = (compare > 0);
+            ids      = new int[length];
+
+            for (int i = 0; i < length; i++)
+                ids[i] = reversed ? run[length - 1 - i] : run[i];
+
+            hash = Arrays.hashCode(ids);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return (obj instanceof IdRun && Arrays.equals(ids, ((IdRun) obj).ids));
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import java.util.Arrays;
+
+/**
+ * A column of JsonValues, used for objects, arrays and properties whose 
+ * values are of more than one type.
+ *
+ * @author Alec Dhuse
+ */
+class ValueColumn extends PropertyColumn {
+    private JsonValue[] values;
+
+    /**
+     * Creates an empty column.
+     *
+     * @param name  The property name.
+     */
+    ValueColumn(String name) {
+        super(name);
+        this.values = new JsonValue[0];
+    }
+
+    @Override
+    public JsonValueType getType() {
+        return JsonValueType.OTHER;
+    }
+
+    /**
+     * Accepts any value once the column holds one.  A column holding only
+     * null rows does not accept numbers, booleans or strings, so it can be
+     * replaced by a typed column.
+     *
+     * @param value
+     * @return
+     */
+    @Override
+    boolean accepts(JsonValue value) {
+        JsonValueType type = value.getType();
+
+        return (count > 0 || (type != JsonValueType.NUMBER && type != JsonValueType.BOOLEAN && type != JsonValueType.STRING));
+    }
+
+    @Override
+    void erase(int row) {
+        values[row] = null;
+    }
+
+    @Override
+    JsonValue read(int row) {
+        return values[row];
+    }
+
+    @Override
+    void reserve(int row) {
+        if (row >= values.length)
+            values = Arrays.copyOf(values, grow(values.length, row));
+    }
+
+    @Override
+    void write(int row, JsonValue value) {
+        values[row] = value;
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import java.io.IOException;
+import java.io.StringReader;
+import static org.junit.Assert.*;
+import org.junit.*;
+
+/**
+ * Test class for CoordinateArena.
+ * 
+ * @author Alec Dhuse
+ */
+public class CoordinateArenaTest {
+    
+    public CoordinateArenaTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+    
+    @Before
+    public void setUp() {
+    }
+    
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of store method, of class CoordinateArena.
+     */
+    @Test
+    public void testStore() {
+        System.out.println("store");
+        
+        CoordinateArena        arena = new CoordinateArena();
+        JsonCoordinateSequence large, small, stored;
+        double[]               values;
+        
+        values = new double[CoordinateArena.BLOCK_SIZE + 2];
+        
+        for (int i = 0; i < values.length; i++)
+            values[i] = i * 0.5;
+        
+        small  = JsonCoordinateSequence.pack(JsonParserTest.getExLine(0).getCoordinates(), 1);
+        large  = new JsonCoordinateSequence(values, 2, 1, null, null);
+        stored = arena.store(small);
+        
+        assertEquals(small, stored);
+        assertEquals(small.hashCode(), stored.hashCode());
+        assertEquals(large, arena.store(large));
+        assertEquals(small, arena.store(small));
+        assertEquals(small, stored);
+        assertArrayEquals(small.getValues(), stored.getValues(), 0);
+        
+        arena.close();
+        assertTrue(arena.isClosed());
+        
+        try {
+            stored.getX(0);
+            fail("Expected an IllegalStateException");
+        } catch (IllegalStateException e) {
+        }
+    }
+
+    /**
+     * Test of reading features into an arena.
+     */
+    @Test
+    public void testReadIntoArena() throws IOException {
+        System.out.println("readIntoArena");
+        
+        String          text   = ParallelFeatureParserTest.getExampleCollection(20);
+        CoordinateArena arena  = new CoordinateArena();
+        GeoJsonReader   heap   = new GeoJsonReader(new StringReader(text));
+        GeoJsonReader   reader = new GeoJsonReader(new StringReader(text));
+        GeoJsonObject   geometry;
+        JsonObject      feature;
+        
+        reader.setCoordinateStorage(arena);
+        
+        while (reader.hasNext()) {
+            feature = reader.next();
+            
+            geometry = (GeoJsonObject) feature.getPairByName("geometry").getValue().getValue();
+            
+            assertTrue(geometry.getCoordinateSequence() instanceof ArenaCoordinateSequence);
+            assertEquals(heap.next(), feature);
+        }
+        
+        assertTrue(arena.getAllocatedBytes() > 0);
+        arena.close();
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import java.io.IOException;
+import static org.junit.Assert.*;
+import org.junit.*;
+
+/**
+ * Test class for CoordinateStorage.
+ * 
+ * @author Alec Dhuse
+ */
+public class CoordinateStorageTest {
+    private static final String POLYGON = "{\"type\": \"Polygon\", \"coordinates\": " +
+            "[[[100.1, 0.25, 12.3], [101.0, 0.0, 1.5], [101.0, 1.0, 2.0], [100.1, 0.25, 12.3]]]}";
+    
+    public CoordinateStorageTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+    
+    @Before
+    public void setUp() {
+    }
+    
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of the FLOAT storage.
+     */
+    @Test
+    public void testFloat() throws IOException {
+        System.out.println("float");
+        
+        JsonCoordinateSequence sequence = parse(CoordinateStorage.FLOAT);
+        
+        assertTrue(sequence instanceof FloatCoordinateSequence);
+        assertEquals(100.1, sequence.getX(0), 1e-5);
+        assertEquals(0.25, sequence.getY(0), 0);
+        assertEquals(12.3, sequence.getZ(0), 1e-5);
+        assertEquals(1, sequence.getRingCount());
+        assertEquals("[[[100.1 , 0.25 , 12.3], [101.0 , 0.0 , 1.5], [101.0 , 1.0 , 2.0], [100.1 , 0.25 , 12.3]]]", 
+                     sequence.toString());
+    }
+
+    /**
+     * Test of the quantized method, of class CoordinateStorage.
+     */
+    @Test
+    public void testQuantized() throws IOException {
+        System.out.println("quantized");
+        
+        JsonCoordinateSequence sequence = parse(CoordinateStorage.quantized(1e7));
+        
+        assertTrue(sequence instanceof QuantizedCoordinateSequence);
+        assertEquals(parse(CoordinateStorage.DOUBLE).toString(), sequence.toString());
+        assertEquals(100.1, sequence.getX(0), 0);
+        assertEquals(12.3, sequence.getZ(0), 1e-5);
+        assertArrayEquals(parse(CoordinateStorage.DOUBLE).getValues(), sequence.getValues(), 1e-5);
+        
+        try {
+            parse(CoordinateStorage.quantized(1e9));
+            fail("Expected a JsonParseException");
+        } catch (JsonParseException e) {
+            assertTrue(e.getReason().contains("out of range"));
+        }
+    }
+    
+    /**
+     * Parses the test polygon with the given storage and returns its 
+     * coordinates.
+     * 
+     * @param storage
+     * @return
+     * @throws IOException 
+     */
+    private static JsonCoordinateSequence parse(CoordinateStorage storage) throws IOException {
+        ReusableJsonParser parser = new ReusableJsonParser();
+        JsonObject         object;
+        
+        parser.setCoordinateStorage(storage);
+        object = parser.parseObject(POLYGON);
+        
+        return JsonParser.parseGeometry(object).getCoordinateSequence();
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Compares FastDoubleParser with the String and Double.parseDouble path the
+ * parser used before.  Run the main method from the test class path.
+ * 
+ * JMH is not part of this project's build, so this uses warm up rounds and
+ * System.nanoTime() instead; expect some noise between runs.
+ * 
+ * @author Alec Dhuse
+ */
+public class FastDoubleParserBenchmark {
+    private static final int ROUNDS = 10;
+    private static final int TOKENS = 1000000;
+    
+    public static void main(String[] args) {
+        char[]  buffer;
+        int[]   offsets;
+        
+        offsets = new int[TOKENS + 1];
+        buffer  = createCoordinateTokens(offsets);
+        
+        for (int round = 0; round < ROUNDS; round++) {
+            long   start;
+            double stringTime, fastTime, sum;
+            
+            sum   = 0;
+            start = System.nanoTime();
+            
+            for (int i = 0; i < TOKENS; i++) {
+                Double value = new Double(Double.parseDouble(new String(buffer, offsets[i], offsets[i + 1] - offsets[i])));
+                sum += value.doubleValue();
+            }
+            
+            stringTime = (System.nanoTime() - start) / (double) TOKENS;
+            start      = System.nanoTime();
+            
+            for (int i = 0; i < TOKENS; i++) 
+                sum -= FastDoubleParser.parse(buffer, offsets[i], offsets[i + 1]);
+            
+            fastTime = (System.nanoTime() - start) / (double) TOKENS;
+            
+            System.out.println("Round " + round + ": String path " + stringTime + 
+                               " ns/token, fast path " + fastTime + 
+                               " ns/token (check " + sum + ")");
+        }
+    }
+    
+    /**
+     * Returns a buffer of longitude and latitude tokens with six decimal 
+     * places, and fills in the offset of each token.
+     * 
+     * @param offsets
+     * @return 
+     */
+    private static char[] createCoordinateTokens(int[] offsets) {
+        Random        random = new Random(42);
+        StringBuilder sb     = new StringBuilder();
+        
+        for (int i = 0; i < TOKENS; i++) {
+            offsets[i] = sb.length();
+            sb.append(String.format(Locale.ROOT, "%.6f", (random.nextDouble() * 360) - 180));
+        }
+        
+        offsets[TOKENS] = sb.length();
+        
+        return sb.toString().toCharArray();
+    }
+}
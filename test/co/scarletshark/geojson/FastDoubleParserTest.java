@@ -0,0 +1,124 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import static org.junit.Assert.*;
+import org.junit.*;
+
+/**
+ * Test class for FastDoubleParser.
+ * 
+ * @author Alec Dhuse
+ */
+public class FastDoubleParserTest {
+    
+    public FastDoubleParserTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+    
+    @Before
+    public void setUp() {
+    }
+    
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of parse method, of class FastDoubleParser, with values near
+     * rounding and range limits.
+     */
+    @Test
+    public void testParseEdgeCases() {
+        System.out.println("parse edge cases");
+        
+        String[] values = {"0", "-0", "-122.67", "45.52", "0.1", "1E5", "1e+5",
+                           "9007199254740993", "12345678901234567890", 
+                           "1.7976931348623157e308", "1.7976931348623159e308",
+                           "2.2250738585072011e-308", "4.9e-324", 
+                           "2.4703282292062327e-324", "1e-400", "1e400", 
+                           "9.999999999999999e22", "7.2057594037927933e16",
+                           "0.000000000000000000000000000001"};
+        
+        for (String value: values)
+            assertParse(value);
+    }
+    
+    /**
+     * Test of parse method, of class FastDoubleParser, against 
+     * Double.parseDouble for random values.
+     */
+    @Test
+    public void testParseRandom() {
+        System.out.println("parse random");
+        
+        Random random = new Random(42);
+        
+        for (int i = 0; i < 100000; i++) {
+            double value = Double.longBitsToDouble(random.nextLong());
+            
+            if (!Double.isNaN(value) && !Double.isInfinite(value))
+                assertParse(Double.toString(value));
+            
+            assertParse(Double.toString(random.nextDouble() * 360 - 180));
+        }
+    }
+    
+    /**
+     * Test of parse method, of class FastDoubleParser, with text that is not
+     * a number.
+     */
+    @Test
+    public void testParseInvalid() {
+        System.out.println("parse invalid");
+        
+        String[] values = {"", "-", "abc", "1e", "1.2.3", "--1", "1e5x"};
+        
+        for (String value: values) {
+            try {
+                FastDoubleParser.parse(value.toCharArray(), 0, value.length());
+                fail("Accepted " + value);
+            } catch (NumberFormatException e) {
+                //expected
+            }
+        }
+    }
+    
+    /**
+     * Checks that both parse methods give the same result as 
+     * Double.parseDouble.
+     * 
+     * @param value 
+     */
+    private static void assertParse(String value) {
+        long expected = Double.doubleToRawLongBits(Double.parseDouble(value));
+        
+        assertEquals(value, expected, Double.doubleToRawLongBits(
+                FastDoubleParser.parse(value.toCharArray(), 0, value.length())));
+        assertEquals(value, expected, Double.doubleToRawLongBits(
+                FastDoubleParser.parse(ByteBuffer.wrap(value.getBytes()), 0, value.length())));
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Random;
+import static org.junit.Assert.*;
+import org.junit.*;
+
+/**
+ * Test class for GeoJsonPushParser.
+ * 
+ * @author Alec Dhuse
+ */
+public class GeoJsonPushParserTest {
+    
+    public GeoJsonPushParserTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+    
+    @Before
+    public void setUp() {
+    }
+    
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of feed method, of class GeoJsonPushParser, with chunks that split
+     * tokens and multi-byte characters.
+     */
+    @Test
+    public void testFeed() throws IOException {
+        System.out.println("feed");
+        
+        String            text      = "\ufeff" + ParallelFeatureParserTest.getExampleCollection(100).replace("road", "ro\u00e4d");
+        JsonObject        expResult = JsonParser.parseObject(text.substring(1));
+        Object[]          features  = expResult.getPairByName("features").getValueAsArray();
+        CollectingHandler handler   = new CollectingHandler();
+        GeoJsonPushParser parser    = new GeoJsonPushParser(handler);
+        
+        feed(parser, text.getBytes("UTF-8"), 7);
+        parser.endOfInput();
+        
+        assertArrayEquals(features, handler.features.toArray());
+        assertEquals(1, handler.collections.size());
+        assertEquals(2, handler.collections.get(0).getPairs().size());
+        assertEquals("ro\u00e4ds", handler.collections.get(0).getPairByName("name").getValueAsString());
+    }
+    
+    /**
+     * Test of feed method, of class GeoJsonPushParser, with the features 
+     * array first, last and between other pairs.
+     */
+    @Test
+    public void testFeedFeaturesPosition() throws IOException {
+        System.out.println("feed features position");
+        
+        String[] texts = {"{\"type\": \"FeatureCollection\", \"features\": [{\"id\": 1}]}",
+                          "{\"features\": [{\"id\": 1}], \"type\": \"FeatureCollection\"}",
+                          "{\"type\": \"FeatureCollection\" , \"features\": [{\"id\": 1}] , \"name\": \"a\"}",
+                          "{ \"features\": [] }"};
+        int[]    sizes = {1, 1, 2, 0};
+        
+        for (int i = 0; i < texts.length; i++) {
+            CollectingHandler handler = new CollectingHandler();
+            GeoJsonPushParser parser  = new GeoJsonPushParser(handler);
+            
+            feed(parser, texts[i].getBytes("UTF-8"), 3);
+            parser.endOfInput();
+            
+            assertEquals(1, handler.collections.size());
+            assertEquals(sizes[i], handler.collections.get(0).getPairs().size());
+        }
+    }
+    
+    /**
+     * Test of feed method, of class GeoJsonPushParser, with missing and 
+     * extra commas between features.  The errors are found at the same 
+     * offsets as by the other parsers.
+     */
+    @Test
+    public void testFeedMalformedArray() throws IOException {
+        System.out.println("feed malformed array");
+        
+        String[] texts   = {"{\"features\": [,{\"id\": 1}]}",
+                            "{\"features\": [{\"id\": 1} {\"id\": 2}]}",
+                            "{\"features\": [{\"id\": 1},,{\"id\": 2}]}",
+                            "{\"features\": [,,{\"id\": 1},,{\"id\": 2}{\"id\": 3},]}"};
+        String[] reasons = {"Expected feature object", "Expected ',' or ']'", "Expected feature object", 
+                            "Expected feature object"};
+        
+        for (int i = 0; i < texts.length; i++) {
+            GeoJsonPushParser parser = new GeoJsonPushParser(new CollectingHandler());
+            long              expected = -1;
+            
+            try {
+                new ReusableJsonParser().parseObject(texts[i]);
+                fail("Expected a JsonParseException");
+            } catch (JsonParseException e) {
+                expected = e.getOffset();
+            }
+            
+            try {
+                feed(parser, texts[i].getBytes("UTF-8"), 3);
+                parser.endOfInput();
+                fail("Expected a JsonParseException");
+            } catch (JsonParseException e) {
+                assertEquals(reasons[i], e.getReason());
+                assertEquals(expected, e.getOffset());
+            }
+        }
+    }
+    
+    /**
+     * Test of feed method, of class GeoJsonPushParser, with a single Feature.
+     */
+    @Test
+    public void testFeedFeature() throws IOException {
+        System.out.println("feed feature");
+        
+        String            text    = "{\"type\": \"Feature\", \"properties\": {\"features\": [1]}}";
+        CollectingHandler handler = new CollectingHandler();
+        GeoJsonPushParser parser  = new GeoJsonPushParser(handler);
+        
+        feed(parser, text.getBytes("UTF-8"), 3);
+        parser.endOfInput();
+        
+        assertEquals(1, handler.features.size());
+        assertEquals(JsonParser.parseObject(text), handler.features.get(0));
+    }
+    
+    /**
+     * Test of endOfInput method, of class GeoJsonPushParser, with incomplete
+     * input.
+     */
+    @Test(expected = JsonParseException.class)
+    public void testEndOfInputIncomplete() throws IOException {
+        System.out.println("endOfInput incomplete");
+        
+        CollectingHandler handler = new CollectingHandler();
+        GeoJsonPushParser parser  = new GeoJsonPushParser(handler);
+        
+        parser.feed(ByteBuffer.wrap("{\"features\": [{\"id\": 1}, {\"id\"".getBytes("UTF-8")));
+        assertEquals(1, handler.features.size());
+        parser.endOfInput();
+    }
+    
+    /**
+     * Feeds bytes to a parser in chunks of random size.
+     * 
+     * @param parser
+     * @param bytes
+     * @param maxChunk
+     * @throws IOException 
+     */
+    private static void feed(GeoJsonPushParser parser, byte[] bytes, int maxChunk) throws IOException {
+        Random random = new Random(42);
+        int    length;
+        
+        for (int i = 0; i < bytes.length; i += length) {
+            length = Math.min(1 + random.nextInt(maxChunk), bytes.length - i);
+            parser.feed(ByteBuffer.wrap(bytes, i, length).slice());
+        }
+    }
+    
+    /**
+     * A handler that keeps everything it is given.
+     */
+    private static class CollectingHandler implements FeatureHandler {
+        ArrayList<JsonObject> collections = new ArrayList<JsonObject>();
+        ArrayList<JsonObject> features    = new ArrayList<JsonObject>();
+
+        @Override
+        public void feature(JsonObject feature) {
+            features.add(feature);
+        }
+
+        @Override
+        public void collection(JsonObject collection) {
+            collections.add(collection);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import static org.junit.Assert.*;
+import org.junit.*;
+
+/**
+ * Test class for GeoJsonReader.
+ * 
+ * @author Alec Dhuse
+ */
+public class GeoJsonReaderTest {
+    
+    public GeoJsonReaderTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+    
+    @Before
+    public void setUp() {
+    }
+    
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of next method, of class GeoJsonReader.
+     */
+    @Test
+    public void testNext() throws IOException {
+        System.out.println("next");
+        
+        Object[]      expected = JsonParserTest.getExampleJson1().getPairByName("features").getValueAsArray();
+        GeoJsonReader reader   = new GeoJsonReader(getTrickleReader(JsonParserTest.getExampleString1()));
+        
+        for (int i = 0; i < expected.length; i++) {
+            assertTrue(reader.hasNext());
+            assertEquals(expected[i], reader.next());
+        }
+        
+        assertFalse(reader.hasNext());
+        assertEquals("FeatureCollection", reader.getCollection().getPairByName("type").getValueAsString());
+        reader.close();
+    }
+    
+    /**
+     * Test of next method, of class GeoJsonReader, with pairs after the 
+     * features array.
+     */
+    @Test
+    public void testNextTrailingPairs() throws IOException {
+        System.out.println("next trailing pairs");
+        
+        String        text   = "{\"features\": [{\"type\": \"Feature\", \"id\": 1}], \"type\": \"FeatureCollection\"}";
+        GeoJsonReader reader = new GeoJsonReader(new StringReader(text));
+        
+        assertEquals(1.0, (Double) reader.next().getPairByName("id").getValue().getValue(), 0.0);
+        assertFalse(reader.hasNext());
+        assertEquals("FeatureCollection", reader.getCollection().getPairByName("type").getValueAsString());
+    }
+    
+    /**
+     * Test of next method, of class GeoJsonReader, with a FieldSelection.
+     */
+    @Test
+    public void testNextSelected() throws IOException {
+        System.out.println("next selected");
+        
+        String         text   = ParallelFeatureParserTest.getExampleCollection(20);
+        FieldSelection fields = new FieldSelection("geometry", "properties.name");
+        GeoJsonReader  reader = new GeoJsonReader(getTrickleReader(text), fields);
+        JsonObject     feature;
+        int            count  = 0;
+        
+        while (reader.hasNext()) {
+            feature = reader.next();
+            
+            assertEquals(2, feature.getPairs().size());
+            assertEquals(JsonValue.LINESTRING, feature.getPairByName("geometry").getValue().getValueType());
+            assertEquals(1, feature.getPairByName("properties").getValueAsObject().getPairs().size());
+            assertEquals("road \\\"" + count + "\\\" [}", 
+                         feature.getPairByName("properties").getValueAsObject().getPairByName("name").getValueAsString());
+            count++;
+        }
+        
+        assertEquals(20, count);
+    }
+    
+    /**
+     * Test of next method, of class GeoJsonReader, in tolerant mode.
+     */
+    @Test
+    public void testNextTolerant() throws IOException {
+        System.out.println("next tolerant");
+        
+        final ArrayList<FeatureError> errors = new ArrayList<FeatureError>();
+        
+        String        text   = "{\"type\": \"FeatureCollection\", \"features\": [" +
+                               "{\"id\": 0}, " +
+                               "{\"id\": 1, \"geometry\": {\"type\": \"Point\", \"coordinates\": [1, ]}}, " +
+                               "{\"id\" 2, \"name\": \"[}\"}, " +
+                               "{\"id\": 3} " +
+                               "{\"id\": 4}]}";
+        GeoJsonReader reader = new GeoJsonReader(getTrickleReader(text));
+        StringBuilder ids    = new StringBuilder();
+        
+        reader.setErrorHandler(new FeatureErrorHandler() {
+            @Override
+            public void error(FeatureError error) {
+                errors.add(error);
+            }
+        });
+        
+        while (reader.hasNext()) {
+            JsonObject feature = reader.next();
+            
+            ids.append(feature.getPairByName("id").getValueAsString());
+            ids.append(feature.getPairs().size());
+            ids.append(' ');
+        }
+        
+        assertEquals("0.01 1.01 3.01 4.01 ", ids.toString());
+        assertEquals(2, reader.getRepairedCount());
+        assertEquals(1, reader.getSkippedCount());
+        assertEquals(3, errors.size());
+        
+        assertTrue(errors.get(0).isRepaired());
+        assertTrue(errors.get(0).isPairDropped());
+        assertEquals(1, errors.get(0).getFeatureIndex());
+        assertEquals(text.indexOf(", ]") + 2, errors.get(0).getOffset());
+        
+        assertFalse(errors.get(1).isRepaired());
+        assertEquals(2, errors.get(1).getFeatureIndex());
+        assertEquals(text.indexOf(" 2,") + 1, errors.get(1).getOffset());
+        
+        assertTrue(errors.get(2).isRepaired());
+        assertFalse(errors.get(2).isPairDropped());
+        assertEquals(4, errors.get(2).getFeatureIndex());
+        assertEquals("FeatureCollection", reader.getCollection().getPairByName("type").getValueAsString());
+    }
+    
+    /**
+     * Test of next method, of class GeoJsonReader, in tolerant mode with 
+     * features that have more than one error or an invalid geometry.
+     */
+    @Test
+    public void testNextTolerantRepairs() throws IOException {
+        System.out.println("next tolerant repairs");
+        
+        final ArrayList<FeatureError> errors = new ArrayList<FeatureError>();
+        
+        String        text   = "{\"type\": \"FeatureCollection\", \"features\": [" +
+                               "{\"id\": 0} " +
+                               "{\"id\": 1, \"name\": tru, \"size\": 2}, " +
+                               "{\"id\": 2, \"geometry\": {\"type\": \"MultiPolygon\", \"coordinates\": [[0, 0], [1, 1]]}}]}";
+        GeoJsonReader reader = new GeoJsonReader(getTrickleReader(text));
+        StringBuilder ids    = new StringBuilder();
+        
+        reader.setErrorHandler(new FeatureErrorHandler() {
+            @Override
+            public void error(FeatureError error) {
+                errors.add(error);
+            }
+        });
+        
+        while (reader.hasNext()) {
+            JsonObject feature = reader.next();
+            
+            ids.append(feature.getPairByName("id").getValueAsString());
+            ids.append(feature.getPairs().size());
+            ids.append(' ');
+        }
+        
+        assertEquals("0.01 1.02 2.01 ", ids.toString());
+        assertEquals(2, reader.getRepairedCount());
+        assertEquals(0, reader.getSkippedCount());
+        assertEquals(3, errors.size());
+        
+        //The missing comma and the bad pair are both in feature 1
+        assertEquals(1, errors.get(0).getFeatureIndex());
+        assertTrue(errors.get(0).toString().endsWith(", repaired"));
+        assertEquals(1, errors.get(1).getFeatureIndex());
+        assertTrue(errors.get(1).toString().endsWith(", pair dropped"));
+        
+        assertEquals(2, errors.get(2).getFeatureIndex());
+        assertTrue(errors.get(2).isPairDropped());
+        assertTrue(errors.get(2).getReason().startsWith("Invalid geometry"));
+        assertEquals(text.indexOf("{\"type\": \"MultiPolygon"), errors.get(2).getOffset());
+    }
+    
+    /**
+     * Returns a Reader that only supplies one char per read, so that every
+     * token crosses a buffer boundary.
+     * 
+     * @param text
+     * @return 
+     */
+    public static Reader getTrickleReader(String text) {
+        return new FilterReader(new StringReader(text)) {
+            @Override
+            public int read(char[] cbuf, int off, int len) throws IOException {
+                return super.read(cbuf, off, Math.min(len, 1));
+            }
+        };
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import static org.junit.Assert.*;
+import org.junit.*;
+
+/**
+ * Test class for GeoJsonSequenceReader and GeoJsonSequenceWriter.
+ * 
+ * @author Alec Dhuse
+ */
+public class GeoJsonSequenceTest {
+    
+    public GeoJsonSequenceTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+    
+    @Before
+    public void setUp() {
+    }
+    
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of writing and reading back a text sequence and newline delimited
+     * GeoJSON.
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        System.out.println("roundTrip");
+        
+        Object[] features = getFeatures(300);
+        
+        for (boolean recordSeparators : new boolean[] {false, true}) {
+            String                text   = write(features, recordSeparators);
+            GeoJsonSequenceReader reader = new GeoJsonSequenceReader(GeoJsonReaderTest.getTrickleReader(text));
+            int                   count  = 0;
+            
+            assertEquals(recordSeparators, text.charAt(0) == RecordSplitter.RECORD_SEPARATOR);
+            assertEquals(features.length, text.split("\n").length);
+            
+            while (reader.hasNext()) 
+                assertEquals(features[count++], reader.next());
+            
+            reader.close();
+            assertEquals(features.length, count);
+        }
+    }
+    
+    /**
+     * Test of reading records in parallel, checking they keep their order.
+     */
+    @Test
+    public void testNextParallel() throws IOException {
+        System.out.println("next parallel");
+        
+        Object[]              features = getFeatures(2000);
+        ExecutorService       executor = Executors.newFixedThreadPool(3);
+        String                text     = write(features, false);
+        GeoJsonSequenceReader reader   = new GeoJsonSequenceReader(new StringReader(text), executor, 4);
+        int                   count    = 0;
+        
+        try {
+            while (reader.hasNext()) 
+                assertEquals(features[count++], reader.next());
+            
+            assertEquals(features.length, count);
+        } finally {
+            reader.close();
+            executor.shutdown();
+        }
+    }
+    
+    /**
+     * Test of reading a malformed record in parallel mode.
+     */
+    @Test(expected = JsonParseException.class)
+    public void testNextParallelMalformed() throws IOException {
+        System.out.println("next parallel malformed");
+        
+        ExecutorService       executor = Executors.newFixedThreadPool(2);
+        String                text     = "{\"id\": 1}\n{\"id\": 2} 3\n";
+        GeoJsonSequenceReader reader   = new GeoJsonSequenceReader(new StringReader(text), executor, 2);
+        
+        try {
+            while (reader.hasNext())
+                reader.next();
+        } finally {
+            reader.close();
+            executor.shutdown();
+        }
+    }
+    
+    /**
+     * Test of reading past a malformed record, in sequential and parallel 
+     * mode.
+     */
+    @Test(timeout = 10000)
+    public void testNextMalformedContinues() throws IOException {
+        System.out.println("next malformed continues");
+        
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        StringBuilder   sb       = new StringBuilder();
+        String          text;
+        
+        for (int i = 0; i < 5000; i++) {
+            if (i == 3) {
+                sb.append("{\"id\": }\n");
+            } else {
+                sb.append("{\"id\": ").append(i).append("}\n");
+            }
+        }
+        
+        text = sb.toString();
+        
+        try {
+            assertMalformedRead(new GeoJsonSequenceReader(new StringReader(text)), text.indexOf("}\n{\"id\": 4"));
+            assertMalformedRead(new GeoJsonSequenceReader(new StringReader(text), executor, 2), text.indexOf("}\n{\"id\": 4"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+    
+    /**
+     * Reads all records, checking that record 3 is reported as malformed at
+     * the given offset and the other 4999 are read.
+     * 
+     * @param reader
+     * @param offset
+     * @throws IOException 
+     */
+    private static void assertMalformedRead(GeoJsonSequenceReader reader, long offset) throws IOException {
+        int count  = 0;
+        int errors = 0;
+        
+        try {
+            while (true) {
+                try {
+                    if (!reader.hasNext())
+                        break;
+                    
+                    assertEquals(count < 3 ? count : count + 1, reader.next().getPairByName("id").getValue().getDouble(), 0.0);
+                    count++;
+                } catch (JsonParseException e) {
+                    assertEquals(offset, e.getOffset());
+                    errors++;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        
+        assertEquals(4999, count);
+        assertEquals(1, errors);
+    }
+    
+    /**
+     * Test of calling hasNext() again after the end of a parallel read.
+     */
+    @Test(timeout = 10000)
+    public void testHasNextParallelAtEnd() throws IOException {
+        System.out.println("hasNext parallel at end");
+        
+        ExecutorService       executor = Executors.newFixedThreadPool(2);
+        GeoJsonSequenceReader reader   = new GeoJsonSequenceReader(new StringReader("{\"id\": 1}\n"), executor, 2);
+        
+        try {
+            assertTrue(reader.hasNext());
+            reader.next();
+            assertFalse(reader.hasNext());
+            assertFalse(reader.hasNext());
+        } finally {
+            reader.close();
+            executor.shutdown();
+        }
+    }
+    
+    /**
+     * Test of reading in parallel with an executor that has been shut down.
+     */
+    @Test(timeout = 10000)
+    public void testNextParallelShutDownExecutor() throws IOException {
+        System.out.println("next parallel shut down executor");
+        
+        ExecutorService       executor = Executors.newFixedThreadPool(2);
+        GeoJsonSequenceReader reader   = new GeoJsonSequenceReader(new StringReader("{\"id\": 1}\n"), executor, 2);
+        
+        executor.shutdown();
+        
+        try {
+            reader.hasNext();
+            fail("Expected the rejected batch to be reported");
+        } catch (RejectedExecutionException e) {
+            //Expected
+        } finally {
+            reader.close();
+        }
+        
+        assertFalse(reader.hasNext());
+    }
+    
+    /**
+     * Returns the features of the example collection with the given number
+     * of features.
+     * 
+     * @param count
+     * @return 
+     */
+    private static Object[] getFeatures(int count) {
+        JsonObject collection = JsonParser.parseObject(ParallelFeatureParserTest.getExampleCollection(count));
+        
+        return (Object[]) collection.getPairByName("features").getValue().getValue();
+    }
+    
+    /**
+     * Writes features as a sequence and returns the text.
+     * 
+     * @param features
+     * @param recordSeparators
+     * @return
+     * @throws IOException 
+     */
+    private static String write(Object[] features, boolean recordSeparators) throws IOException {
+        StringWriter          out    = new StringWriter();
+        GeoJsonSequenceWriter writer = new GeoJsonSequenceWriter(out, recordSeparators);
+        
+        for (Object feature : features)
+            writer.write((JsonObject) feature);
+        
+        writer.close();
+        
+        return out.toString();
+    }
+}
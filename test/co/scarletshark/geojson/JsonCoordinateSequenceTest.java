@@ -0,0 +1,195 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import java.io.IOException;
+import java.util.HashMap;
+import static org.junit.Assert.*;
+import org.junit.*;
+
+/**
+ * Test class for JsonCoordinateSequence.
+ * 
+ * @author Alec Dhuse
+ */
+public class JsonCoordinateSequenceTest {
+    
+    public JsonCoordinateSequenceTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+    
+    @Before
+    public void setUp() {
+    }
+    
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of pack method, of class JsonCoordinateSequence.
+     */
+    @Test
+    public void testPack() {
+        System.out.println("pack");
+        
+        JsonCoordinate[]       coordinates;
+        JsonCoordinateSequence sequence;
+        
+        coordinates = new JsonCoordinate[] {new JsonCoordinate(1, 2), 
+                                            new JsonCoordinate(3, 4, 5)};
+        sequence    = JsonCoordinateSequence.pack(coordinates, 1);
+        
+        assertEquals(3, sequence.getDimension());
+        assertEquals(2, sequence.size());
+        assertEquals(3.0, sequence.getX(1), 0);
+        assertEquals(4.0, sequence.getY(1), 0);
+        assertEquals(5.0, sequence.getZ(1), 0);
+        assertTrue(Double.isNaN(sequence.getZ(0)));
+        assertArrayEquals(coordinates, sequence.toCoordinates());
+        
+        sequence = JsonCoordinateSequence.pack(coordinates, 2);
+        
+        assertEquals(1, sequence.getRingCount());
+        assertEquals(2, sequence.getRingEnd(0));
+    }
+
+    /**
+     * Test that geometries are stored packed and still provide 
+     * JsonCoordinates through getCoordinates().
+     */
+    @Test
+    public void testGeometryStorage() {
+        System.out.println("geometryStorage");
+        
+        JsonLineString line    = JsonParserTest.getExLine(0);
+        JsonObject     object  = JsonParser.parseObject(
+                "{\"type\": \"LineString\", \"coordinates\": " + line.getCoordinateSequence() + "}");
+        GeoJsonObject  parsed  = JsonParser.parseGeometry(object);
+        
+        assertTrue(parsed instanceof JsonLineString);
+        assertEquals(line, parsed);
+        assertEquals(2, parsed.getCoordinateSequence().getDimension());
+        assertArrayEquals(line.getCoordinates(), parsed.getCoordinates());
+        assertEquals(line.toString(), parsed.toString());
+        assertFalse(line.equals(JsonParserTest.getExPolygon(0)));
+    }
+
+    /**
+     * Test of immutable geometries and their hashes.
+     */
+    @Test
+    public void testImmutable() throws IOException {
+        System.out.println("immutable");
+        
+        HashMap<GeoJsonObject, String> unique = new HashMap<GeoJsonObject, String>();
+        ReusableJsonParser             parser = new ReusableJsonParser();
+        JsonPolygon                    polygon, immutable;
+        GeoJsonObject                  parsed;
+        
+        polygon   = JsonParserTest.getExPolygon(0);
+        immutable = polygon.toImmutable();
+        
+        assertFalse(polygon.isImmutable());
+        assertTrue(immutable.isImmutable());
+        assertSame(immutable, immutable.toImmutable());
+        assertEquals(polygon, immutable);
+        assertEquals(polygon.hashCode(), immutable.hashCode());
+        
+        immutable.getCoordinateSequence().getValues()[0] = 0;
+        assertEquals(polygon, immutable);
+        
+        parser.setCoordinateStorage(CoordinateStorage.IMMUTABLE);
+        parsed = JsonParser.parseGeometry(parser.parseObject(
+                "{\"type\": \"Polygon\", \"coordinates\": " + polygon.getCoordinateSequence() + "}"));
+        
+        assertTrue(parsed.isImmutable());
+        assertEquals(immutable, parsed);
+        
+        unique.put(immutable, "first");
+        unique.put(parsed, "second");
+        unique.put(JsonParserTest.getExLine(0).toImmutable(), "line");
+        
+        assertEquals(2, unique.size());
+        assertEquals("second", unique.get(polygon));
+        assertEquals(new JsonPoint(new JsonCoordinate[] {new JsonCoordinate(0.0, 1.0)}).hashCode(),
+                     new JsonPoint(new JsonCoordinate[] {new JsonCoordinate(-0.0, 1.0)}).hashCode());
+    }
+    
+    /**
+     * Test that geometries with the same positions but different rings or
+     * types are not equal.
+     */
+    @Test
+    public void testStructureEquals() {
+        System.out.println("structureEquals");
+        
+        JsonCoordinate[] outer = {new JsonCoordinate(0, 0), new JsonCoordinate(4, 0), new JsonCoordinate(4, 4), new JsonCoordinate(0, 0)};
+        JsonCoordinate[] hole  = {new JsonCoordinate(1, 1), new JsonCoordinate(2, 1), new JsonCoordinate(2, 2), new JsonCoordinate(1, 1)};
+        JsonCoordinate[] flat  = new JsonCoordinate[8];
+        JsonPolygon      holed, flattened;
+        
+        System.arraycopy(outer, 0, flat, 0, 4);
+        System.arraycopy(hole,  0, flat, 4, 4);
+        
+        holed     = new JsonPolygon(new JsonCoordinate[][] {outer, hole});
+        flattened = new JsonPolygon(flat);
+        
+        assertFalse(holed.equals(flattened));
+        assertFalse(holed.toImmutable().equals(flattened.toImmutable()));
+        assertFalse(holed.hashCode() == flattened.hashCode());
+        assertFalse(flattened.equals(new JsonLineString(flat)));
+        assertFalse(new JsonLineString(flat).toImmutable().equals(flattened.toImmutable()));
+        assertFalse(new JsonMultiPolygon(new JsonCoordinate[][][] {{outer, hole}}).equals(
+                    new JsonMultiLineString(new JsonCoordinate[][] {outer, hole})));
+        assertFalse(new JsonGeometryCollection(new GeoJsonObject[] {new JsonLineString(flat)}).equals(
+                    new JsonLineString(flat)));
+        assertEquals(holed, new JsonPolygon(new JsonCoordinate[][] {outer, hole}).toImmutable());
+    }
+    
+    /**
+     * Test of the coordinates and hash of a GeometryCollection.
+     */
+    @Test
+    public void testGeometryCollection() {
+        System.out.println("geometryCollection");
+        
+        JsonLineString         line       = JsonParserTest.getExLine(0);
+        JsonGeometryCollection collection = new JsonGeometryCollection(new GeoJsonObject[] {line, JsonParserTest.getExPolygon(0)});
+        JsonGeometryCollection immutable  = collection.toImmutable();
+        
+        assertFalse(collection.isImmutable());
+        assertTrue(immutable.isImmutable());
+        assertEquals(collection, immutable);
+        assertEquals(collection.hashCode(), immutable.hashCode());
+        assertEquals(line.getCoordinateSequence().size() + JsonParserTest.getExPolygon(0).getCoordinateSequence().size(), 
+                     collection.getCoordinateSequence().size());
+        
+        //The positions of the collection follow changes to its geometries
+        line.getCoordinateSequence().getValues()[0] = 42.0;
+        assertEquals(42.0, collection.getCoordinateSequence().getX(0), 0.0);
+        assertFalse(collection.equals(immutable));
+        assertTrue(immutable.getCoordinateSequence().isImmutable());
+    }
+}
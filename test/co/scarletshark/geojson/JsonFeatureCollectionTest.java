@@ -0,0 +1,183 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import static org.junit.Assert.*;
+import org.junit.*;
+
+/**
+ * Test class for JsonFeatureCollection.
+ * 
+ * @author Alec Dhuse
+ */
+public class JsonFeatureCollectionTest {
+    
+    private static final String TEXT = 
+            "{\"type\": \"FeatureCollection\", \"features\": [" +
+            "{\"type\": \"Feature\", \"id\": 1, \"geometry\": {\"type\": \"Point\", \"coordinates\": [1, 2]}, " +
+            "\"properties\": {\"name\": \"a\", \"pop\": 10, \"open\": true, \"note\": null, \"mixed\": 1}}, " +
+            "{\"type\": \"Feature\", \"id\": 2, \"geometry\": null, " +
+            "\"properties\": {\"name\": \"b\", \"pop\": 20.5, \"open\": false, \"note\": \"x\", \"mixed\": \"one\"}}, " +
+            "{\"type\": \"Feature\", \"id\": 3, \"geometry\": {\"type\": \"Point\", \"coordinates\": [3, 4]}, " +
+            "\"properties\": {\"name\": \"a\", \"open\": true}}]}";
+    
+    public JsonFeatureCollectionTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+    
+    @Before
+    public void setUp() {
+    }
+    
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of the property columns of a collection.
+     */
+    @Test
+    public void testColumns() {
+        System.out.println("columns");
+        
+        JsonFeatureCollection features = JsonFeatureCollection.fromObject(JsonParser.parseObject(TEXT));
+        BooleanColumn         open;
+        NumberColumn          pop;
+        StringColumn          name, note;
+        
+        assertEquals(3, features.size());
+        assertEquals(5, features.getColumns().size());
+        assertTrue(features.getGeometry(0) instanceof JsonPoint);
+        assertNull(features.getGeometry(1));
+        assertEquals(2.0, features.getId(1).getDouble(), 0.0);
+        
+        pop = (NumberColumn) features.getColumn("pop");
+        assertEquals(30.5, pop.sum(), 0.0);
+        assertArrayEquals(new int[] {1}, pop.select(15, 25));
+        assertTrue(pop.isNull(2));
+        
+        open = (BooleanColumn) features.getColumn("open");
+        assertEquals(2, open.count(true));
+        assertArrayEquals(new int[] {1}, open.select(false));
+        
+        name = (StringColumn) features.getColumn("name");
+        assertEquals(2, name.getDictionarySize());
+        assertArrayEquals(new int[] {0, 2}, name.select("a"));
+        assertEquals("b", name.getString(1));
+        
+        //A column starting with nulls is typed by its first value
+        note = (StringColumn) features.getColumn("note");
+        assertEquals(1, note.getCount());
+        assertEquals(JsonValueType.NULL, note.getValue(0).getType());
+        assertNull(note.getValue(2));
+        
+        //Values of different types are kept as JsonValues
+        assertEquals(JsonValueType.OTHER, features.getColumn("mixed").getType());
+        assertEquals(1.0, features.getColumn("mixed").getValue(0).getDouble(), 0.0);
+        assertEquals("one", features.getColumn("mixed").getValue(1).getValue());
+    }
+    
+    /**
+     * Test of the JsonObject views of features.
+     */
+    @Test
+    public void testGetFeature() {
+        System.out.println("getFeature");
+        
+        JsonObject            collection = JsonParser.parseObject(TEXT);
+        JsonFeatureCollection features   = JsonFeatureCollection.fromObject(collection);
+        JsonFeatureCollection written;
+        JsonObject            feature, properties;
+        
+        feature    = features.getFeature(0);
+        properties = feature.getPairByName("properties").getValueAsObject();
+        
+        assertEquals("Feature", feature.getPairByName("type").getValueAsString());
+        assertEquals(features.getGeometry(0), feature.getPairByName("geometry").getValue().getValue());
+        assertEquals(10.0, properties.getPairByName("pop").getValue().getDouble(), 0.0);
+        assertTrue(properties.getPairByName("open").getValue().getBoolean());
+        assertNull(features.getFeature(2).getPairByName("properties").getValueAsObject().getPairByName("pop"));
+        
+        //Write the collection out and read it back
+        written = JsonFeatureCollection.fromObject(JsonParser.parseObject(features.toString()));
+        
+        assertEquals(3, written.size());
+        assertEquals(30.5, ((NumberColumn) written.getColumn("pop")).sum(), 0.0);
+        assertEquals(features.getGeometry(2), written.getGeometry(2));
+        assertEquals("a", ((StringColumn) written.getColumn("name")).getString(2));
+    }
+    
+    /**
+     * Test of keeping the members of features that have no column.
+     */
+    @Test
+    public void testOtherMembers() {
+        System.out.println("other members");
+        
+        JsonFeatureCollection features = new JsonFeatureCollection();
+        JsonObject            feature;
+        
+        for (int i = 0; i < 20; i++)
+            features.addFeature(JsonParser.parseObject("{\"type\": \"Feature\", \"geometry\": null, \"properties\": {}}"));
+        
+        features.addFeature(JsonParser.parseObject("{\"type\": \"Feature\", \"bbox\": [1, 2, 3, 4], " +
+                                                   "\"geometry\": {\"type\": \"Point\", \"coordinates\": [1, 2]}, " +
+                                                   "\"properties\": {}, \"title\": \"a\"}"));
+        
+        feature = features.getFeature(20);
+        
+        assertEquals(JsonValueType.BBOX, feature.getPairByName("bbox").getValue().getType());
+        assertEquals("a", feature.getPairByName("title").getValueAsString());
+        assertNull(features.getFeature(19).getPairByName("title"));
+        assertEquals(3, features.getFeature(19).getPairs().size());
+        
+        //Written out and read back, the members are kept
+        features = JsonFeatureCollection.fromObject(JsonParser.parseObject(features.toString()));
+        assertEquals("a", features.getFeature(20).getPairByName("title").getValueAsString());
+    }
+    
+    /**
+     * Test of reading rows outside of the collection.
+     */
+    @Test
+    public void testRowBounds() {
+        System.out.println("row bounds");
+        
+        JsonFeatureCollection features = JsonFeatureCollection.fromObject(JsonParser.parseObject(TEXT));
+        
+        try {
+            features.getGeometry(-1);
+            fail("Expected an IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            assertFalse(e instanceof ArrayIndexOutOfBoundsException);
+        }
+        
+        try {
+            features.getId(3);
+            fail("Expected an IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            assertFalse(e instanceof ArrayIndexOutOfBoundsException);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import static org.junit.Assert.*;
+import org.junit.*;
+
+/**
+ * Test class for JsonObject.
+ * 
+ * @author Alec Dhuse
+ */
+public class JsonObjectTest {
+    
+    public JsonObjectTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+    
+    @Before
+    public void setUp() {
+    }
+    
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of getPairByName method, of class JsonObject.
+     */
+    @Test
+    public void testGetPairByName() {
+        System.out.println("getPairByName");
+        
+        for (int count = 1; count <= 40; count += 13) {
+            JsonObject object = new JsonObject();
+
+            for (int i = 0; i < count; i++)
+                object.addPair(new JsonPair("attribute" + i, i));
+
+            object.addPair(new JsonPair("Name", "first"));
+            object.addPair(new JsonPair("name", "second"));
+            object.addPair(new JsonPair("\u00c4rea", "third"));
+
+            for (int i = 0; i < count; i++)
+                assertSame(object.getPair(i), object.getPairByName("ATTRIBUTE" + i));
+
+            assertEquals("first",  object.getPairByName("NAME").getValueAsString());
+            assertEquals("first",  object.getPairByExactName("Name").getValueAsString());
+            assertEquals("second", object.getPairByExactName("name").getValueAsString());
+            assertEquals("third",  object.getPairByName("\u00e4REA").getValueAsString());
+            assertNull(object.getPairByName("missing"));
+            assertNull(object.getPairByExactName("NAME"));
+            
+            //Changes made through the list are seen by the index
+            object.getPairs().remove(count);
+            assertEquals("second", object.getPairByName("name").getValueAsString());
+            
+            object.getPairs().set(0, new JsonPair("replaced", 1.0));
+            assertNull(object.getPairByName("attribute0"));
+            assertSame(object.getPair(0), object.getPairByName("Replaced"));
+            
+            //Renamed pairs are seen by the index
+            object.getPair(count - 1).setName("renamed");
+            assertSame(object.getPair(count - 1), object.getPairByName("renamed"));
+            assertSame(object.getPair(count - 1), object.getPairByExactName("renamed"));
+            
+            //A pair held by two objects is renamed in both
+            JsonObject copy   = new JsonObject();
+            JsonPair   shared = object.getPairByName("\u00c4rea");
+            
+            copy.getPairs().addAll(object.getPairs());
+            assertSame(shared, copy.getPairByName("\u00c4rea"));
+            
+            shared.setName("shared");
+            assertSame(shared, object.getPairByName("shared"));
+            assertSame(shared, copy.getPairByName("shared"));
+            assertNull(copy.getPairByName("\u00c4rea"));
+        }
+    }
+}
@@ -24,6 +24,21 @@ import co.scarletshark.geojson.JsonLineString;
 import co.scarletshark.geojson.JsonValue;
 import co.scarletshark.geojson.JsonPoint;
 import co.scarletshark.geojson.JsonPair;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
 import static org.junit.Assert.*;
 import org.junit.*;
 
@@ -66,6 +81,365 @@ public class JsonParserTest {
         
         assertEquals(expResult, result);
     }
+
+    /**
+     * Test of parseArray method, of class JsonParser.
+     */
+    @Test
+    public void testParseArray() {
+        System.out.println("parseArray");
+
+        Object[] result = JsonParser.parseArray("[1.5, \"a\\\"b\", true, null, {\"c\": [2]}, [3, 4]]");
+
+        assertEquals(6,        result.length);
+        assertEquals(1.5,      (Double) result[0], 0.0);
+        assertEquals("a\\\"b", result[1]);
+        assertEquals(true,     result[2]);
+        assertEquals("null",   result[3]);
+        assertEquals(1,        ((JsonObject) result[4]).getPairs().size());
+        assertEquals(2,        ((Object[]) result[5]).length);
+    }
+
+    /**
+     * Test of parseMappedFile method, of class JsonParser.
+     */
+    @Test
+    public void testParseMappedFile() throws IOException {
+        System.out.println("parseMappedFile");
+        
+        File   file = File.createTempFile("geojson", ".json");
+        String text = getExampleString1().replace("value0", "caf\u00e9");
+        Writer out  = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        
+        file.deleteOnExit();
+        out.write(text);
+        out.close();
+        
+        assertEquals(JsonParser.parseObject(text), JsonParser.parseMappedFile(file));
+        assertEquals(JsonParser.parseObject(text), JsonParser.parseFile(file));
+        assertEquals(JsonParser.parseObject(text), JsonParser.parseMappedFileLazily(file));
+    }
+    
+    /**
+     * Test of parseCompressedFile method, of class JsonParser.
+     */
+    @Test
+    public void testParseCompressedFile() throws IOException {
+        System.out.println("parseCompressedFile");
+        
+        String text = ParallelFeatureParserTest.getExampleCollection(5000);
+        
+        for (int format = 0; format < 3; format++) {
+            File         file = File.createTempFile("geojson", ".json.gz");
+            OutputStream out  = new FileOutputStream(file);
+            
+            file.deleteOnExit();
+            
+            if (format == 0) {
+                out = new GZIPOutputStream(out);
+            } else {
+                out = new DeflaterOutputStream(out, new Deflater(Deflater.DEFAULT_COMPRESSION, format == 2));
+            }
+            
+            out.write(text.getBytes("UTF-8"));
+            out.close();
+            
+            assertEquals(JsonParser.parseObject(text), JsonParser.parseCompressedFile(file));
+        }
+    }
+    
+    /**
+     * Test of parseObjectLazily method, of class JsonParser.
+     */
+    @Test
+    public void testParseObjectLazily() throws IOException {
+        System.out.println("parseObjectLazily");
+        
+        String     text     = ParallelFeatureParserTest.getExampleCollection(50);
+        JsonObject result   = JsonParser.parseObjectLazily(text);
+        JsonValue  features = result.getPairByName("features").getValue();
+        JsonObject feature;
+        
+        assertTrue(features instanceof LazyJsonValue);
+        assertFalse(((LazyJsonValue) features).isParsed());
+        
+        feature = (JsonObject) ((Object[]) features.getValue())[7];
+        
+        assertTrue(((LazyJsonValue) features).isParsed());
+        assertEquals(7.0, feature.getPairByName("id").getValue().getValue());
+        assertFalse(((LazyJsonValue) feature.getPairByName("geometry").getValue()).isParsed());
+        assertEquals("road \\\"7\\\" [}", feature.getPairByName("properties").getValueAsObject().getPairByName("name").getValueAsString());
+        assertFalse(((LazyJsonValue) feature.getPairByName("geometry").getValue()).isParsed());
+        assertEquals(JsonValue.LINESTRING, feature.getPairByName("geometry").getValue().getValueType());
+        
+        assertEquals(JsonParser.parseObject(text), result);
+        assertEquals(getExampleJson1(), JsonParser.parseObjectLazily(getExampleString1()));
+        
+        //Lazy values hash the same as the values they are equal to
+        result = JsonParser.parseObjectLazily(text);
+        assertEquals(JsonParser.parseObject(text).getPairByName("features").getValue().hashCode(), 
+                     result.getPairByName("features").getValue().hashCode());
+        assertEquals(JsonParser.parseObject(text).hashCode(), result.hashCode());
+    }
+    
+    /**
+     * Test of reading a lazily parsed document from several threads at once.
+     */
+    @Test(timeout = 60000)
+    public void testParseObjectLazilyConcurrent() throws Exception {
+        System.out.println("parseObjectLazily concurrent");
+        
+        final String     text     = ParallelFeatureParserTest.getExampleCollection(200);
+        final JsonObject expected = JsonParser.parseObject(text);
+        ExecutorService  executor = Executors.newFixedThreadPool(8);
+        
+        try {
+            for (int round = 0; round < 20; round++) {
+                final JsonObject      result  = JsonParser.parseObjectLazily(text);
+                List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>();
+                
+                for (int t = 0; t < 8; t++) {
+                    futures.add(executor.submit(new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() {
+                            return expected.equals(result);
+                        }
+                    }));
+                }
+                
+                for (Future<Boolean> future: futures)
+                    assertTrue(future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+    
+    /**
+     * Test of parseObject method, of class JsonParser, with a FieldSelection.
+     */
+    @Test
+    public void testParseObjectSelected() {
+        System.out.println("parseObject selected");
+        
+        FieldSelection fields   = new FieldSelection("type", "features.id", "features.properties.prop1");
+        JsonObject     result   = JsonParser.parseObject(getExampleString1(), fields);
+        Object[]       features = result.getPairByName("features").getValueAsArray();
+        JsonObject     feature;
+        
+        assertEquals(2, result.getPairs().size());
+        assertEquals(3, features.length);
+        
+        feature = (JsonObject) features[0];
+        assertEquals(1, feature.getPairs().size());
+        assertEquals(0, feature.getPairByName("properties").getValueAsObject().getPairs().size());
+        
+        feature = (JsonObject) features[2];
+        assertEquals(getExProp(2).getValueAsObject().getPair(1), 
+                     feature.getPairByName("properties").getValueAsObject().getPair(0));
+        
+        //Names are matched ignoring case, however many are selected
+        fields = new FieldSelection("a", "B", "c", "ID", "e", "f", "g", "Title");
+        
+        assertNotNull(fields.get("Id"));
+        assertNotNull(fields.get("TITLE"));
+        assertNotNull(fields.get("b"));
+        assertNull(fields.get("h"));
+        assertTrue(fields.get("title").isAll());
+    }
+    
+    /**
+     * Test of reading coordinates arrays into a JsonCoordinateSequence.
+     */
+    @Test
+    public void testParseCoordinateSequence() {
+        System.out.println("parseCoordinateSequence");
+        
+        String     text     = "{\"type\": \"MultiPolygon\", \"coordinates\": [" +
+                              "[[[0, 0], [4, 0], [4, 4], [0, 0]], [[1, 1], [2, 1], [2, 2], [1, 1]]], " +
+                              "[[[5, 5, 1], [6, 5], [6, 6], [5, 5]]]]}";
+        JsonObject result   = JsonParser.parseObject(text);
+        Object     value    = result.getPairByName("coordinates").getValue().getValue();
+        
+        assertTrue(value instanceof JsonCoordinateSequence);
+        
+        JsonCoordinateSequence sequence = (JsonCoordinateSequence) value;
+        
+        assertEquals(3,  sequence.getDepth());
+        assertEquals(3,  sequence.getDimension());
+        assertEquals(12, sequence.size());
+        assertEquals(2,  sequence.getPartCount());
+        assertEquals(3,  sequence.getRingCount());
+        assertEquals(2,  sequence.getPartStart(1));
+        assertEquals(4,  sequence.getRingStart(1));
+        assertEquals(8,  sequence.getRingStart(2));
+        assertEquals(1.0, sequence.getZ(8), 0.0);
+        assertTrue(Double.isNaN(sequence.getZ(9)));
+        assertEquals(6.0, sequence.getX(9), 0.0);
+    }
+    
+    /**
+     * Test of reading and writing polygons with holes.
+     */
+    @Test
+    public void testPolygonRings() {
+        System.out.println("polygonRings");
+        
+        String      text = "{\"type\": \"Feature\", \"geometry\": {\"type\": \"Polygon\", \"coordinates\": [" +
+                           "[[0, 0], [4, 0], [4, 4], [0, 4], [0, 0]], [[1, 1], [2, 1], [2, 2], [1, 1]]]}}";
+        JsonObject  result;
+        JsonPolygon polygon, written;
+        String      output;
+        
+        result  = JsonParser.parseObject(text);
+        polygon = (JsonPolygon) result.getPairByName("geometry").getValue().getValue();
+        
+        assertEquals(2, polygon.getRingCount());
+        assertEquals(5, polygon.getRing(0).length);
+        assertEquals(4, polygon.getRing(1).length);
+        assertEquals(2.0, polygon.getRing(1)[2].getLongitude(), 0.0);
+        
+        //Closed rings are written without repeating the closing coordinate
+        output  = polygon.toString();
+        result  = JsonParser.parseObject("{\"geometry\": " + output + "}");
+        written = (JsonPolygon) result.getPairByName("geometry").getValue().getValue();
+        
+        assertEquals(polygon, written);
+        assertEquals(5, written.getRing(0).length);
+        
+        //Open rings are closed when written
+        polygon = new JsonPolygon(new JsonCoordinate[][] {
+                      {new JsonCoordinate(0, 0), new JsonCoordinate(1, 0), new JsonCoordinate(1, 1)}});
+        result  = JsonParser.parseObject("{\"geometry\": " + polygon.toString() + "}");
+        written = (JsonPolygon) result.getPairByName("geometry").getValue().getValue();
+        
+        assertEquals(4, written.getRing(0).length);
+        assertEquals(written.getRing(0)[0], written.getRing(0)[3]);
+        
+        //Parsed arrays keep every ring
+        JsonPair               pair     = new JsonPair("coordinates", new Object[] {
+                                              new Object[] {new Object[] {0.0, 0.0}, new Object[] {1.0, 0.0}, new Object[] {0.0, 0.0}},
+                                              new Object[] {new Object[] {"0.5", "0.1"}, new Object[] {0.6, 0.1}, new Object[] {0.5, 0.1}}});
+        JsonCoordinateSequence sequence = JsonParser.parseCoordinateSequence(pair);
+        
+        assertEquals(2, sequence.getRingCount());
+        assertEquals(3, sequence.getRingStart(1));
+        assertEquals(0.5, sequence.getX(3), 0.0);
+    }
+    
+    /**
+     * Test of reading and writing the Multi geometries and collections.
+     */
+    @Test
+    public void testMultiGeometries() {
+        System.out.println("multiGeometries");
+        
+        String                 text = "{\"type\": \"Feature\", \"geometry\": {\"type\": \"GeometryCollection\", \"geometries\": [" +
+                                      "{\"type\": \"MultiPoint\", \"coordinates\": [[0, 0], [1, 1, 5]]}, " +
+                                      "{\"type\": \"MultiLineString\", \"coordinates\": [[[0, 0], [1, 0]], [[2, 2], [3, 3], [4, 2]]]}, " +
+                                      "{\"type\": \"MultiPolygon\", \"coordinates\": [" +
+                                      "[[[0, 0], [4, 0], [4, 4], [0, 0]], [[1, 1], [2, 1], [2, 2], [1, 1]]], " +
+                                      "[[[5, 5], [6, 5], [6, 6], [5, 5]]]]}]}}";
+        JsonGeometryCollection collection, written;
+        JsonMultiLineString    lines;
+        JsonMultiPoint         points;
+        JsonMultiPolygon       polygons;
+        JsonObject             result;
+        
+        result     = JsonParser.parseObject(text);
+        collection = (JsonGeometryCollection) result.getPairByName("geometry").getValue().getValue();
+        
+        assertEquals(3, collection.getGeometryCount());
+        assertEquals(JsonValueType.GEOMETRYCOLLECTION, result.getPairByName("geometry").getValue().getType());
+        
+        points = (JsonMultiPoint) collection.getGeometry(0);
+        assertEquals(2, points.getPointCount());
+        assertEquals(5.0, points.getCoordinateSequence().getZ(1), 0.0);
+        
+        lines = (JsonMultiLineString) collection.getGeometry(1);
+        assertEquals(2, lines.getLineStringCount());
+        assertEquals(3, lines.getLineString(1).getCoordinates().length);
+        
+        polygons = (JsonMultiPolygon) collection.getGeometry(2);
+        assertEquals(2, polygons.getPolygonCount());
+        assertEquals(2, polygons.getPolygon(0).getRingCount());
+        assertEquals(6.0, polygons.getPolygon(1).getRing(0)[1].getLongitude(), 0.0);
+        assertEquals(19, collection.getCoordinateSequence().size());
+        
+        //Write the feature out and read it back
+        result  = JsonParser.parseObject(result.toString());
+        written = (JsonGeometryCollection) result.getPairByName("geometry").getValue().getValue();
+        
+        assertEquals(collection, written);
+        assertEquals(2, ((JsonMultiPolygon) written.getGeometry(2)).getPolygonCount());
+        assertEquals(3, written.getGeometry(2).getCoordinateSequence().getRingCount());
+        assertEquals(2, ((JsonMultiLineString) written.getGeometry(1)).getLineStringCount());
+        
+        //Coordinates nested to the wrong depth are rejected
+        result = JsonParser.parseObject("{\"type\": \"MultiPolygon\", \"coordinates\": [[0, 0], [1, 1]]}");
+        
+        try {
+            JsonParser.readGeometry(result);
+            fail("Expected an IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("nested 3 deep"));
+        }
+        
+        result = JsonParser.parseObject("{\"type\": \"Polygon\", \"coordinates\": [[0, 0], [1, 0], [1, 1], [0, 0]]}");
+        
+        try {
+            JsonParser.readGeometry(result);
+            fail("Expected an IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("nested 2 deep"));
+        }
+        
+        result = JsonParser.parseObject("{\"type\": \"LineString\", \"coordinates\": [0, 0]}");
+        
+        try {
+            JsonParser.readGeometry(result);
+            fail("Expected an IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("nested 1 deep"));
+        }
+        
+        //Empty collections keep their type
+        polygons = new JsonMultiPolygon(new JsonCoordinate[0][][]);
+        result   = JsonParser.parseObject("{\"geometry\": " + polygons.toString() + "}");
+        polygons = (JsonMultiPolygon) result.getPairByName("geometry").getValue().getValue();
+        
+        assertEquals(0, polygons.getPolygonCount());
+    }
+    
+    /**
+     * Test of parseGeometry method, of class JsonParser, with the members of
+     * the geometry in different orders.
+     */
+    @Test
+    public void testParseGeometryMemberOrder() {
+        System.out.println("parseGeometry member order");
+        
+        JsonObject    result;
+        GeoJsonObject geometry;
+        
+        result   = JsonParser.parseObject("{\"geometry\": {\"type\": \"LineString\", \"bbox\": [0, 0, 1, 1], \"coordinates\": [[0, 0], [1, 1]]}}");
+        geometry = (GeoJsonObject) result.getPairByName("geometry").getValue().getValue();
+        
+        assertTrue(geometry instanceof JsonLineString);
+        assertEquals(2, geometry.getCoordinateSequence().size());
+        
+        result   = JsonParser.parseObject("{\"geometry\": {\"coordinates\": [[[0, 0], [1, 0], [1, 1], [0, 0]]], \"type\": \"Polygon\"}}");
+        geometry = (GeoJsonObject) result.getPairByName("geometry").getValue().getValue();
+        
+        assertTrue(geometry instanceof JsonPolygon);
+        assertEquals(4, geometry.getCoordinateSequence().size());
+        
+        result   = JsonParser.parseObject("{\"geometry\": {\"geometries\": [{\"coordinates\": [1, 2], \"type\": \"Point\"}], \"type\": \"GeometryCollection\"}}");
+        geometry = (GeoJsonObject) result.getPairByName("geometry").getValue().getValue();
+        
+        assertTrue(geometry instanceof JsonGeometryCollection);
+        assertEquals(2.0, ((JsonGeometryCollection) geometry).getGeometry(0).getCoordinateSequence().getY(0), 0.0);
+    }
     
     public static JsonCoordinate getExCoordinate(int i) {
         Object[] coordinates = new Object[2];
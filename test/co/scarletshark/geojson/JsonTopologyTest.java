@@ -0,0 +1,98 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import java.util.ArrayList;
+import static org.junit.Assert.*;
+import org.junit.*;
+
+/**
+ * Test class for JsonTopology.
+ * 
+ * @author Alec Dhuse
+ */
+public class JsonTopologyTest {
+    
+    public JsonTopologyTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+    
+    @Before
+    public void setUp() {
+    }
+    
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of build method, of class JsonTopology.
+     */
+    @Test
+    public void testBuild() {
+        System.out.println("build");
+        
+        ArrayList<GeoJsonObject> geometries = new ArrayList<GeoJsonObject>();
+        JsonTopology             topology;
+        
+        geometries.add(new JsonPolygon(new JsonCoordinateSequence(
+                new double[] {0, 0, 1, 0, 1, 1, 0, 1, 0, 0}, 2, 2, new int[] {0, 5}, null)));
+        geometries.add(new JsonPolygon(new JsonCoordinateSequence(
+                new double[] {1, 0, 2, 0, 2, 1, 1, 1, 1, 0}, 2, 2, new int[] {0, 5}, null)));
+        geometries.add(new JsonLineString(new JsonCoordinateSequence(
+                new double[] {1, -1, 1, 0, 1, 1, 1, 2}, 2, 1, null, null)));
+        geometries.add(new JsonPolygon(new JsonCoordinateSequence(
+                new double[] {5, 5, 9, 5, 9, 9, 5, 5, 6, 6, 7, 7, 6, 7, 6, 6}, 2, 2, new int[] {0, 4, 8}, null)));
+        
+        topology = JsonTopology.build(geometries);
+        
+        assertEquals(4, topology.getGeometryCount());
+        
+        for (int i = 0; i < geometries.size(); i++) {
+            assertEquals(geometries.get(i).getClass(), topology.getGeometry(i).getClass());
+            assertEquals(geometries.get(i).getCoordinateSequence(), 
+                         topology.getGeometry(i).getCoordinateSequence());
+        }
+        
+        //The shared edge from (1, 0) to (1, 1) is stored once
+        assertEquals(topology.getArcReferences()[1], ~topology.getArcReferences()[4]);
+        assertEquals(topology.getArcReferences()[1], topology.getArcReferences()[6]);
+        assertEquals(8, topology.getArcCount());
+        assertTrue(topology.toString().contains("{\"type\": \"Polygon\", \"arcs\": [[0, 1, -3]]}"));
+        assertTrue(topology.toString().contains("{\"type\": \"Polygon\", \"arcs\": [[3, -2]]}"));
+    }
+
+    /**
+     * Test that unsupported geometries are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuildPoint() {
+        System.out.println("buildPoint");
+        
+        ArrayList<GeoJsonObject> geometries = new ArrayList<GeoJsonObject>();
+        
+        geometries.add(JsonParserTest.getExPoint(0));
+        JsonTopology.build(geometries);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import static org.junit.Assert.*;
+import org.junit.*;
+
+/**
+ * Test class for JsonValue.
+ * 
+ * @author Alec Dhuse
+ */
+public class JsonValueTest {
+    
+    public JsonValueTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+    
+    @Before
+    public void setUp() {
+    }
+    
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of the primitive accessors, of class JsonValue.
+     */
+    @Test
+    public void testPrimitives() {
+        System.out.println("primitives");
+        
+        JsonObject object = JsonParser.parseObject("{\"lanes\": 4, \"speed\": -32.5, \"paved\": true, \"name\": \"A1\"}");
+        JsonValue  lanes  = object.getPairByName("lanes").getValue();
+        
+        assertEquals(JsonValueType.NUMBER, lanes.getType());
+        assertEquals(4L, lanes.getLong());
+        assertEquals(-32.5, object.getPairByName("speed").getValue().getDouble(), 0);
+        assertEquals(-32L, object.getPairByName("speed").getValue().getLong());
+        assertTrue(object.getPairByName("paved").getValue().getBoolean());
+        assertEquals(JsonValueType.STRING, object.getPairByName("name").getValue().getType());
+        assertEquals(new Double(4), lanes.getValue());
+        assertEquals("4.0", lanes.toString());
+        
+        try {
+            object.getPairByName("name").getValue().getDouble();
+            fail("Expected an IllegalStateException");
+        } catch (IllegalStateException e) {
+        }
+    }
+
+    /**
+     * Test of the type names, of class JsonValue.
+     */
+    @Test
+    public void testTypeNames() {
+        System.out.println("typeNames");
+        
+        JsonValue value = new JsonValue(new Double(2.5), "Number");
+        
+        assertEquals(JsonValueType.NUMBER, value.getType());
+        assertEquals(2.5, value.getDouble(), 0);
+        assertEquals(new JsonValue(2.5), value);
+        assertEquals(JsonValue.NUMBER, new JsonValue(2.5).getValueType());
+        assertEquals(JsonValueType.OTHER, new JsonValue("x", "custom").getType());
+        assertEquals(JsonValueType.POLYGON, JsonValueType.forName(JsonValue.POLYGON));
+        assertFalse(new JsonValue(2.5).equals(new JsonValue("2.5", JsonValueType.STRING)));
+    }
+}
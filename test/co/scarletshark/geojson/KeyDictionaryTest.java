@@ -0,0 +1,107 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import static org.junit.Assert.*;
+import org.junit.*;
+
+/**
+ * Test class for KeyDictionary.
+ * 
+ * @author Alec Dhuse
+ */
+public class KeyDictionaryTest {
+    
+    public KeyDictionaryTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+    
+    @Before
+    public void setUp() {
+    }
+    
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of get methods, of class KeyDictionary.
+     */
+    @Test
+    public void testGet() throws IOException {
+        System.out.println("get");
+        
+        KeyDictionary keys  = new KeyDictionary();
+        char[]        chars = "xxpropertiesxx".toCharArray();
+        ByteBuffer    bytes = ByteBuffer.wrap("properties".getBytes("UTF-8"));
+        String        name  = keys.get(chars, 2, 10);
+        
+        assertEquals("properties", name);
+        assertSame(name, keys.get(chars, 2, 10));
+        assertSame(name, keys.get(bytes, 0, 10));
+        assertSame(name, keys.intern(new String("properties")));
+        assertNull(keys.get(ByteBuffer.wrap("caf\u00e9".getBytes("UTF-8")), 0, 5));
+        assertEquals(1, keys.size());
+        
+        for (int i = 0; i < KeyDictionary.MAX_KEYS * 2; i++)
+            keys.intern("key" + i);
+        
+        assertEquals(KeyDictionary.MAX_KEYS, keys.size());
+        assertSame(name, keys.intern(new String("properties")));
+    }
+    
+    /**
+     * Test of pair names being shared between the features of a parsed
+     * collection.
+     */
+    @Test
+    public void testSharedNames() throws IOException {
+        System.out.println("shared names");
+        
+        File   file = File.createTempFile("geojson", ".json");
+        String text = ParallelFeatureParserTest.getExampleCollection(10).replace("\"lanes\"", "\"l\u00e4nes\"");
+        Writer out  = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        
+        file.deleteOnExit();
+        out.write(text);
+        out.close();
+        
+        for (JsonObject collection : new JsonObject[] {JsonParser.parseObject(text), JsonParser.parseMappedFile(file)}) {
+            Object[]   features = collection.getPairByName("features").getValueAsArray();
+            JsonObject first    = ((JsonObject) features[0]).getPairByName("properties").getValueAsObject();
+            JsonObject last     = ((JsonObject) features[9]).getPairByName("properties").getValueAsObject();
+            
+            assertEquals("l\u00e4nes", first.getPair(1).getName());
+            
+            for (int i = 0; i < first.getPairs().size(); i++)
+                assertSame(first.getPair(i).getName(), last.getPair(i).getName());
+        }
+    }
+}
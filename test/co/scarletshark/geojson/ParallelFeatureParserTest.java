@@ -0,0 +1,161 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import static org.junit.Assert.*;
+import org.junit.*;
+
+/**
+ * Test class for ParallelFeatureParser.
+ * 
+ * @author Alec Dhuse
+ */
+public class ParallelFeatureParserTest {
+    
+    public ParallelFeatureParserTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+    
+    @Before
+    public void setUp() {
+    }
+    
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of parseObject method, of class ParallelFeatureParser.
+     */
+    @Test
+    public void testParseObject() throws IOException {
+        System.out.println("parseObject");
+        
+        String          text     = getExampleCollection(500);
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        
+        try {
+            assertEquals(JsonParser.parseObject(text), ParallelFeatureParser.parseObject(text, executor));
+            assertEquals(JsonParserTest.getExampleJson1(), 
+                         ParallelFeatureParser.parseObject(JsonParserTest.getExampleString1(), executor));
+        } finally {
+            executor.shutdown();
+        }
+    }
+    
+    /**
+     * Test of parseMappedFile method, of class ParallelFeatureParser.
+     */
+    @Test
+    public void testParseMappedFile() throws IOException {
+        System.out.println("parseMappedFile");
+        
+        File   file = File.createTempFile("geojson", ".json");
+        String text = getExampleCollection(200);
+        Writer out  = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        
+        file.deleteOnExit();
+        out.write(text);
+        out.close();
+        
+        assertEquals(JsonParser.parseObject(text), ParallelFeatureParser.parseMappedFile(file));
+    }
+    
+    /**
+     * Test of parseObject method, of class ParallelFeatureParser, with a 
+     * malformed feature.
+     */
+    @Test(expected = JsonParseException.class)
+    public void testParseObjectMalformed() throws IOException {
+        System.out.println("parseObject malformed");
+        
+        ParallelFeatureParser.parseObject("{\"features\": [{\"id\": 1}, {\"id\": }]}");
+    }
+    
+    /**
+     * Test of parseObject method, of class ParallelFeatureParser, that the 
+     * chunks still waiting to run are cancelled after one fails.
+     */
+    @Test
+    public void testParseObjectMalformedCancels() throws IOException {
+        System.out.println("parseObject malformed cancels");
+        
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        StringBuilder   sb       = new StringBuilder("{\"features\": [{\"id\": }");
+        List<Runnable>  waiting;
+        
+        for (int i = 0; i < 10000; i++)
+            sb.append(", {\"id\": ").append(i).append('}');
+        
+        sb.append("]}");
+        
+        try {
+            ParallelFeatureParser.parseObject(sb.toString(), executor);
+            fail("Expected a JsonParseException");
+        } catch (JsonParseException e) {
+            waiting = executor.shutdownNow();
+            
+            for (Runnable task: waiting)
+                assertTrue(((Future) task).isCancelled());
+        }
+    }
+    
+    /**
+     * Returns a FeatureCollection with the given number of features, using
+     * strings that contain brackets and escaped quotes.
+     * 
+     * @param count
+     * @return 
+     */
+    public static String getExampleCollection(int count) {
+        StringBuilder sb = new StringBuilder();
+        
+        sb.append("{\"type\": \"FeatureCollection\", \"features\": [\n");
+        
+        for (int i = 0; i < count; i++) {
+            if (i > 0)
+                sb.append(",\n");
+            
+            sb.append("{\"type\": \"Feature\", \"id\": ").append(i);
+            sb.append(", \"geometry\": {\"type\": \"LineString\", \"coordinates\": [[");
+            sb.append(i * 0.5).append(", ").append(-i * 0.25).append("], [");
+            sb.append(i + 1).append(", ").append(i + 2).append("]]}");
+            sb.append(", \"properties\": {\"name\": \"road \\\"").append(i).append("\\\" [}\"");
+            sb.append(", \"lanes\": ").append(i % 4).append(", \"paved\": ").append(i % 2 == 0).append("}}");
+        }
+        
+        sb.append("\n], \"name\": \"roads\"}");
+        
+        return sb.toString();
+    }
+}
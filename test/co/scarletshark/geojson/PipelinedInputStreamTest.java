@@ -0,0 +1,153 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import static org.junit.Assert.*;
+import org.junit.*;
+
+/**
+ * Test class for PipelinedInputStream.
+ * 
+ * @author Alec Dhuse
+ */
+public class PipelinedInputStreamTest {
+    
+    public PipelinedInputStreamTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+    
+    @Before
+    public void setUp() {
+    }
+    
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of read method, of class PipelinedInputStream, with a ring of 
+     * small buffers that are reused many times.
+     */
+    @Test
+    public void testRead() throws IOException {
+        System.out.println("read");
+        
+        byte[]                bytes  = new byte[100000];
+        ByteArrayOutputStream copy   = new ByteArrayOutputStream();
+        byte[]                buffer = new byte[13];
+        InputStream           in;
+        int                   read;
+        
+        new Random(3).nextBytes(bytes);
+        in = new PipelinedInputStream(new ByteArrayInputStream(bytes), 2, 7);
+        
+        copy.write(in.read());
+        
+        while ((read = in.read(buffer, 0, buffer.length)) >= 0)
+            copy.write(buffer, 0, read);
+        
+        in.close();
+        assertArrayEquals(bytes, copy.toByteArray());
+    }
+    
+    /**
+     * Test of read method, of class PipelinedInputStream, passing on an 
+     * error from the source.
+     */
+    @Test(expected = IOException.class)
+    public void testReadError() throws IOException {
+        System.out.println("read error");
+        
+        InputStream source = new InputStream() {
+            private int count = 0;
+            
+            @Override
+            public int read() throws IOException {
+                if (count++ < 1000) {
+                    return 'x';
+                } else {
+                    throw new IOException("Corrupt input");
+                }
+            }
+        };
+        InputStream in = new PipelinedInputStream(source, 2, 64);
+        
+        while (in.read() >= 0);
+    }
+    
+    /**
+     * Test of read method, of class PipelinedInputStream, passing on a 
+     * runtime exception from the source instead of blocking.
+     */
+    @Test(timeout = 10000)
+    public void testReadRuntimeError() throws IOException {
+        System.out.println("read runtime error");
+        
+        InputStream source = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IllegalStateException("Source failed");
+            }
+        };
+        InputStream in = new PipelinedInputStream(source, 2, 64);
+        
+        try {
+            in.read();
+            fail("Expected the source error to be passed on");
+        } catch (IOException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+    
+    /**
+     * Test of read method, of class PipelinedInputStream, with a source 
+     * that returns no bytes more times than there are buffers.
+     */
+    @Test(timeout = 10000)
+    public void testReadZeroLength() throws IOException {
+        System.out.println("read zero length");
+        
+        final byte[] bytes  = {1, 2, 3};
+        InputStream  source = new ByteArrayInputStream(bytes) {
+            private int count = 0;
+            
+            @Override
+            public synchronized int read(byte[] buffer, int offset, int length) {
+                return (count++ < 10) ? 0 : super.read(buffer, offset, length);
+            }
+        };
+        InputStream in = new PipelinedInputStream(source, 2, 64);
+        
+        assertEquals(1, in.read());
+        assertEquals(2, in.read());
+        assertEquals(3, in.read());
+        assertEquals(-1, in.read());
+        in.close();
+    }
+}
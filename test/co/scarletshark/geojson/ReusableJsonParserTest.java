@@ -0,0 +1,128 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import java.io.IOException;
+import static org.junit.Assert.*;
+import org.junit.*;
+
+/**
+ * Test class for ReusableJsonParser.
+ * 
+ * @author Alec Dhuse
+ */
+public class ReusableJsonParserTest {
+    private static final String FEATURE = "{\"type\": \"Feature\", " +
+            "\"geometry\": {\"type\": \"LineString\", \"coordinates\": [[1.5, 2.5], [3.0, 4.0]]}, " +
+            "\"properties\": {\"name\": \"caf\\u00e9\", \"tags\": [[\"a\", \"b\"], [1.0]]}}";
+    
+    public ReusableJsonParserTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+    
+    @Before
+    public void setUp() {
+    }
+    
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of parseObject methods, of class ReusableJsonParser.
+     */
+    @Test
+    public void testParseObject() throws IOException {
+        System.out.println("parseObject");
+        
+        ReusableJsonParser parser   = new ReusableJsonParser();
+        JsonObject         expected = JsonParser.parseObject(FEATURE);
+        byte[]             bytes    = ("  " + FEATURE + "  ").getBytes("UTF-8");
+        char[]             chars    = ("xx" + FEATURE + "xx").toCharArray();
+        
+        for (int i = 0; i < 3; i++) {
+            assertEquals(expected.toString(), parser.parseObject(FEATURE).toString());
+            assertEquals(expected.toString(), parser.parseObject(bytes, 0, bytes.length).toString());
+            assertEquals(expected.toString(), parser.parseObject(chars, 2, FEATURE.length()).toString());
+        }
+        
+        assertSame(parser.parseObject(FEATURE).getPair(0).getName(), 
+                   parser.parseObject(bytes, 0, bytes.length).getPair(0).getName());
+        
+        parser.reset();
+        assertEquals(expected.toString(), parser.parseObject(FEATURE).toString());
+    }
+
+    /**
+     * Test that a parser can be reused after an error.
+     */
+    @Test
+    public void testParseObjectAfterError() throws IOException {
+        System.out.println("parseObjectAfterError");
+        
+        ReusableJsonParser parser = new ReusableJsonParser();
+        
+        try {
+            parser.parseObject("{\"a\": [[1, 2], [3 4]]}");
+            fail("Expected a JsonParseException");
+        } catch (JsonParseException e) {
+            assertEquals(18, e.getOffset());
+        }
+        
+        try {
+            parser.parseObject("{\"a\": 1} {}");
+            fail("Expected a JsonParseException");
+        } catch (JsonParseException e) {
+            assertEquals(9, e.getOffset());
+        }
+        
+        assertEquals(JsonParser.parseObject(FEATURE).toString(), 
+                     parser.parseObject(FEATURE).toString());
+    }
+
+    /**
+     * Test of forCurrentThread method, of class ReusableJsonParser.
+     */
+    @Test
+    public void testForCurrentThread() throws InterruptedException {
+        System.out.println("forCurrentThread");
+        
+        final ReusableJsonParser[] other = new ReusableJsonParser[1];
+        Thread                     thread;
+        
+        thread = new Thread() {
+            @Override
+            public void run() {
+                other[0] = ReusableJsonParser.forCurrentThread();
+            }
+        };
+        
+        thread.start();
+        thread.join();
+        
+        assertSame(ReusableJsonParser.forCurrentThread(), ReusableJsonParser.forCurrentThread());
+        assertNotNull(other[0]);
+        assertNotSame(other[0], ReusableJsonParser.forCurrentThread());
+    }
+}
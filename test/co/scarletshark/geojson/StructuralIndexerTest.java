@@ -0,0 +1,159 @@
+/*
+ *    Copyright 2013 Alec Dhuse
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package co.scarletshark.geojson;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import static org.junit.Assert.*;
+import org.junit.*;
+
+/**
+ * Test class for StructuralIndexer.
+ * 
+ * @author Alec Dhuse
+ */
+public class StructuralIndexerTest {
+    
+    public StructuralIndexerTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+    
+    @Before
+    public void setUp() {
+    }
+    
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of skipping values with the indexer, compared to skipping them a
+     * char at a time.
+     */
+    @Test
+    public void testSkipValue() throws IOException {
+        System.out.println("skipValue");
+        
+        Random random = new Random(7);
+        
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder sb = new StringBuilder();
+            
+            appendValue(sb, random, 0);
+            sb.append(", 1]");
+            
+            String     text       = sb.toString();
+            JsonCursor byteCursor = new ByteCursor(ByteBuffer.wrap(text.getBytes("UTF-8")));
+            JsonCursor charCursor = new CharCursor(text.toCharArray());
+            
+            byteCursor.skipValue();
+            charCursor.skipValue();
+            
+            assertEquals(text, charCursor.position(), byteCursor.position());
+            assertEquals(',', byteCursor.peek());
+        }
+    }
+    
+    /**
+     * Test of the positions found in a block with backslash runs, including
+     * a run that crosses a block boundary.
+     */
+    @Test
+    public void testNext() throws IOException {
+        System.out.println("next");
+        
+        String            text    = "[\"a\\\\\", \"b\\\"]\", {}, \"" + repeat('\\', 62) + "\\\"x\"]";
+        StructuralIndexer indexer = new StructuralIndexer(ByteBuffer.wrap(text.getBytes("UTF-8")), text.length());
+        StringBuilder     found   = new StringBuilder();
+        
+        indexer.reset(0);
+        
+        while (indexer.next()) {
+            for (int i = 0; i < indexer.getCount(); i++)
+                found.append(text.charAt(indexer.getPositions()[i]));
+        }
+        
+        assertEquals("[\"\"\"\"{}\"\"]", found.toString());
+    }
+    
+    /**
+     * Appends a random value with strings full of escapes and brackets.
+     * 
+     * @param sb
+     * @param random
+     * @param depth 
+     */
+    private static void appendValue(StringBuilder sb, Random random, int depth) {
+        int type = random.nextInt(depth < 4 ? 4 : 2);
+        
+        if (type == 0) {
+            sb.append(random.nextInt(100000));
+        } else if (type == 1) {
+            sb.append('"');
+            
+            for (int i = random.nextInt(80); i > 0; i--) {
+                switch (random.nextInt(6)) {
+                    case 0:  sb.append(repeat('\\', 2 * random.nextInt(40))); break;
+                    case 1:  sb.append("\\\""); break;
+                    case 2:  sb.append("[{"); break;
+                    case 3:  sb.append("}]"); break;
+                    default: sb.append('x');
+                }
+            }
+            
+            sb.append('"');
+        } else {
+            sb.append(type == 2 ? '[' : '{');
+            
+            for (int i = random.nextInt(6); i > 0; i--) {
+                if (type == 3)
+                    sb.append("\"k\": ");
+                
+                appendValue(sb, random, depth + 1);
+                
+                if (i > 1)
+                    sb.append(", ");
+            }
+            
+            sb.append(type == 2 ? ']' : '}');
+        }
+    }
+    
+    /**
+     * Returns a String of a char repeated.
+     * 
+     * @param c
+     * @param count
+     * @return 
+     */
+    private static String repeat(char c, int count) {
+        StringBuilder sb = new StringBuilder();
+        
+        for (int i = 0; i < count; i++)
+            sb.append(c);
+        
+        return sb.toString();
+    }
+}